@@ -0,0 +1,51 @@
+package com.example.recognitionapi;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.service.RecognitionService;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Shared fixtures: the seeded directory and deterministic recognitions between its employees
+public final class BenchmarkData {
+
+    public static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private BenchmarkData() {
+    }
+
+    // A service with the seeded teams and employees, as after application start
+    public static RecognitionService newService() {
+        RecognitionService service = new RecognitionService();
+        try {
+            Method init = RecognitionService.class.getDeclaredMethod("init");
+            init.setAccessible(true);
+            init.invoke(service);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not seed the directory", e);
+        }
+        return service;
+    }
+
+    public static RecognitionService newService(int recognitions) {
+        RecognitionService service = newService();
+        for (int n = 0; n < recognitions; n++) {
+            service.saveRecognition(recognition(n));
+        }
+        return service;
+    }
+
+    public static Recognition recognition(long n) {
+        String sender = EMPLOYEES.get((int) (n % EMPLOYEES.size()));
+        String recipient = EMPLOYEES.get((int) ((n + 1 + n % 3) % EMPLOYEES.size()));
+        return new Recognition(new UUID(n, ~n).toString(), sender, recipient,
+                "Thank you for the help on the release! #" + n,
+                n % 3 == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, n % 7 == 0,
+                Instant.ofEpochMilli(START + n * 37));
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.BenchmarkData;
+import com.example.recognitionapi.security.CurrentEmployeeInterceptor;
+import com.example.recognitionapi.service.RecognitionService;
+import com.example.recognitionapi.service.SubscriptionRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.data.method.annotation.support.AnnotatedControllerConfigurer;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultExecutionGraphQlService;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole GraphQL requests through {@link DefaultExecutionGraphQlService}, without HTTP: parsing,
+ * validation, controller methods, visibility filtering and the batched nested fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GraphQlExecutionBenchmark {
+
+    private static final String CONNECTION_PAGE = """
+            query {
+                recognitionsConnection(first: 20) {
+                    edges { cursor node { id message sender { name } recipient { name team { name } } } }
+                    pageInfo { hasNextPage endCursor }
+                }
+            }
+            """;
+
+    private static final String RECIPIENT_FEED = """
+            query {
+                recognitions(recipientId: "102") { id message sender { name } recipient { name } }
+            }
+            """;
+
+    @Param({"1000", "100000"})
+    public int recognitions;
+
+    private AnnotationConfigApplicationContext context;
+    private DefaultExecutionGraphQlService graphQlService;
+    private Object caller;
+    private int requestId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RecognitionService dataService = BenchmarkData.newService(recognitions);
+        caller = dataService.getEmployeeById("104");
+
+        MessageController controller = new MessageController(dataService, null,
+                new SubscriptionRouter(256, 128, BufferOverflowStrategy.DROP_OLDEST), null, null,
+                new SimpleMeterRegistry());
+        BatchLoaderRegistry batchLoaderRegistry = new DefaultBatchLoaderRegistry();
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MessageController.class, () -> controller);
+        context.registerBean(BatchLoaderRegistry.class, () -> batchLoaderRegistry);
+        context.refresh();
+
+        AnnotatedControllerConfigurer configurer = new AnnotatedControllerConfigurer();
+        configurer.setApplicationContext(context);
+        configurer.afterPropertiesSet();
+
+        GraphQlSource graphQlSource = GraphQlSource.schemaResourceBuilder()
+                .schemaResources(new ClassPathResource("graphql/schema.graphqls"))
+                .configureRuntimeWiring(configurer)
+                .build();
+        graphQlService = new DefaultExecutionGraphQlService(graphQlSource);
+        graphQlService.addDataLoaderRegistrar(batchLoaderRegistry);
+
+        // Benchmark threads are not the setup thread, so share one signed-in context across them
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        DefaultOidcUser user = new DefaultOidcUser(List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE")),
+                new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(3600),
+                        Map.of("sub", "diana@corp.com", "email", "diana@corp.com")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), "auth0"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse connectionPage() {
+        return execute(CONNECTION_PAGE);
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse fullRecipientFeed() {
+        return execute(RECIPIENT_FEED);
+    }
+
+    private ExecutionGraphQlResponse execute(String document) {
+        DefaultExecutionGraphQlRequest request = new DefaultExecutionGraphQlRequest(document, null, null, null,
+                String.valueOf(requestId++), null);
+        // As CurrentEmployeeInterceptor does for HTTP requests
+        request.configureExecutionInput((input, builder) -> builder
+                .graphQLContext(Map.of(CurrentEmployeeInterceptor.CURRENT_EMPLOYEE, caller))
+                .build());
+        ExecutionGraphQlResponse response = graphQlService.execute(request).block();
+        if (response == null || !response.isValid() || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException("Query failed: " + (response == null ? null : response.getErrors()));
+        }
+        return response;
+    }
+}
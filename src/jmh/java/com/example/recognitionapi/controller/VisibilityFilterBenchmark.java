@@ -0,0 +1,60 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.BenchmarkData;
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.service.RecognitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// isVisibleTo over a 10,000-recognition feed, as the recognitions query used to filter it, against
+// the visibility-partitioned indexes it reads now
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VisibilityFilterBenchmark {
+
+    @Param({"EMPLOYEE", "HR"})
+    public Role role;
+
+    private MessageController controller;
+    private Employee caller;
+    private List<Recognition> feed;
+    private RecognitionService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        controller = new MessageController(null, null, null, null, null, new SimpleMeterRegistry());
+        caller = new Employee("104", "Diana", "diana@corp.com", "2", role);
+        feed = new ArrayList<>();
+        for (int n = 0; n < 10_000; n++) {
+            feed.add(BenchmarkData.recognition(n));
+        }
+        service = BenchmarkData.newService(10_000);
+    }
+
+    @Benchmark
+    public List<Recognition> filterFeed() {
+        return feed.stream()
+                .filter(recognition -> controller.isVisibleTo(recognition, caller))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Recognition> indexedFeed() {
+        return service.getRecognitionsForRecipient(null, caller);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.ExecutionInput;
+import graphql.ParseAndValidate;
+import graphql.ParseAndValidateResult;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+import graphql.validation.ValidationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * What graphql-java spends before execution starts: parsing and validating a typical feed query
+ * from scratch, against finding it in {@link CachingDocumentProvider} by its full text (hash plus
+ * lookup) or by a persisted-query hash alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DocumentCacheBenchmark {
+
+    private static final String FEED = """
+            query Feed($after: String) {
+                recognitionsConnection(first: 20, after: $after) {
+                    edges {
+                        cursor
+                        node {
+                            id message visibility isAnonymous createdAt
+                            sender { id name team { id name } }
+                            recipient { id name team { id name } }
+                        }
+                    }
+                    pageInfo { hasNextPage hasPreviousPage startCursor endCursor }
+                }
+                myRecognitionsConnection(first: 5) { edges { node { id message sender { name } } } }
+            }
+            """;
+
+    private GraphQLSchema schema;
+    private Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate;
+    private CachingDocumentProvider documents;
+    private ExecutionInput fullText;
+    private ExecutionInput hashOnly;
+
+    @Setup
+    public void setUp() throws IOException {
+        String sdl = new ClassPathResource("graphql/schema.graphqls").getContentAsString(StandardCharsets.UTF_8);
+        schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(new SchemaParser().parse(sdl));
+        parseAndValidate = this::parseAndValidate;
+
+        documents = new CachingDocumentProvider(500, false, List.of());
+        fullText = ExecutionInput.newExecutionInput().query(FEED).build();
+        hashOnly = ExecutionInput.newExecutionInput()
+                .query(PersistedQuerySupport.PERSISTED_QUERY_MARKER)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1,
+                        "sha256Hash", CachingDocumentProvider.sha256(FEED))))
+                .build();
+        documents.getDocumentAsync(fullText, parseAndValidate).join();
+    }
+
+    @Benchmark
+    public PreparsedDocumentEntry uncached() {
+        return parseAndValidate(fullText);
+    }
+
+    @Benchmark
+    public PreparsedDocumentEntry cachedByText() {
+        return documents.getDocumentAsync(fullText, parseAndValidate).join();
+    }
+
+    @Benchmark
+    public PreparsedDocumentEntry cachedByPersistedHash() {
+        return documents.getDocumentAsync(hashOnly, parseAndValidate).join();
+    }
+
+    // What graphql-java does on a cache miss
+    private PreparsedDocumentEntry parseAndValidate(ExecutionInput input) {
+        ParseAndValidateResult parsed = ParseAndValidate.parse(input);
+        if (parsed.isFailure()) {
+            return new PreparsedDocumentEntry(parsed.getSyntaxException().toInvalidSyntaxError());
+        }
+        List<ValidationError> errors = ParseAndValidate.validate(schema, parsed.getDocument());
+        return errors.isEmpty()
+                ? new PreparsedDocumentEntry(parsed.getDocument())
+                : new PreparsedDocumentEntry(parsed.getDocument(), errors);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.recognitionapi.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Id and timestamp generation for new recognitions, alone and under contention. The randomUuid
+// benchmarks are the previous id source, for comparison.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecognitionCreateBenchmark {
+
+    private final RecognitionIdGenerator generator = new RecognitionIdGenerator(1, System::currentTimeMillis);
+
+    @Benchmark
+    public Recognition create() {
+        return Recognition.create("101", "102", "Thanks for the review", Visibility.PUBLIC, false);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Recognition createContended() {
+        return Recognition.create("101", "102", "Thanks for the review", Visibility.PUBLIC, false);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Recognition create64Threads() {
+        return Recognition.create("101", "102", "Thanks for the review", Visibility.PUBLIC, false);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public UUID nextId64Threads() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public UUID randomUuid64Threads() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.BenchmarkData;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service reads and writes against stores of 10^3 to 10^7 recognitions. Full feeds grow with the
+ * store, while pages and lookups should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecognitionServiceBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int recognitions;
+
+    private RecognitionService service;
+    private String secondPageCursor;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = BenchmarkData.newService(recognitions);
+        secondPageCursor = service.getRecognitionPageForRecipient("102", 20, null, recognition -> true)
+                .pageInfo().endCursor();
+        next = recognitions;
+    }
+
+    @Benchmark
+    public Recognition saveRecognition() {
+        return service.saveRecognition(BenchmarkData.recognition(next++));
+    }
+
+    @Benchmark
+    public RecognitionConnection firstPageOfTimeline() {
+        return service.getRecognitionPageForRecipient(null, 20, null, recognition -> true);
+    }
+
+    @Benchmark
+    public RecognitionConnection secondPageForRecipient() {
+        return service.getRecognitionPageForRecipient("102", 20, secondPageCursor, recognition -> true);
+    }
+
+    @Benchmark
+    public List<Recognition> fullFeedForSender() {
+        return service.getRecognitionsForSender("101");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object findByEmail() {
+        return service.findByEmail("Charlie@Corp.com");
+    }
+}
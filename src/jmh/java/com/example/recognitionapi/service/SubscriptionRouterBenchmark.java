@@ -0,0 +1,69 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.BenchmarkData;
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of publishing one recognition to N {@code recognitionReceived} subscribers. One in ten
+ * subscribers is HR and the rest are employees with their own participant channels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SubscriptionRouterBenchmark {
+
+    @Param({"1", "100", "1000", "10000"})
+    public int subscribers;
+
+    private SubscriptionRouter router;
+    private final List<Disposable> subscriptions = new ArrayList<>();
+    private Recognition publicRecognition;
+    private Recognition privateRecognition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        router = new SubscriptionRouter(256, 128, BufferOverflowStrategy.DROP_OLDEST);
+        for (int i = 0; i < subscribers; i++) {
+            Role role = i % 10 == 0 ? Role.HR : Role.EMPLOYEE;
+            Employee employee = new Employee(String.valueOf(10_000 + i), "Employee " + i,
+                    "employee" + i + "@corp.com", "1", role);
+            subscriptions.add(router.subscribe(employee).subscribe());
+        }
+        // Recognition n is PRIVATE when n % 3 == 0
+        publicRecognition = BenchmarkData.recognition(1);
+        privateRecognition = BenchmarkData.recognition(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Benchmark
+    public void publishPublic() {
+        router.publish(publicRecognition);
+    }
+
+    @Benchmark
+    public void publishPrivate() {
+        router.publish(privateRecognition);
+    }
+}
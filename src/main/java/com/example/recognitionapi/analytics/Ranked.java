@@ -0,0 +1,5 @@
+package com.example.recognitionapi.analytics;
+
+// An employee or team id and its recognition count in a window
+public record Ranked(String key, long count) {
+}
@@ -0,0 +1,155 @@
+package com.example.recognitionapi.analytics;
+
+import com.example.recognitionapi.model.LeaderboardScope;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionStats;
+import com.example.recognitionapi.model.TimeWindow;
+import com.example.recognitionapi.model.Visibility;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recognition counts per calendar week, month and quarter, updated as each recognition is saved.
+ * Every bucket holds {@link LongAdder} counters per recipient and per team. It also holds a top-K
+ * of recipients and of recipient teams, so leaderboard and stats reads cost O(K) however much
+ * history has been recorded.
+ * <p>
+ * Only the newest {@code retainedBuckets} buckets of each window are kept. Recognitions older
+ * than that, such as a backfill, are not counted.
+ */
+public class RecognitionRollups {
+
+    public static final int MAX_LEADERBOARD_SIZE = 100;
+
+    private final Clock clock;
+    private final int retainedBuckets;
+    private final Map<TimeWindow, ConcurrentSkipListMap<Long, Bucket>> buckets = new EnumMap<>(TimeWindow.class);
+
+    public RecognitionRollups(Clock clock, int retainedBuckets) {
+        this.clock = clock;
+        this.retainedBuckets = retainedBuckets;
+        for (TimeWindow window : TimeWindow.values()) {
+            buckets.put(window, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // Team ids are looked up by the caller; null when the employee is not in the directory
+    public void record(Recognition recognition, String senderTeamId, String recipientTeamId) {
+        Instant createdAt = recognition.createdAt();
+        for (TimeWindow window : TimeWindow.values()) {
+            Bucket bucket = bucketFor(window, window.bucketOf(createdAt));
+            if (bucket != null) {
+                bucket.record(recognition, senderTeamId, recipientTeamId);
+            }
+        }
+    }
+
+    /** Highest counts in the current window, at most {@link #MAX_LEADERBOARD_SIZE}. */
+    public List<Ranked> leaderboard(LeaderboardScope scope, TimeWindow window, int limit) {
+        Bucket bucket = buckets.get(window).get(currentBucket(window));
+        if (bucket == null || limit <= 0) {
+            return List.of();
+        }
+        int size = Math.min(limit, MAX_LEADERBOARD_SIZE);
+        return switch (scope) {
+            case EMPLOYEE -> bucket.topRecipients.top(size, id -> sum(bucket.receivedByEmployee.get(id)));
+            case TEAM -> bucket.topTeams.top(size, id -> sum(bucket.teams.get(id).received));
+        };
+    }
+
+    public RecognitionStats stats(String teamId, TimeWindow window) {
+        long number = currentBucket(window);
+        String windowStart = window.start(number).toString();
+        Bucket bucket = buckets.get(window).get(number);
+        Totals totals = bucket == null ? null : teamId == null ? bucket.company : bucket.teams.get(teamId);
+        if (totals == null) {
+            return new RecognitionStats(teamId, window, windowStart, 0, 0, 0, 0);
+        }
+        return new RecognitionStats(teamId, window, windowStart, totals.received.sum(), totals.sent.sum(),
+                totals.publicCount.sum(), totals.privateCount.sum());
+    }
+
+    /** Start of the oldest bucket still kept for the current time; older recognitions count nowhere. */
+    public Instant retainedSince() {
+        Instant oldest = clock.instant();
+        for (TimeWindow window : TimeWindow.values()) {
+            Instant start = window.start(currentBucket(window) - retainedBuckets + 1).atStartOfDay(ZoneOffset.UTC)
+                    .toInstant();
+            if (start.isBefore(oldest)) {
+                oldest = start;
+            }
+        }
+        return oldest;
+    }
+
+    private long currentBucket(TimeWindow window) {
+        return window.bucketOf(clock.instant());
+    }
+
+    private Bucket bucketFor(TimeWindow window, long number) {
+        ConcurrentSkipListMap<Long, Bucket> byNumber = buckets.get(window);
+        Bucket bucket = byNumber.get(number);
+        if (bucket != null) {
+            return bucket;
+        }
+        Map.Entry<Long, Bucket> newest = byNumber.lastEntry();
+        long oldestKept = Math.max(number, newest == null ? number : newest.getKey()) - retainedBuckets + 1;
+        if (number < oldestKept) {
+            return null;
+        }
+        bucket = byNumber.computeIfAbsent(number, key -> new Bucket());
+        byNumber.headMap(oldestKept).clear();
+        return bucket;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder == null ? 0 : adder.sum();
+    }
+
+    private static final class Bucket {
+
+        private final Map<String, LongAdder> receivedByEmployee = new ConcurrentHashMap<>();
+        private final Map<String, Totals> teams = new ConcurrentHashMap<>();
+        private final Totals company = new Totals();
+        private final TopK topRecipients = new TopK(MAX_LEADERBOARD_SIZE);
+        private final TopK topTeams = new TopK(MAX_LEADERBOARD_SIZE);
+
+        void record(Recognition recognition, String senderTeamId, String recipientTeamId) {
+            LongAdder received = receivedByEmployee.computeIfAbsent(recognition.recipientId(), id -> new LongAdder());
+            received.increment();
+            topRecipients.offer(recognition.recipientId(), received.sum());
+
+            company.receive(recognition.visibility());
+            company.sent.increment();
+            if (recipientTeamId != null) {
+                Totals team = teams.computeIfAbsent(recipientTeamId, id -> new Totals());
+                team.receive(recognition.visibility());
+                topTeams.offer(recipientTeamId, team.received.sum());
+            }
+            if (senderTeamId != null) {
+                teams.computeIfAbsent(senderTeamId, id -> new Totals()).sent.increment();
+            }
+        }
+    }
+
+    private static final class Totals {
+
+        private final LongAdder received = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder publicCount = new LongAdder();
+        private final LongAdder privateCount = new LongAdder();
+
+        void receive(Visibility visibility) {
+            received.increment();
+            (visibility == Visibility.PUBLIC ? publicCount : privateCount).increment();
+        }
+    }
+}
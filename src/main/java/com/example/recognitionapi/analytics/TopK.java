@@ -0,0 +1,89 @@
+package com.example.recognitionapi.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@code capacity} keys with the highest counts. Counters only ever grow, so a key can only
+ * enter the top K at the moment its own counter is incremented. An offer for each increment is
+ * therefore enough to keep the set exact, up to ties at the boundary.
+ * <p>
+ * Offers below the current floor return without locking. Once the set is full, that covers
+ * almost every increment.
+ */
+final class TopK {
+
+    private static final Comparator<Ranked> HIGHEST_FIRST =
+            Comparator.comparingLong(Ranked::count).reversed().thenComparing(Ranked::key);
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private int size;
+
+    // Smallest count held once the set is full; 0 until then
+    private volatile long floor;
+
+    TopK(int capacity) {
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+    }
+
+    void offer(String key, long count) {
+        if (count <= floor) {
+            return;
+        }
+        synchronized (this) {
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    // Offers for one key can arrive out of order; keep the largest
+                    counts[i] = Math.max(counts[i], count);
+                    updateFloor();
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (size < capacity) {
+                keys[size] = key;
+                counts[size] = count;
+                size++;
+            } else if (count > counts[min]) {
+                keys[min] = key;
+                counts[min] = count;
+            }
+            updateFloor();
+        }
+    }
+
+    /** The highest {@code limit} keys, with counts re-read through {@code currentCount} so they are up to date. */
+    List<Ranked> top(int limit, ToLongFunction<String> currentCount) {
+        String[] held;
+        synchronized (this) {
+            held = Arrays.copyOf(keys, size);
+        }
+        List<Ranked> current = new ArrayList<>(held.length);
+        for (String key : held) {
+            current.add(new Ranked(key, currentCount.applyAsLong(key)));
+        }
+        current.sort(HIGHEST_FIRST);
+        return current.size() > limit ? current.subList(0, limit) : current;
+    }
+
+    private void updateFloor() {
+        if (size < capacity) {
+            return;
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, counts[i]);
+        }
+        floor = min;
+    }
+}
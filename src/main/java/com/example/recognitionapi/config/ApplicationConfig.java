@@ -1,5 +1,7 @@
 package com.example.recognitionapi.config;
 
+import com.example.recognitionapi.model.RecognitionIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,7 +16,16 @@ import java.util.Set;
 @Configuration
 public class ApplicationConfig {
 
-    private static final String ROLES_CLAIM = "URL_Here";
+    static final String ROLES_CLAIM = "URL_Here";
+
+    // Node id embedded in new recognition ids; a random one is drawn at startup unless set
+    @Bean
+    public RecognitionIdGenerator recognitionIdGenerator(@Value("${app.ids.node-id:-1}") int nodeId) {
+        if (nodeId >= 0) {
+            RecognitionIdGenerator.useNodeId(nodeId);
+        }
+        return RecognitionIdGenerator.shared();
+    }
 
     @Bean
     public GrantedAuthoritiesMapper userAuthoritiesMapper() {
@@ -0,0 +1,66 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.events.InProcessEventBus;
+import com.example.recognitionapi.events.RecentIdFilter;
+import com.example.recognitionapi.events.RecognitionEventBus;
+import com.example.recognitionapi.events.TcpEventBus;
+import com.example.recognitionapi.service.SubscriptionRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// New recognitions reach subscribers on every node through the event bus, deduplicated per node
+@Configuration
+public class EventBusConfig {
+
+    @Bean
+    public RecentIdFilter recognitionEventFilter(SubscriptionRouter router,
+                                                 @Value("${app.events.dedup-capacity:65536}") int capacity) {
+        return new RecentIdFilter(capacity, router::publishAll);
+    }
+
+    @Bean(destroyMethod = "close")
+    public RecognitionEventBus recognitionEventBus(
+            RecentIdFilter recognitionEventFilter,
+            @Value("${app.events.bus:in-process}") String type,
+            @Value("${app.events.tcp.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${app.events.tcp.port:7400}") int port,
+            @Value("${app.events.tcp.peers:}") String peers,
+            @Value("${app.events.tcp.max-batch:256}") int maxBatch,
+            @Value("${app.events.tcp.queue-capacity:8192}") int queueCapacity,
+            @Value("${app.events.tcp.connect-timeout:PT1S}") Duration connectTimeout,
+            @Value("${app.events.tcp.retry-interval:PT5S}") Duration retryInterval
+    ) {
+        RecognitionEventBus bus = switch (type) {
+            case "in-process" -> new InProcessEventBus();
+            case "tcp" -> new TcpEventBus(new InetSocketAddress(bindAddress, port), addresses(peers),
+                    maxBatch, queueCapacity, connectTimeout, retryInterval);
+            default -> throw new IllegalArgumentException(
+                    "Unknown app.events.bus '" + type + "'; expected in-process or tcp.");
+        };
+        bus.start(recognitionEventFilter);
+        return bus;
+    }
+
+    // "host:port,host:port"
+    static List<InetSocketAddress> addresses(String values) {
+        List<InetSocketAddress> parsed = new ArrayList<>();
+        for (String entry : values.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected host:port but got '" + entry.trim() + "'.");
+            }
+            parsed.add(new InetSocketAddress(entry.substring(0, separator).trim(),
+                    Integer.parseInt(entry.substring(separator + 1).trim())));
+        }
+        return parsed;
+    }
+}
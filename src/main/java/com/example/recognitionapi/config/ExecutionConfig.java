@@ -0,0 +1,19 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.graphql.VirtualThreadDataFetcherInstrumentation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// With spring.threads.virtual.enabled=true Boot already serves Tomcat requests and async MVC work
+// on virtual threads; this adds concurrent top-level GraphQL fields on top of that
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class ExecutionConfig {
+
+    @Bean
+    public VirtualThreadDataFetcherInstrumentation virtualThreadDataFetcherInstrumentation() {
+        return new VirtualThreadDataFetcherInstrumentation();
+    }
+}
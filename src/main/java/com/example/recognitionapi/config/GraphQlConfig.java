@@ -0,0 +1,80 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.graphql.CachingDocumentProvider;
+import com.example.recognitionapi.graphql.QueryCostInstrumentation;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Parsed-document cache, automatic persisted queries, the optional allowlist, and query cost limits
+// for every GraphQL request
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public CachingDocumentProvider cachingDocumentProvider(
+            ResourcePatternResolver resources,
+            @Value("${app.graphql.documents.cache-size:500}") int cacheSize,
+            @Value("${app.graphql.documents.allowlist-only:false}") boolean allowlistOnly,
+            @Value("${app.graphql.documents.allowlist:classpath*:graphql/persisted/*.graphql}") String allowlist
+    ) throws IOException {
+        List<String> documents = new ArrayList<>();
+        for (Resource resource : resources.getResources(allowlist)) {
+            documents.add(resource.getContentAsString(StandardCharsets.UTF_8));
+        }
+        if (allowlistOnly && documents.isEmpty()) {
+            throw new IllegalStateException("app.graphql.documents.allowlist-only is set but no documents match " + allowlist);
+        }
+        return new CachingDocumentProvider(cacheSize, allowlistOnly, documents);
+    }
+
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(
+            MeterRegistry meterRegistry,
+            @Value("${app.graphql.cost.max-depth:10}") int maxDepth,
+            @Value("${app.graphql.cost.default-list-size:100}") int defaultListSize,
+            @Value("${app.graphql.cost.max-list-size:100}") int maxListSize,
+            @Value("${app.graphql.cost.field-costs:}") String fieldCosts,
+            @Value("${app.graphql.cost.list-sizes:}") String listSizes,
+            @Value("${app.graphql.cost.budget.employee:2000}") int employeeBudget,
+            @Value("${app.graphql.cost.budget.manager:5000}") int managerBudget,
+            @Value("${app.graphql.cost.budget.hr:20000}") int hrBudget,
+            @Value("${app.graphql.cost.budget.admin:20000}") int adminBudget
+    ) {
+        return new QueryCostInstrumentation(new QueryCostInstrumentation.Settings(maxDepth, defaultListSize, maxListSize,
+                coordinates(fieldCosts), coordinates(listSizes),
+                QueryCostInstrumentation.budgets(employeeBudget, managerBudget, hrBudget, adminBudget)), meterRegistry);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer documentProviderCustomizer(CachingDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
+
+    // "Query.employees=500,Team.members=50" -> {Query.employees=500, Team.members=50}
+    static Map<String, Integer> coordinates(String values) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String entry : values.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected Type.field=value but got '" + entry.trim() + "'.");
+            }
+            parsed.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.security.LoadTestIdentityFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+
+/**
+ * Security for offline load tests ({@code --spring.profiles.active=loadtest}), replacing
+ * {@link SecurityConfig}. Callers identify themselves with {@link LoadTestIdentityFilter}'s headers
+ * instead of logging in through Auth0, and get the same authorities a real login would.
+ */
+@Configuration
+@Profile("loadtest")
+@EnableWebSecurity
+@EnableMethodSecurity(prePostEnabled = true)
+public class LoadTestSecurityConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestSecurityConfig.class);
+
+    @Bean
+    public SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http,
+                                                           GrantedAuthoritiesMapper userAuthoritiesMapper) throws Exception {
+        log.warn("Load-test security is active: any caller can act as any employee via the {} header",
+                LoadTestIdentityFilter.USER_HEADER);
+        http.csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(auth -> auth
+                        // Served on the loopback-bound management port only; see SecurityConfig
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                        .anyRequest().authenticated()
+                )
+                .addFilterBefore(new LoadTestIdentityFilter(ApplicationConfig.ROLES_CLAIM, userAuthoritiesMapper),
+                        AnonymousAuthenticationFilter.class);
+
+        return http.build();
+    }
+
+    // Takes the place of the Auth0 registration, whose issuer lookup at startup needs the network
+    @Bean
+    public ClientRegistrationRepository clientRegistrationRepository() {
+        return new InMemoryClientRegistrationRepository(ClientRegistration
+                .withRegistrationId(LoadTestIdentityFilter.REGISTRATION_ID)
+                .clientId(LoadTestIdentityFilter.REGISTRATION_ID)
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("http://localhost/unused")
+                .tokenUri("http://localhost/unused")
+                .build());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.events.RecentIdFilter;
+import com.example.recognitionapi.events.RecognitionEventBus;
+import com.example.recognitionapi.events.TcpEventBus;
+import com.example.recognitionapi.graphql.CachingDocumentProvider;
+import com.example.recognitionapi.service.RecognitionService;
+import com.example.recognitionapi.service.SubscriptionRouter;
+import com.example.recognitionapi.storage.TieredRecognitionStore;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.observation.DefaultExecutionRequestObservationConvention;
+import org.springframework.graphql.observation.ExecutionRequestObservationContext;
+import org.springframework.graphql.observation.ExecutionRequestObservationConvention;
+import org.springframework.util.StringUtils;
+
+// Served at /actuator/prometheus. GraphQL request and field timers come from Spring GraphQL's
+// observations (graphql.request, graphql.datafetcher); this adds the application's own meters.
+@Configuration
+public class MetricsConfig {
+
+    private static final String OPERATION_NAME = "graphql.operation.name";
+
+    // Operation names are chosen by clients, so cap how many distinct ones get their own series
+    private static final int MAX_OPERATION_NAMES = 100;
+
+    @Bean
+    public MeterBinder subscriptionMetrics(SubscriptionRouter router) {
+        return registry -> {
+            Gauge.builder("recognition.subscriptions.active", router, SubscriptionRouter::activeSubscribers)
+                    .description("Open recognitionReceived subscriptions")
+                    .register(registry);
+            Gauge.builder("recognition.subscriptions.lagging", router, SubscriptionRouter::laggingSubscribers)
+                    .description("Subscribers whose buffer is past the lag threshold")
+                    .register(registry);
+            Gauge.builder("recognition.subscriptions.buffered", router, SubscriptionRouter::bufferedEvents)
+                    .description("Events waiting in subscriber buffers")
+                    .register(registry);
+            FunctionCounter.builder("recognition.subscriptions.dropped", router, SubscriptionRouter::droppedEvents)
+                    .description("Events dropped from full subscriber buffers")
+                    .register(registry);
+            FunctionCounter.builder("recognition.subscriptions.disconnected", router, SubscriptionRouter::disconnectedSubscribers)
+                    .register(registry);
+            FunctionCounter.builder("recognition.subscriptions.emit.failures", router, SubscriptionRouter::failedEmissions)
+                    .description("tryEmitNext calls rejected by a channel")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder eventBusMetrics(RecognitionEventBus eventBus, RecentIdFilter recognitionEventFilter) {
+        return registry -> {
+            FunctionCounter.builder("recognition.events.duplicates", recognitionEventFilter, RecentIdFilter::duplicates)
+                    .description("Recognitions delivered to this node more than once and dropped")
+                    .register(registry);
+            if (eventBus instanceof TcpEventBus tcp) {
+                FunctionCounter.builder("recognition.events.frames.sent", tcp, TcpEventBus::framesSent)
+                        .register(registry);
+                FunctionCounter.builder("recognition.events.frames.received", tcp, TcpEventBus::framesReceived)
+                        .register(registry);
+                FunctionCounter.builder("recognition.events.dropped", tcp, TcpEventBus::dropped)
+                        .description("Recognitions not sent to a peer because its send queue was full")
+                        .register(registry);
+                FunctionCounter.builder("recognition.events.send.failures", tcp, TcpEventBus::sendFailures)
+                        .description("Frames a peer missed because it could not be reached")
+                        .register(registry);
+            }
+        };
+    }
+
+    // Hit rate is hits / (hits + misses); a rising evictions rate means cache-size is too small
+    @Bean
+    public MeterBinder documentCacheMetrics(CachingDocumentProvider documents) {
+        return registry -> {
+            FunctionCounter.builder("graphql.documents.cache.hits", documents, CachingDocumentProvider::hits)
+                    .description("Requests served a parsed and validated document from the cache")
+                    .register(registry);
+            FunctionCounter.builder("graphql.documents.cache.misses", documents, CachingDocumentProvider::misses)
+                    .description("Requests that parsed and validated their document")
+                    .register(registry);
+            FunctionCounter.builder("graphql.documents.cache.evictions", documents, CachingDocumentProvider::evictions)
+                    .register(registry);
+            FunctionCounter.builder("graphql.documents.persisted.not.found", documents, CachingDocumentProvider::persistedNotFound)
+                    .description("Hash-only requests for an unknown document")
+                    .register(registry);
+            FunctionCounter.builder("graphql.documents.rejected", documents, CachingDocumentProvider::rejected)
+                    .description("Documents off the allowlist or with a mismatched hash")
+                    .register(registry);
+            Gauge.builder("graphql.documents.cache.size", documents, CachingDocumentProvider::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder feedCacheMetrics(RecognitionService recognitionService) {
+        return registry -> {
+            FunctionCounter.builder("recognition.feed.cache.hits", recognitionService, RecognitionService::feedCacheHits)
+                    .description("Feed reads served from the feed cache")
+                    .register(registry);
+            FunctionCounter.builder("recognition.feed.cache.misses", recognitionService, RecognitionService::feedCacheMisses)
+                    .description("Feed reads computed from the store: first reads and reads after a save to that feed")
+                    .register(registry);
+            Gauge.builder("recognition.feed.cache.size", recognitionService, RecognitionService::feedCacheSize)
+                    .register(registry);
+        };
+    }
+
+    // Block cache hit rate is hits / (hits + misses); cold reads that miss decompress a block from disk
+    @Bean
+    public MeterBinder storageMetrics(TieredRecognitionStore store) {
+        return registry -> {
+            Gauge.builder("recognition.store.hot.size", store, TieredRecognitionStore::hotSize)
+                    .description("Recognitions held in memory")
+                    .register(registry);
+            Gauge.builder("recognition.store.cold.size", store, TieredRecognitionStore::coldSize)
+                    .description("Recognitions held in cold segment files")
+                    .register(registry);
+            Gauge.builder("recognition.store.cold.segments", store, TieredRecognitionStore::coldSegments)
+                    .register(registry);
+            Gauge.builder("recognition.store.cold.bytes", store, TieredRecognitionStore::coldBytes)
+                    .register(registry);
+            FunctionCounter.builder("recognition.store.migrated", store, TieredRecognitionStore::migrated)
+                    .description("Recognitions moved from memory to cold segments")
+                    .register(registry);
+            FunctionCounter.builder("recognition.store.cold.block.cache.hits", store, TieredRecognitionStore::blockCacheHits)
+                    .register(registry);
+            FunctionCounter.builder("recognition.store.cold.block.cache.misses", store, TieredRecognitionStore::blockCacheMisses)
+                    .register(registry);
+        };
+    }
+
+    // Tags graphql.request with the operation name, so each named operation gets its own latency histogram
+    @Bean
+    public ExecutionRequestObservationConvention executionRequestObservationConvention() {
+        return new DefaultExecutionRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ExecutionRequestObservationContext context) {
+                String operationName = context.getExecutionInput().getOperationName();
+                return super.getLowCardinalityKeyValues(context).and(KeyValue.of(OPERATION_NAME,
+                        StringUtils.hasText(operationName) ? operationName : "anonymous"));
+            }
+        };
+    }
+
+    @Bean
+    public MeterFilter operationNameCardinalityLimit() {
+        return MeterFilter.maximumAllowableTags("graphql.request", OPERATION_NAME, MAX_OPERATION_NAMES, MeterFilter.deny());
+    }
+}
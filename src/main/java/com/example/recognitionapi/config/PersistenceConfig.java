@@ -0,0 +1,25 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.persistence.RecognitionLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+// Durable recognition storage; without it recognitions live only in memory and are lost on restart
+@Configuration
+@ConditionalOnProperty(name = "app.persistence.enabled", havingValue = "true")
+public class PersistenceConfig {
+
+    @Bean
+    public RecognitionLog recognitionLog(
+            @Value("${app.persistence.directory:data}") Path directory,
+            @Value("${app.persistence.fsync:true}") boolean fsync,
+            @Value("${app.persistence.max-batch:1024}") int maxBatch,
+            @Value("${app.persistence.queue-capacity:65536}") int queueCapacity
+    ) {
+        return new RecognitionLog(directory, fsync, maxBatch, queueCapacity);
+    }
+}
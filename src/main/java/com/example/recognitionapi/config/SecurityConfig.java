@@ -1,8 +1,10 @@
 package com.example.recognitionapi.config;
 
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -18,7 +20,9 @@ import java.util.List;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
+// OIDC login through Auth0; the loadtest profile swaps in LoadTestSecurityConfig
 @Configuration
+@Profile("!loadtest")
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
@@ -28,6 +32,9 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .cors(withDefaults())
                 .authorizeHttpRequests(auth -> auth
+                        // Probes and the Prometheus scraper cannot log in. Both endpoints are only served on the
+                        // management port (management.server.port/address), never on the application port
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
                         .anyRequest().authenticated()
                 )
                 .oauth2Login(oauth2 -> oauth2
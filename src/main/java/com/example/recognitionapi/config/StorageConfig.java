@@ -0,0 +1,34 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.storage.RecognitionStore;
+import com.example.recognitionapi.storage.TieredRecognitionStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// In-memory recognition storage, and with tiering, compressed segment files for recognitions past the hot window
+@Configuration
+public class StorageConfig {
+
+    @Bean(destroyMethod = "close")
+    public TieredRecognitionStore recognitionStore(
+            @Value("${app.storage.arena-chunk-bytes:4194304}") int arenaChunkBytes,
+            @Value("${app.storage.off-heap:false}") boolean offHeap,
+            @Value("${app.storage.tiering.enabled:false}") boolean tiering,
+            @Value("${app.storage.tiering.directory:data/cold}") Path directory,
+            @Value("${app.storage.tiering.hot-window:P90D}") Duration hotWindow,
+            @Value("${app.storage.tiering.block-cache-blocks:256}") int blockCacheBlocks
+    ) throws IOException {
+        Supplier<RecognitionStore> hot = () -> new RecognitionStore(arenaChunkBytes, offHeap);
+        if (!tiering) {
+            return new TieredRecognitionStore(hot.get());
+        }
+        return TieredRecognitionStore.open(hot, directory, hotWindow, blockCacheBlocks, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.recognitionapi.config;
+
+import com.example.recognitionapi.webhook.WebhookDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Shared delivery pipeline for Slack/Teams notifications; closed with the context
+@Configuration
+public class WebhookConfig {
+
+    @Bean
+    public WebhookDispatcher webhookDispatcher(
+            MeterRegistry meterRegistry,
+            @Value("${app.webhook.queue-capacity:1024}") int queueCapacity,
+            @Value("${app.webhook.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.webhook.max-connections:16}") int maxConnections,
+            @Value("${app.webhook.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${app.webhook.request-timeout:PT5S}") Duration requestTimeout,
+            @Value("${app.webhook.max-retries:3}") int maxRetries,
+            @Value("${app.webhook.min-backoff:PT0.2S}") Duration minBackoff,
+            @Value("${app.webhook.max-backoff:PT5S}") Duration maxBackoff,
+            @Value("${app.webhook.breaker.failure-threshold:5}") int breakerFailureThreshold,
+            @Value("${app.webhook.breaker.open-duration:PT30S}") Duration breakerOpenDuration,
+            @Value("${app.webhook.digest.window:PT0S}") Duration digestWindow,
+            @Value("${app.webhook.digest.max-size:20}") int digestMaxSize
+    ) {
+        return new WebhookDispatcher(new WebhookDispatcher.Settings(queueCapacity, maxConcurrency, maxConnections,
+                connectTimeout, requestTimeout, maxRetries, minBackoff, maxBackoff,
+                breakerFailureThreshold, breakerOpenDuration, digestWindow, digestMaxSize), meterRegistry);
+    }
+}
@@ -1,21 +1,30 @@
 package com.example.recognitionapi.controller;
 
+import com.example.recognitionapi.events.RecognitionEventBus;
 import com.example.recognitionapi.model.*;
+import com.example.recognitionapi.security.CurrentEmployeeInterceptor;
+import com.example.recognitionapi.service.RecognitionBatchService;
 import com.example.recognitionapi.service.RecognitionService;
 import com.example.recognitionapi.service.NotificationService;
+import com.example.recognitionapi.service.SubscriptionRouter;
+import graphql.GraphQLContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
-import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
-import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Controller
 public class MessageController {
@@ -23,18 +32,38 @@ public class MessageController {
     private RecognitionService dataService;
     private NotificationService notificationService;
 
-    // A thread-safe sink to broadcast new recognitions to subscribers
-    private final Sinks.Many<Recognition> recognitionSink = Sinks.many().multicast().onBackpressureBuffer();
+    // Fans new recognitions out to subscribers by visibility instead of filtering every event per subscriber
+    private SubscriptionRouter subscriptionRouter;
 
-    public MessageController(RecognitionService dataService, NotificationService notificationService) {
+    // Carries new recognitions to the subscription routers of every node, this one included
+    private RecognitionEventBus eventBus;
+
+    // Validates, stores, publishes and notifies createRecognitions inputs as whole batches
+    private RecognitionBatchService batchService;
+
+    // createRecognition throughput, by visibility
+    private final Map<Visibility, Counter> recognitionsCreated = new EnumMap<>(Visibility.class);
+
+    public MessageController(RecognitionService dataService, NotificationService notificationService,
+                             SubscriptionRouter subscriptionRouter, RecognitionEventBus eventBus,
+                             RecognitionBatchService batchService, MeterRegistry meterRegistry) {
         this.dataService = dataService;
         this.notificationService = notificationService;
+        this.subscriptionRouter = subscriptionRouter;
+        this.eventBus = eventBus;
+        this.batchService = batchService;
+        for (Visibility visibility : Visibility.values()) {
+            recognitionsCreated.put(visibility, Counter.builder("recognitions.created")
+                    .tag("visibility", visibility.name())
+                    .register(meterRegistry));
+        }
     }
 
-    private Employee getEmployeeFromAuthentication(Authentication authentication) {
-        OidcUser oidcUser = (OidcUser) authentication.getPrincipal();
-        String email = oidcUser.getEmail();
-        return dataService.findByEmail(email);
+    // The caller is normally put in the context once per request (or WebSocket session) by
+    // CurrentEmployeeInterceptor; the fallback caches it so a request still resolves it only once.
+    private Employee getCurrentUser(Authentication authentication, GraphQLContext context) {
+        return context.computeIfAbsent(CurrentEmployeeInterceptor.CURRENT_EMPLOYEE,
+                key -> dataService.findByEmail(CurrentEmployeeInterceptor.emailOf(authentication)));
     }
 
 
@@ -52,27 +81,35 @@ public class MessageController {
     }
 
     @QueryMapping
-    public List<Recognition> recognitions(@Argument String recipientId, Authentication authentication) {
-        Employee currentUser = getEmployeeFromAuthentication(authentication);
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR', 'MANAGER')")
+    public List<LeaderboardEntry> leaderboard(@Argument LeaderboardScope scope, @Argument TimeWindow window,
+                                              @Argument int limit) {
+        return dataService.getLeaderboard(scope, window, limit);
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR', 'MANAGER')")
+    public RecognitionStats recognitionStats(@Argument String teamId, @Argument TimeWindow window) {
+        return dataService.getRecognitionStats(teamId, window);
+    }
+
+    @QueryMapping
+    public List<Recognition> recognitions(@Argument String recipientId, Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
 
         // Adding a safety check. If the user can't be found, return an empty list.
         if (currentUser == null) {
             return java.util.Collections.emptyList();
         }
 
-        // Fetching the initial, unfiltered list of recognitions from the service.
-        List<Recognition> allRecognitions = dataService.getRecognitionsForRecipient(recipientId);
-
-        // Applying the exact same security filter we use for subscriptions.
-        // We stream the list and keep only the items that return 'true' from isVisibleTo.
-        return allRecognitions.stream()
-                .filter(recognition -> isVisibleTo(recognition, currentUser))
-                .toList();
+        // Visibility is resolved by the storage indexes, applying the same rules as isVisibleTo,
+        // so recognitions the user cannot see are never read.
+        return dataService.getRecognitionsForRecipient(recipientId, currentUser);
     }
 
     @QueryMapping
-    public List<Recognition> myRecognitions(Authentication authentication) {
-        Employee currentUser = getEmployeeFromAuthentication(authentication);
+    public List<Recognition> myRecognitions(Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
 
         if (currentUser == null) {
             // This prevents errors and returns no data if the user isn't in our system.
@@ -85,8 +122,8 @@ public class MessageController {
     }
 
     @QueryMapping
-    public List<Recognition> sentRecognitions(Authentication authentication) {
-        Employee currentUser = getEmployeeFromAuthentication(authentication);
+    public List<Recognition> sentRecognitions(Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
 
         if (currentUser == null) {
             return java.util.Collections.emptyList();
@@ -97,6 +134,57 @@ public class MessageController {
         return sentRecognitions;
     }
 
+    @QueryMapping
+    public RecognitionConnection recognitionsConnection(@Argument String recipientId, @Argument int first, @Argument String after,
+                                                        Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
+
+        if (currentUser == null) {
+            return RecognitionConnection.empty();
+        }
+
+        // Visibility is resolved by the storage indexes, so only the requested page is materialized.
+        return dataService.getRecognitionPageForRecipient(recipientId, currentUser, first, after);
+    }
+
+    @QueryMapping
+    public RecognitionConnection myRecognitionsConnection(@Argument int first, @Argument String after,
+                                                          Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
+
+        if (currentUser == null) {
+            return RecognitionConnection.empty();
+        }
+
+        // Every recognition is visible to its recipient, so this is the unfiltered, cacheable page
+        return dataService.getRecognitionPageForRecipient(currentUser.id(), first, after);
+    }
+
+    @QueryMapping
+    public RecognitionConnection sentRecognitionsConnection(@Argument int first, @Argument String after,
+                                                            Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
+
+        if (currentUser == null) {
+            return RecognitionConnection.empty();
+        }
+
+        return dataService.getRecognitionPageForSender(currentUser.id(), first, after);
+    }
+
+
+    @QueryMapping
+    public RecognitionConnection searchRecognitions(@Argument String query, @Argument int first, @Argument String after,
+                                                    Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
+
+        if (currentUser == null) {
+            return RecognitionConnection.empty();
+        }
+
+        return dataService.searchRecognitions(query, first, after, currentUser);
+    }
+
 
     // ========= Mutations =========
 
@@ -107,10 +195,10 @@ public class MessageController {
             @Argument String recipientId,
             @Argument String message,
             @Argument Visibility visibility,
-            @Argument boolean isAnonymous,Authentication authentication
+            @Argument boolean isAnonymous,Authentication authentication, GraphQLContext context
     ) {
 
-        Employee sender = getEmployeeFromAuthentication(authentication);
+        Employee sender = getCurrentUser(authentication, context);
         if (sender == null) {
             throw new IllegalStateException("Authenticated user could not be found in the system.");
         }
@@ -119,6 +207,15 @@ public class MessageController {
             throw new IllegalArgumentException("You cannot send a recognition to yourself. Please select another colleague.");
         }
 
+        if (message.isBlank()) {
+            throw new IllegalArgumentException("A message cannot be empty.");
+        }
+
+        if (message.length() > Recognition.MAX_MESSAGE_LENGTH) {
+            throw new IllegalArgumentException("A message can be at most " + Recognition.MAX_MESSAGE_LENGTH
+                    + " characters long.");
+        }
+
         // The recipient object for the notification message
         Employee recipient = dataService.getEmployeeById(recipientId);
         if (recipient == null) {
@@ -127,9 +224,10 @@ public class MessageController {
 
         Recognition newRecognition = Recognition.create(sender.id(), recipientId, message,  visibility, isAnonymous);
         dataService.saveRecognition(newRecognition);
+        recognitionsCreated.get(visibility).increment();
 
-        // Pushing to the real-time subscription sink
-        recognitionSink.tryEmitNext(newRecognition);
+        // Pushing to the real-time subscribers allowed to see it, on every node
+        eventBus.publish(List.of(newRecognition));
 
         // This is gor trigerring the webhook
         notificationService.sendRecognitionNotification(newRecognition, sender, recipient);
@@ -137,57 +235,102 @@ public class MessageController {
         return newRecognition;
     }
 
+    @PreAuthorize("isAuthenticated()")
+    @MutationMapping
+    public List<Recognition> createRecognitions(@Argument List<RecognitionInput> input,
+                                                Authentication authentication, GraphQLContext context) {
+        Employee sender = getCurrentUser(authentication, context);
+        if (sender == null) {
+            throw new IllegalStateException("Authenticated user could not be found in the system.");
+        }
+
+        List<Recognition> created = batchService.createAll(sender, input);
+        for (Recognition recognition : created) {
+            recognitionsCreated.get(recognition.visibility()).increment();
+        }
+        return created;
+    }
+
 
 
     // ========= Subscriptions =========
 
     @SubscriptionMapping
     @PreAuthorize("isAuthenticated()")
-    public Flux<Recognition> recognitionReceived(Authentication authentication) {
-        Employee currentUser = getEmployeeFromAuthentication(authentication);
+    public Flux<Recognition> recognitionReceived(Authentication authentication, GraphQLContext context) {
+        Employee currentUser = getCurrentUser(authentication, context);
 
         if (currentUser == null) {
             return Flux.empty();
         }
 
-        return recognitionSink.asFlux()
-                .filter(recognition -> isVisibleTo(recognition, currentUser));
+        // The router only delivers what isVisibleTo would allow for this user
+        return subscriptionRouter.subscribe(currentUser);
     }
 
 
-    // ========= Schema Mappings for Nested Fields =========
-    @SchemaMapping(typeName = "Team", field = "members")
-    public List<Employee> getTeamMembers(Team team) {
-        return dataService.getAllEmployees().stream()
-                .filter(employee -> employee.teamId().equals(team.id()))
-                .toList();
+    // ========= Batch Mappings for Nested Fields =========
+    // Each nested field is resolved once per query level through a DataLoader, not once per parent object.
+
+    @BatchMapping(typeName = "Team", field = "members")
+    public Map<Team, List<Employee>> getTeamMembers(List<Team> teams) {
+        Map<String, List<Employee>> membersByTeam = dataService.getEmployeesByTeamIds(
+                teams.stream().map(Team::id).collect(Collectors.toSet()));
+
+        Map<Team, List<Employee>> members = new HashMap<>();
+        for (Team team : teams) {
+            members.put(team, membersByTeam.getOrDefault(team.id(), List.of()));
+        }
+        return members;
     }
 
-    @SchemaMapping(typeName = "Employee", field = "team")
-    public Team getEmployeeTeam(Employee employee) {
-        return dataService.getTeamById(employee.teamId());
+    @BatchMapping(typeName = "Employee", field = "team")
+    public Map<Employee, Team> getEmployeeTeam(List<Employee> employees) {
+        Map<String, Team> teamsById = dataService.getTeamsByIds(
+                employees.stream().map(Employee::teamId).collect(Collectors.toSet()));
+
+        Map<Employee, Team> teams = new HashMap<>();
+        for (Employee employee : employees) {
+            teams.put(employee, teamsById.get(employee.teamId()));
+        }
+        return teams;
     }
 
-    @SchemaMapping(typeName = "Recognition", field = "sender")
-    public Employee getRecognitionSender(Recognition recognition, Authentication authentication) {
-        Employee currentUser = getEmployeeFromAuthentication(authentication);
+    @BatchMapping(typeName = "Recognition", field = "sender")
+    public Map<Recognition, Employee> getRecognitionSender(List<Recognition> recognitions, Authentication authentication,
+                                                           GraphQLContext context) {
+        // The caller is resolved once for the whole batch instead of once per recognition
+        Employee currentUser = getCurrentUser(authentication, context);
         //if the sender is anonymous, then only admin and hr can access the sender details
-        if (currentUser != null && (currentUser.role() == Role.ADMIN || currentUser.role() == Role.HR)) {
-            return dataService.getEmployeeById(recognition.senderId());
-        }
+        boolean canSeeAnonymous = currentUser != null && (currentUser.role() == Role.ADMIN || currentUser.role() == Role.HR);
+
+        Map<String, Employee> employeesById = dataService.getEmployeesByIds(
+                recognitions.stream().map(Recognition::senderId).collect(Collectors.toSet()));
 
-        if (recognition.isAnonymous()) {
-            return null;
+        Map<Recognition, Employee> senders = new HashMap<>();
+        for (Recognition recognition : recognitions) {
+            if (recognition.isAnonymous() && !canSeeAnonymous) {
+                continue;
+            }
+            senders.put(recognition, employeesById.get(recognition.senderId()));
         }
-        return dataService.getEmployeeById(recognition.senderId());
+        return senders;
     }
 
-    @SchemaMapping(typeName = "Recognition", field = "recipient")
-    public Employee getRecognitionRecipient(Recognition recognition) {
-        return dataService.getEmployeeById(recognition.recipientId());
+    @BatchMapping(typeName = "Recognition", field = "recipient")
+    public Map<Recognition, Employee> getRecognitionRecipient(List<Recognition> recognitions) {
+        Map<String, Employee> employeesById = dataService.getEmployeesByIds(
+                recognitions.stream().map(Recognition::recipientId).collect(Collectors.toSet()));
+
+        Map<Recognition, Employee> recipients = new HashMap<>();
+        for (Recognition recognition : recognitions) {
+            recipients.put(recognition, employeesById.get(recognition.recipientId()));
+        }
+        return recipients;
     }
 
-    private boolean isVisibleTo(Recognition recognition, Employee user) {
+    // Package-private for VisibilityFilterBenchmark
+    boolean isVisibleTo(Recognition recognition, Employee user) {
         // Rule 1: Admins and HR can see everything.
         if (user.role() == Role.ADMIN || user.role() == Role.HR) {
             return true;
@@ -0,0 +1,64 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.model.ExportFormat;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.service.RecognitionExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Recognition history export for HR and administrators, e.g.
+ * <pre>GET /admin/recognitions/export?format=csv&amp;from=2025-01-01T00:00:00Z&amp;to=2025-04-01T00:00:00Z&amp;teamId=1</pre>
+ * {@code from} is inclusive and {@code to} exclusive; both are optional, as is {@code teamId}, which keeps
+ * recognitions sent or received by the team's members. The response is written as it is read and,
+ * unless {@code gzip=false}, compressed on the fly into a {@code .gz} attachment.
+ */
+@RestController
+public class RecognitionExportController {
+
+    private final RecognitionExportService exportService;
+
+    public RecognitionExportController(RecognitionExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    // Written on the request thread rather than as an async StreamingResponseBody, so a long export
+    // is not cut off by the async request timeout
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR')")
+    @GetMapping("/admin/recognitions/export")
+    public void exportRecognitions(@RequestParam(defaultValue = "ndjson") String format,
+                                   @RequestParam(required = false) Instant from,
+                                   @RequestParam(required = false) Instant to,
+                                   @RequestParam(required = false) String teamId,
+                                   @RequestParam(defaultValue = "true") boolean gzip,
+                                   HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        Flux<Recognition> recognitions;
+        try {
+            exportFormat = ExportFormat.of(format);
+            recognitions = exportService.stream(from, to, teamId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        String filename = "recognitions." + exportFormat.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+
+        exportService.write(recognitions, exportFormat, gzip, response.getOutputStream());
+    }
+}
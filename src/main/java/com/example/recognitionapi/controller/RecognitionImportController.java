@@ -0,0 +1,37 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.model.ImportReport;
+import com.example.recognitionapi.service.RecognitionBatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Bulk import for administrators. The body is newline-delimited JSON, one recognition per line:
+ * <pre>{"id":"...","senderId":"101","recipientId":"102","message":"...","visibility":"PUBLIC","isAnonymous":false,"createdAt":"2025-01-31T09:00:00Z"}</pre>
+ * {@code id} and {@code createdAt} are optional. The body is streamed, never held in memory whole.
+ * <p>
+ * Only {@code application/x-ndjson} bodies are accepted. CSRF protection is off, so this is what
+ * keeps another site from importing through an admin's session: a browser sends a cross-site
+ * request with that content type only after a CORS preflight, which no origin passes.
+ */
+@RestController
+public class RecognitionImportController {
+
+    private final RecognitionBatchService batchService;
+
+    public RecognitionImportController(RecognitionBatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(path = "/admin/recognitions/import", consumes = "application/x-ndjson")
+    public ImportReport importRecognitions(HttpServletRequest request,
+                                           @RequestParam(defaultValue = "false") boolean notify) throws IOException {
+        return batchService.importNdjson(request.getInputStream(), notify);
+    }
+}
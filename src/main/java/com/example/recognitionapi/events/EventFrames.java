@@ -0,0 +1,177 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Wire format of the TCP event bus. One frame carries a batch:
+ * {@code [int payloadLength][int crc32c(payload)][payload]}, where the payload is the sending
+ * node's id, a varint count and the recognitions. Each recognition is a flags byte, its id
+ * (16 bytes when it is a canonical UUID, else a string), sender, recipient and message as
+ * varint-length-prefixed UTF-8, a visibility byte, and the creation instant as epoch seconds
+ * plus varint nanos.
+ */
+final class EventFrames {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    // Upper bound used to reject garbage lengths from a broken peer
+    static final int MAX_PAYLOAD_BYTES = 16 << 20;
+
+    private static final byte FLAG_ANONYMOUS = 1;
+    private static final byte FLAG_UUID_ID = 2;
+
+    record Batch(long nodeId, List<Recognition> recognitions) {
+    }
+
+    private EventFrames() {
+    }
+
+    static byte[] encode(long nodeId, List<Recognition> recognitions) {
+        Output out = new Output(64 + recognitions.size() * 128);
+        out.position(HEADER_BYTES);
+        out.writeLong(nodeId);
+        out.writeVarInt(recognitions.size());
+        for (Recognition recognition : recognitions) {
+            UUID uuid = canonicalUuid(recognition.id());
+            out.write((recognition.isAnonymous() ? FLAG_ANONYMOUS : 0) | (uuid != null ? FLAG_UUID_ID : 0));
+            if (uuid != null) {
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                out.writeString(recognition.id());
+            }
+            out.writeString(recognition.senderId());
+            out.writeString(recognition.recipientId());
+            out.writeString(recognition.message());
+            out.write(recognition.visibility().ordinal());
+            Instant createdAt = recognition.createdAt();
+            out.writeLong(createdAt.getEpochSecond());
+            out.writeVarInt(createdAt.getNano());
+        }
+
+        byte[] frame = out.toByteArray();
+        int payloadLength = frame.length - HEADER_BYTES;
+        ByteBuffer.wrap(frame)
+                .putInt(payloadLength)
+                .putInt(checksum(frame, HEADER_BYTES, payloadLength));
+        return frame;
+    }
+
+    /**
+     * Decodes a payload whose length and checksum came from a frame header.
+     *
+     * @throws IllegalArgumentException if the checksum does not match or the payload is malformed
+     */
+    static Batch decode(byte[] payload, int crc) {
+        if (checksum(payload, 0, payload.length) != crc) {
+            throw new IllegalArgumentException("Event frame checksum mismatch.");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            long nodeId = buffer.getLong();
+            int count = readVarInt(buffer);
+            List<Recognition> recognitions = new ArrayList<>(Math.min(count, 4096));
+            for (int i = 0; i < count; i++) {
+                byte flags = buffer.get();
+                String id = (flags & FLAG_UUID_ID) != 0
+                        ? new UUID(buffer.getLong(), buffer.getLong()).toString()
+                        : readString(buffer);
+                String senderId = readString(buffer);
+                String recipientId = readString(buffer);
+                String message = readString(buffer);
+                Visibility visibility = Visibility.values()[buffer.get()];
+                Instant createdAt = Instant.ofEpochSecond(buffer.getLong(), readVarInt(buffer));
+                recognitions.add(new Recognition(id, senderId, recipientId, message, visibility,
+                        (flags & FLAG_ANONYMOUS) != 0, createdAt));
+            }
+            return new Batch(nodeId, recognitions);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed event frame.", e);
+        }
+    }
+
+    // Only ids that print back identically are packed, so every id round-trips exactly
+    private static UUID canonicalUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed event frame.");
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed event frame.");
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output(int size) {
+            super(size);
+        }
+
+        void position(int position) {
+            while (count < position) {
+                write(0);
+            }
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
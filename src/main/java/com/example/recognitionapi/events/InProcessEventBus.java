@@ -0,0 +1,33 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Single-node bus: publishing is delivering
+public class InProcessEventBus implements RecognitionEventBus {
+
+    private volatile Consumer<List<Recognition>> delivery;
+
+    @Override
+    public void start(Consumer<List<Recognition>> delivery) {
+        this.delivery = delivery;
+    }
+
+    @Override
+    public void publish(List<Recognition> recognitions) {
+        Consumer<List<Recognition>> current = delivery;
+        if (current == null) {
+            throw new IllegalStateException("Event bus is not started.");
+        }
+        if (!recognitions.isEmpty()) {
+            current.accept(recognitions);
+        }
+    }
+
+    @Override
+    public void close() {
+        delivery = null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Passes each recognition on once: ids delivered recently are dropped. "Recently" is the last
+ * {@code capacity} ids, which only needs to cover how far a redelivery can lag the original.
+ */
+public class RecentIdFilter implements Consumer<List<Recognition>> {
+
+    private final Consumer<List<Recognition>> delivery;
+    private final Map<String, Boolean> recent;
+    private final LongAdder duplicates = new LongAdder();
+
+    public RecentIdFilter(int capacity, Consumer<List<Recognition>> delivery) {
+        this.delivery = delivery;
+        this.recent = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public void accept(List<Recognition> recognitions) {
+        List<Recognition> fresh = new ArrayList<>(recognitions.size());
+        synchronized (recent) {
+            for (Recognition recognition : recognitions) {
+                if (recent.putIfAbsent(recognition.id(), Boolean.TRUE) == null) {
+                    fresh.add(recognition);
+                }
+            }
+        }
+        duplicates.add(recognitions.size() - fresh.size());
+        if (!fresh.isEmpty()) {
+            delivery.accept(fresh);
+        }
+    }
+
+    public long duplicates() {
+        return duplicates.sum();
+    }
+}
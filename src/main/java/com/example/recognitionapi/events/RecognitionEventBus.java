@@ -0,0 +1,30 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries newly created recognitions to every node, so a subscriber connected to one node sees
+ * recognitions created on any of them. Delivery is at most once per node and may repeat an event
+ * across reconnects, so the receiving side deduplicates by id (see {@link RecentIdFilter}).
+ */
+public interface RecognitionEventBus extends Closeable {
+
+    /**
+     * Begins delivering events, from this node and its peers, to {@code delivery}. Called once, before
+     * the first {@link #publish}.
+     */
+    void start(Consumer<List<Recognition>> delivery);
+
+    /**
+     * Delivers {@code recognitions} on this node before returning, and queues them for every peer.
+     * Never blocks on the network.
+     */
+    void publish(List<Recognition> recognitions);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,347 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Event bus over plain TCP between a fixed set of nodes, for example several instances on one
+ * machine over loopback. No broker is involved.
+ * <p>
+ * {@link #publish} delivers locally at once and queues the recognitions for every peer. Each peer
+ * has its own sender thread, which drains everything waiting for it, up to {@code maxBatch}, into
+ * one {@link EventFrames} frame and writes it. Batches therefore grow with load without adding
+ * latency when idle, and a peer that stops reading only fills its own queue and never holds up the
+ * others. Each node accepts connections from its peers and hands every frame it reads to the local
+ * delivery; a frame whose delivery throws is logged and skipped.
+ * <p>
+ * Frames carry the sending node's id, and a node ignores its own. The same peer list, this node
+ * included, can therefore be configured everywhere. A peer that cannot be reached is retried at
+ * most once per {@code retryInterval}, and events sent to it in the meantime are lost. So are events
+ * queued for a peer beyond {@code queueCapacity}. Subscriptions are best effort in the same way:
+ * lagging subscribers already drop events.
+ */
+public class TcpEventBus implements RecognitionEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(TcpEventBus.class);
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final InetSocketAddress bindAddress;
+    private final List<Peer> peers = new ArrayList<>();
+    private final int maxBatch;
+    private final int queueCapacity;
+    private final int connectTimeoutMillis;
+    private final long retryIntervalNanos;
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesReceived = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+
+    private volatile Consumer<List<Recognition>> delivery;
+    private volatile boolean open;
+    private ServerSocket server;
+    private Thread acceptor;
+
+    /**
+     * @param bindAddress where peers connect to this node; port 0 picks a free port (see {@link #port()})
+     * @param peers       every node to send to; this node's own address may be listed
+     */
+    public TcpEventBus(InetSocketAddress bindAddress, List<InetSocketAddress> peers, int maxBatch, int queueCapacity,
+                       Duration connectTimeout, Duration retryInterval) {
+        this.bindAddress = bindAddress;
+        this.maxBatch = maxBatch;
+        this.queueCapacity = queueCapacity;
+        for (InetSocketAddress address : peers) {
+            this.peers.add(new Peer(address));
+        }
+        this.connectTimeoutMillis = (int) connectTimeout.toMillis();
+        this.retryIntervalNanos = retryInterval.toNanos();
+    }
+
+    @Override
+    public synchronized void start(Consumer<List<Recognition>> delivery) {
+        if (open) {
+            throw new IllegalStateException("Event bus is already started.");
+        }
+        this.delivery = delivery;
+        try {
+            server = new ServerSocket();
+            server.setReuseAddress(true);
+            server.bind(bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not listen for event bus peers on " + bindAddress, e);
+        }
+        open = true;
+        acceptor = new Thread(this::acceptLoop, "event-bus-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for (Peer peer : peers) {
+            peer.start();
+        }
+        log.info("Event bus listening address={} peers={} nodeId={}", server.getLocalSocketAddress(), peers.size(),
+                Long.toHexString(nodeId));
+    }
+
+    @Override
+    public void publish(List<Recognition> recognitions) {
+        if (!open) {
+            throw new IllegalStateException("Event bus is not started.");
+        }
+        if (recognitions.isEmpty()) {
+            return;
+        }
+        delivery.accept(recognitions);
+        for (Peer peer : peers) {
+            peer.offer(recognitions);
+        }
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (open) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (open) {
+                    log.warn("Event bus accept failed", e);
+                }
+                continue;
+            }
+            inbound.add(socket);
+            Thread reader = new Thread(() -> readLoop(socket), "event-bus-reader-" + socket.getRemoteSocketAddress());
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (socket; DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream(), READ_BUFFER_BYTES))) {
+            while (open) {
+                int length = in.readInt();
+                int crc = in.readInt();
+                if (length <= 0 || length > EventFrames.MAX_PAYLOAD_BYTES) {
+                    throw new IllegalArgumentException("Event frame length " + length + " is out of range.");
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                EventFrames.Batch batch = EventFrames.decode(payload, crc);
+                if (batch.nodeId() == nodeId) {
+                    continue; // Our own frame, sent because this node is in its peer list
+                }
+                framesReceived.increment();
+                try {
+                    delivery.accept(batch.recognitions());
+                } catch (RuntimeException e) {
+                    log.warn("Event bus delivery failed peer={} recognitions={}", socket.getRemoteSocketAddress(),
+                            batch.recognitions().size(), e);
+                }
+            }
+        } catch (EOFException e) {
+            // Peer closed the connection
+        } catch (IOException | IllegalArgumentException e) {
+            if (open) {
+                log.warn("Dropping event bus connection peer={} reason={}", socket.getRemoteSocketAddress(),
+                        e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        for (Peer peer : peers) {
+            peer.stop();
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            log.warn("Could not close the event bus listener", e);
+        }
+        for (Socket socket : inbound) {
+            closeQuietly(socket);
+        }
+        try {
+            for (Peer peer : peers) {
+                peer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========= Metrics =========
+
+    public long framesSent() {
+        return framesSent.sum();
+    }
+
+    public long framesReceived() {
+        return framesReceived.sum();
+    }
+
+    /** Recognitions not sent to a peer because its send queue was full; counted once per peer. */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /** Frames a peer did not get because it could not be reached. */
+    public long sendFailures() {
+        return sendFailures.sum();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+
+    // An outbound connection, its queue and the thread writing to it; only that thread connects and writes
+    private final class Peer {
+
+        private final InetSocketAddress address;
+        private final BlockingQueue<Recognition> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private Thread writer;
+        private volatile Socket socket;
+        private OutputStream out;
+        private long nextAttemptNanos;
+        private boolean reachable = true;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void start() {
+            writer = new Thread(this::writeLoop, "event-bus-peer-" + address);
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        void offer(List<Recognition> recognitions) {
+            for (Recognition recognition : recognitions) {
+                if (!queue.offer(recognition)) {
+                    dropped.increment();
+                }
+            }
+        }
+
+        // Closing the socket also ends a write blocked on a peer that stopped reading
+        void stop() {
+            writer.interrupt();
+            Socket current = socket;
+            if (current != null) {
+                closeQuietly(current);
+            }
+        }
+
+        void join() throws InterruptedException {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        private void writeLoop() {
+            List<Recognition> batch = new ArrayList<>(maxBatch);
+            try {
+                while (open) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    send(EventFrames.encode(nodeId, batch));
+                    framesSent.increment();
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Closing
+            } finally {
+                disconnect();
+            }
+        }
+
+        private void send(byte[] frame) {
+            if (socket == null && !connect()) {
+                sendFailures.increment();
+                return;
+            }
+            try {
+                out.write(frame);
+                out.flush();
+            } catch (IOException e) {
+                sendFailures.increment();
+                unreachable(e);
+            }
+        }
+
+        private boolean connect() {
+            if (System.nanoTime() - nextAttemptNanos < 0) {
+                return false;
+            }
+            Socket candidate = new Socket();
+            try {
+                candidate.setTcpNoDelay(true);
+                candidate.connect(address, connectTimeoutMillis);
+                socket = candidate;
+                out = candidate.getOutputStream();
+                if (!reachable) {
+                    log.info("Event bus peer reconnected peer={}", address);
+                    reachable = true;
+                }
+                return true;
+            } catch (IOException e) {
+                closeQuietly(candidate);
+                unreachable(e);
+                return false;
+            }
+        }
+
+        private void unreachable(IOException e) {
+            disconnect();
+            nextAttemptNanos = System.nanoTime() + retryIntervalNanos;
+            if (reachable) {
+                log.warn("Event bus peer unreachable peer={} reason={}", address, e.getMessage());
+                reachable = false;
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                closeQuietly(socket);
+                socket = null;
+                out = null;
+            }
+        }
+    }
+}
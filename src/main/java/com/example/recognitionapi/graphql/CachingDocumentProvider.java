@@ -0,0 +1,205 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.ErrorType;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches parsed and validated GraphQL documents by the SHA-256 of their text, so a repeated
+ * query skips graphql-java's parse and validate steps.
+ * <ul>
+ *     <li>Documents seen at runtime go into a bounded LRU cache. Invalid documents are not cached.</li>
+ *     <li>Automatic persisted queries (the Apollo protocol): a request may send only
+ *     {@code extensions.persistedQuery.sha256Hash}. An unknown hash gets a {@value #NOT_FOUND} error,
+ *     and the client retries once with the full text, which registers it.</li>
+ *     <li>Allowlisted documents are pinned and never evicted. In allowlist mode they are the only
+ *     documents that run, whether sent in full or by hash; anything else is rejected unparsed.</li>
+ * </ul>
+ */
+public class CachingDocumentProvider implements PreparsedDocumentProvider {
+
+    public static final String NOT_FOUND = "PersistedQueryNotFound";
+
+    private static final String PERSISTED_QUERY = "persistedQuery";
+    private static final String SHA256_HASH = "sha256Hash";
+
+    private final boolean allowlistOnly;
+    private final Map<String, String> allowlist = new ConcurrentHashMap<>();
+    private final Map<String, PreparsedDocumentEntry> pinned = new ConcurrentHashMap<>();
+    private final Map<String, PreparsedDocumentEntry> recent;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder persistedNotFound = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxEntries    capacity of the LRU cache, not counting allowlisted documents
+     * @param allowlistOnly whether documents outside {@code allowlist} are rejected
+     * @param allowlist     document texts to pin; clients address them by the SHA-256 of the exact text
+     */
+    public CachingDocumentProvider(int maxEntries, boolean allowlistOnly, Collection<String> allowlist) {
+        this.allowlistOnly = allowlistOnly;
+        for (String document : allowlist) {
+            this.allowlist.put(sha256(document), document);
+        }
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparsedDocumentEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+            ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return CompletableFuture.completedFuture(document(executionInput, parseAndValidate));
+    }
+
+    PreparsedDocumentEntry document(ExecutionInput input, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String query = input.getQuery();
+        String persistedHash = persistedHash(input);
+        boolean hashOnly = query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query);
+
+        if (hashOnly) {
+            if (persistedHash == null) {
+                // Nothing to look up; let graphql-java report the missing document
+                return parseAndValidate.apply(input);
+            }
+            PreparsedDocumentEntry entry = lookup(persistedHash, input, parseAndValidate);
+            if (entry == null) {
+                persistedNotFound.increment();
+                return error(NOT_FOUND, "PERSISTED_QUERY_NOT_FOUND");
+            }
+            return entry;
+        }
+
+        String hash = sha256(query);
+        if (persistedHash != null && !persistedHash.equalsIgnoreCase(hash)) {
+            rejected.increment();
+            return error("Provided sha256Hash does not match the query.", "PERSISTED_QUERY_HASH_MISMATCH");
+        }
+        PreparsedDocumentEntry entry = lookup(hash, input, parseAndValidate);
+        if (entry != null) {
+            return entry;
+        }
+        if (allowlistOnly) {
+            rejected.increment();
+            return error("This document is not on the allowlist.", "PERSISTED_QUERY_NOT_ALLOWED");
+        }
+
+        // Parsed outside the lock; two concurrent first requests for a document may both parse it
+        misses.increment();
+        entry = parseAndValidate.apply(input);
+        if (!entry.hasErrors()) {
+            synchronized (recent) {
+                recent.put(hash, entry);
+            }
+        }
+        return entry;
+    }
+
+    private PreparsedDocumentEntry lookup(String hash, ExecutionInput input,
+                                          Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        PreparsedDocumentEntry entry = pinned.get(hash);
+        if (entry == null && !allowlistOnly) {
+            synchronized (recent) {
+                entry = recent.get(hash);
+            }
+        }
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+
+        String document = allowlist.get(hash);
+        if (document == null) {
+            return null;
+        }
+        // First use of an allowlisted document: parse its pinned text, whatever the request carried
+        misses.increment();
+        entry = parseAndValidate.apply(input.transform(builder -> builder.query(document)));
+        if (!entry.hasErrors()) {
+            pinned.put(hash, entry);
+        }
+        return entry;
+    }
+
+    private static String persistedHash(ExecutionInput input) {
+        Map<String, Object> extensions = input.getExtensions();
+        if (extensions != null && extensions.get(PERSISTED_QUERY) instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get(SHA256_HASH) instanceof String hash) {
+            return hash;
+        }
+        return null;
+    }
+
+    private static PreparsedDocumentEntry error(String message, String code) {
+        return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                .message(message)
+                .errorType(ErrorType.ValidationError)
+                .extensions(Map.of("code", code))
+                .build());
+    }
+
+    static String sha256(String document) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(document.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    // ========= Metrics =========
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /** Lookups that had to parse and validate the document. */
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /** Hash-only requests for a document this cache does not hold. */
+    public long persistedNotFound() {
+        return persistedNotFound.sum();
+    }
+
+    /** Documents refused unparsed: not on the allowlist, or sent with a hash that does not match. */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public int size() {
+        synchronized (recent) {
+            return recent.size() + pinned.size();
+        }
+    }
+}
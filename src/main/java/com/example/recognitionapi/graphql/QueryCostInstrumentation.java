@@ -0,0 +1,234 @@
+package com.example.recognitionapi.graphql;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.security.CurrentEmployeeInterceptor;
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.normalized.ExecutableNormalizedOperation;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Rejects queries that are too deep or too expensive before any resolver runs, and reports
+ * the computed cost in the response's {@code extensions.cost}.
+ * <p>
+ * A field costs {@link Settings#fieldCosts()} (default 1 for objects and lists, 0 for scalars),
+ * counted once per expected element of every list field above it. A list's expected length is
+ * the field's {@code first} or {@code limit} argument (or its parent's, for a
+ * connection's {@code edges}), else {@link Settings#listSizes()}, else the default list size,
+ * never more than the maximum. So {@code teams { members { team { members { id } } } } }
+ * costs what it would fan out to, not what it looks like. The budget depends on the caller's role.
+ */
+public class QueryCostInstrumentation implements Instrumentation {
+
+    private static final String COST_EXTENSION = "cost";
+
+    /**
+     * @param fieldCosts base cost by {@code Type.field}
+     * @param listSizes  expected list length by {@code Type.field}, for list fields without a size argument
+     * @param budgets    maximum cost per query by role; callers with no resolvable role get the smallest
+     */
+    public record Settings(int maxDepth, int defaultListSize, int maxListSize,
+                           Map<String, Integer> fieldCosts, Map<String, Integer> listSizes,
+                           Map<Role, Integer> budgets) {
+    }
+
+    private final Settings settings;
+    private final int defaultBudget;
+    private final DistributionSummary costs;
+    private final Map<String, Counter> rejected = new LinkedHashMap<>();
+
+    public QueryCostInstrumentation(Settings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.defaultBudget = settings.budgets().values().stream().mapToInt(Integer::intValue).min().orElse(0);
+        this.costs = DistributionSummary.builder("graphql.query.cost")
+                .description("Computed cost of each executed GraphQL operation")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (String reason : new String[] {"depth", "cost"}) {
+            rejected.put(reason, Counter.builder("graphql.query.rejected").tag("reason", reason).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public CompletableFuture<InstrumentationState> createStateAsync(InstrumentationCreateStateParameters parameters) {
+        return CompletableFuture.completedFuture(new CostState());
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        Analysis analysis = analyze(context);
+        int budget = budgetOf(context.getGraphQLContext().get(CurrentEmployeeInterceptor.CURRENT_EMPLOYEE));
+        if (state instanceof CostState costState) {
+            costState.analysis = analysis;
+            costState.budget = budget;
+        }
+
+        if (analysis.depth > settings.maxDepth()) {
+            rejected.get("depth").increment();
+            throw new AbortExecutionException("Query depth " + analysis.depth
+                    + " exceeds the maximum of " + settings.maxDepth() + ".");
+        }
+        if (analysis.cost > budget) {
+            rejected.get("cost").increment();
+            throw new AbortExecutionException("Query cost " + analysis.cost + " exceeds the budget of " + budget
+                    + ". Request fewer items (first/limit) or fewer nested lists.");
+        }
+        costs.record(analysis.cost);
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        if (!(state instanceof CostState costState) || costState.analysis == null) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+        Map<String, Object> cost = new LinkedHashMap<>();
+        cost.put("requested", costState.analysis.cost);
+        cost.put("budget", costState.budget);
+        cost.put("depth", costState.analysis.depth);
+        cost.put("maxDepth", settings.maxDepth());
+        return CompletableFuture.completedFuture(
+                executionResult.transform(builder -> builder.addExtension(COST_EXTENSION, cost)));
+    }
+
+    Analysis analyze(ExecutionContext context) {
+        // The normalized operation has every fragment spread expanded in place, so a fragment
+        // spread twice is counted twice. It is built once per operation and shared with execution.
+        ExecutableNormalizedOperation operation = context.getNormalizedQueryTree().get();
+        Analysis analysis = new Analysis();
+        for (ExecutableNormalizedField field : operation.getTopLevelFields()) {
+            visit(context.getGraphQLSchema(), field, 1, 1, analysis);
+        }
+        return analysis;
+    }
+
+    // A field counts once per element of every list above it. Introspection (__typename, __schema,
+    // __type and everything below them) is free: it reads the schema, not data, and tooling such
+    // as GraphiQL nests it deeper than any data query.
+    private void visit(GraphQLSchema schema, ExecutableNormalizedField field, long multiplier, int depth,
+                       Analysis analysis) {
+        if (field.getName().startsWith("__")) {
+            return;
+        }
+        // A field selected on several object types has the same output type on each
+        GraphQLFieldDefinition definition = field.getFieldDefinitions(schema).get(0);
+        long cost = saturatedMultiply(fieldCost(field, definition), multiplier);
+        analysis.cost = analysis.cost > Long.MAX_VALUE - cost ? Long.MAX_VALUE : analysis.cost + cost;
+        analysis.depth = Math.max(analysis.depth, depth);
+
+        long childMultiplier = saturatedMultiply(multiplier, listSize(field, definition));
+        for (ExecutableNormalizedField child : field.getChildren()) {
+            visit(schema, child, childMultiplier, depth + 1, analysis);
+        }
+    }
+
+    // Deep nesting of large lists overflows long; anything that large is rejected anyway
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long product = a * b;
+        return high == 0 && product >= 0 ? product : Long.MAX_VALUE;
+    }
+
+    private long fieldCost(ExecutableNormalizedField field, GraphQLFieldDefinition definition) {
+        Integer configured = configured(settings.fieldCosts(), field);
+        if (configured != null) {
+            return configured;
+        }
+        return GraphQLTypeUtil.isLeaf(definition.getType()) ? 0 : 1;
+    }
+
+    private long listSize(ExecutableNormalizedField field, GraphQLFieldDefinition definition) {
+        GraphQLOutputType type = (GraphQLOutputType) GraphQLTypeUtil.unwrapNonNull(definition.getType());
+        if (!(type instanceof GraphQLList)) {
+            return 1;
+        }
+        Integer size = sizeArgument(field.getResolvedArguments());
+        if (size == null && field.getParent() != null) {
+            size = sizeArgument(field.getParent().getResolvedArguments());
+        }
+        if (size == null) {
+            size = configured(settings.listSizes(), field);
+        }
+        if (size == null) {
+            size = settings.defaultListSize();
+        }
+        return Math.max(0, Math.min(size, settings.maxListSize()));
+    }
+
+    // Settings are keyed by Type.field; a field selected on several object types takes the largest
+    private static Integer configured(Map<String, Integer> byCoordinate, ExecutableNormalizedField field) {
+        Integer largest = null;
+        for (String typeName : field.getObjectTypeNames()) {
+            Integer value = byCoordinate.get(typeName + "." + field.getName());
+            if (value != null && (largest == null || value > largest)) {
+                largest = value;
+            }
+        }
+        return largest;
+    }
+
+    private static Integer sizeArgument(Map<String, Object> arguments) {
+        if (arguments.get("first") instanceof Integer first) {
+            return first;
+        }
+        if (arguments.get("limit") instanceof Integer limit) {
+            return limit;
+        }
+        return null;
+    }
+
+    private int budgetOf(Employee caller) {
+        if (caller == null) {
+            return defaultBudget;
+        }
+        return settings.budgets().getOrDefault(caller.role(), defaultBudget);
+    }
+
+    /** Builds the budget map from one value per role. */
+    public static Map<Role, Integer> budgets(int employee, int manager, int hr, int admin) {
+        Map<Role, Integer> budgets = new EnumMap<>(Role.class);
+        budgets.put(Role.EMPLOYEE, employee);
+        budgets.put(Role.MANAGER, manager);
+        budgets.put(Role.HR, hr);
+        budgets.put(Role.ADMIN, admin);
+        return budgets;
+    }
+
+    static final class Analysis {
+
+        long cost;
+        int depth;
+    }
+
+    private static final class CostState implements InstrumentationState {
+
+        private Analysis analysis;
+        private int budget;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs each top-level {@code Query} field on its own virtual thread, so the independent root
+ * resolvers of one request block concurrently instead of one after another.
+ * <p>
+ * Nested fields are left on the calling thread. They are either trivial property reads or
+ * {@code @BatchMapping} loaders, and DataLoader keys must be registered before the loaders are
+ * dispatched. Mutation fields are executed serially by graphql-java anyway. Spring's data
+ * fetcher decorator restores the security context and other thread locals on whichever thread
+ * ends up invoking the controller method.
+ */
+public class VirtualThreadDataFetcherInstrumentation implements Instrumentation, AutoCloseable {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("graphql-field-", 0).factory());
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        DataFetchingEnvironment environment = parameters.getEnvironment();
+        if (parameters.isTrivialDataFetcher()
+                || environment.getParentType() != environment.getGraphQLSchema().getQueryType()) {
+            return dataFetcher;
+        }
+        return env -> CompletableFuture.supplyAsync(() -> fetch(dataFetcher, env), executor)
+                .thenCompose(VirtualThreadDataFetcherInstrumentation::unwrap);
+    }
+
+    private static Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        try {
+            return dataFetcher.get(environment);
+        } catch (Exception e) {
+            // graphql-java unwraps CompletionException and reports the cause for the field
+            throw new CompletionException(e);
+        }
+    }
+
+    // Async controller methods return a future of their own; flatten it rather than nesting futures
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> unwrap(Object result) {
+        if (result instanceof CompletionStage<?> stage) {
+            return (CompletionStage<Object>) stage;
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
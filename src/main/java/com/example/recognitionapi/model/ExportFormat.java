@@ -0,0 +1,33 @@
+package com.example.recognitionapi.model;
+
+import java.util.Locale;
+
+// Formats of the recognition export. Both carry the fields of an NDJSON import line, so an NDJSON export re-imports as is.
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + name + ". Use csv or ndjson.", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.recognitionapi.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} lists the first rejected lines only; {@code rejected} counts all of them.
+ */
+public record ImportReport(
+        long lines,
+        long imported,
+        long duplicates,
+        long rejected,
+        List<String> errors,
+        long elapsedMillis,
+        double recordsPerSecond
+) {
+}
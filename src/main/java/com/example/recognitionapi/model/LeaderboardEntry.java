@@ -0,0 +1,5 @@
+package com.example.recognitionapi.model;
+
+// id is the employee or team id; employee is set for EMPLOYEE leaderboards and team for TEAM ones
+public record LeaderboardEntry(int rank, String id, Employee employee, Team team, long count) {
+}
@@ -0,0 +1,6 @@
+package com.example.recognitionapi.model;
+
+public enum LeaderboardScope {
+    EMPLOYEE,
+    TEAM
+}
@@ -0,0 +1,4 @@
+package com.example.recognitionapi.model;
+
+public record PageInfo(boolean hasNextPage, boolean hasPreviousPage, String startCursor, String endCursor) {
+}
@@ -1,8 +1,11 @@
 package com.example.recognitionapi.model;
 
 import java.time.Instant;
+import java.util.UUID;
 
 
+// createdAt is held as an Instant and only formatted at the edges: the GraphQL String scalar and
+// the export writers render it as ISO-8601.
 public record Recognition(
         String id,
         String senderId,
@@ -10,19 +13,29 @@ public record Recognition(
         String message,
         Visibility visibility,
         boolean isAnonymous,
-        String createdAt
+        Instant createdAt
 ) {
 
+    // Longest message accepted, in chars; far below what one log frame can hold
+    public static final int MAX_MESSAGE_LENGTH = 5_000;
+
+    // From ISO-8601 text, as in imports and fixtures
+    public Recognition(String id, String senderId, String recipientId, String message, Visibility visibility,
+                       boolean isAnonymous, String createdAt) {
+        this(id, senderId, recipientId, message, visibility, isAnonymous, Instant.parse(createdAt));
+    }
+
     public static Recognition create(String senderId, String recipientId, String message,  Visibility visibility, boolean isAnonymous) {
+        UUID id = RecognitionIdGenerator.shared().next();
         return new Recognition(
-                java.util.UUID.randomUUID().toString(),
+                id.toString(),
                 senderId,
                 recipientId,
                 message,
                 visibility,
                 isAnonymous,
-                Instant.now().toString()
+                // The id's own timestamp, in the millisecond precision the store keeps
+                Instant.ofEpochMilli(RecognitionIdGenerator.epochMillis(id.getMostSignificantBits()))
         );
     }
 }
-
@@ -0,0 +1,19 @@
+package com.example.recognitionapi.model;
+
+import java.util.List;
+
+public record RecognitionConnection(List<RecognitionEdge> edges, PageInfo pageInfo) {
+
+    public static RecognitionConnection empty() {
+        return new RecognitionConnection(List.of(), new PageInfo(false, false, null, null));
+    }
+
+    public static RecognitionConnection of(List<RecognitionEdge> edges, boolean hasNextPage, boolean hasPreviousPage) {
+        if (edges.isEmpty()) {
+            return new RecognitionConnection(List.of(), new PageInfo(hasNextPage, hasPreviousPage, null, null));
+        }
+        PageInfo pageInfo = new PageInfo(hasNextPage, hasPreviousPage,
+                edges.get(0).cursor(), edges.get(edges.size() - 1).cursor());
+        return new RecognitionConnection(List.copyOf(edges), pageInfo);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.recognitionapi.model;
+
+public record RecognitionEdge(String cursor, Recognition node) {
+}
@@ -0,0 +1,86 @@
+package com.example.recognitionapi.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered recognition ids in the UUID version 7 layout, so they are stored, sent and
+ * parsed as ordinary UUIDs.
+ * <pre>
+ *   high: epoch millis (48) | version 7 (4) | sequence bits 19..8 (12)
+ *   low:  variant (2) | sequence bits 7..0 (8) | node id (16) | random (38)
+ * </pre>
+ * The millis and sequence come from one counter, so the ids of a generator strictly increase,
+ * in text form too, even if the clock steps back. A call is a single atomic increment. Only the
+ * first call of a new millisecond also moves the counter up to the clock. Unlike
+ * {@link UUID#randomUUID()}, no shared {@code SecureRandom} is involved. The node id keeps
+ * instances apart, and the random bits separate nodes that were configured with the same id.
+ * <p>
+ * The id's millis are the recognition's creation time, so ids sort like the store's
+ * (creation time, id) keys and can stand in for them.
+ */
+public final class RecognitionIdGenerator {
+
+    public static final int MAX_NODE_ID = 0xFFFF;
+
+    private static final int SEQUENCE_BITS = 20;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = (1L << 38) - 1;
+
+    private static volatile RecognitionIdGenerator shared =
+            new RecognitionIdGenerator(ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1), System::currentTimeMillis);
+
+    private final long node;
+    private final LongSupplier clock;
+    // Epoch millis << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    public RecognitionIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ".");
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * The generator behind {@link Recognition#create}; its node id is random until
+     * {@link #useNodeId} is called at startup.
+     */
+    public static RecognitionIdGenerator shared() {
+        return shared;
+    }
+
+    public static void useNodeId(int nodeId) {
+        shared = new RecognitionIdGenerator(nodeId, System::currentTimeMillis);
+    }
+
+    public UUID next() {
+        long now = clock.getAsLong() << SEQUENCE_BITS;
+        long state = last.incrementAndGet();
+        if (state < now) {
+            // First id of a new millisecond; more than one thread may get here, each gets its own value
+            state = last.accumulateAndGet(now, (previous, floor) -> Math.max(previous + 1, floor));
+        }
+        long millis = state >>> SEQUENCE_BITS;
+        long sequence = state & SEQUENCE_MASK;
+        long high = millis << 16 | VERSION_7 | sequence >>> 8;
+        long low = VARIANT | (sequence & 0xFF) << 54 | node << 38
+                | ThreadLocalRandom.current().nextLong() & RANDOM_MASK;
+        return new UUID(high, low);
+    }
+
+    /** Whether {@code id} has the layout above, as opposed to a random or external id. */
+    public static boolean isTimeOrdered(long idHigh, long idLow) {
+        return (idHigh & 0xF000L) == VERSION_7 && idLow >>> 62 == 2;
+    }
+
+    /** Creation time carried in a time-ordered id. */
+    public static long epochMillis(long idHigh) {
+        return idHigh >>> 16;
+    }
+}
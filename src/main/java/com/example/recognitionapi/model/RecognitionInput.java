@@ -0,0 +1,9 @@
+package com.example.recognitionapi.model;
+
+public record RecognitionInput(
+        String recipientId,
+        String message,
+        Visibility visibility,
+        boolean isAnonymous
+) {
+}
@@ -0,0 +1,6 @@
+package com.example.recognitionapi.model;
+
+// Counts for one team, or the whole company when teamId is null, in the current window
+public record RecognitionStats(String teamId, TimeWindow window, String windowStart,
+                               long received, long sent, long publicCount, long privateCount) {
+}
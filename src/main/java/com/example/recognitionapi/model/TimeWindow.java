@@ -0,0 +1,32 @@
+package com.example.recognitionapi.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+// Calendar windows in UTC. Buckets are numbered consecutively, so the previous window is bucket - 1.
+public enum TimeWindow {
+    WEEK,
+    MONTH,
+    QUARTER;
+
+    // 1970-01-01 was a Thursday; ISO weeks start on Monday 1970-01-05 (epoch day 4)
+    private static final long FIRST_MONDAY = 4;
+
+    public long bucketOf(Instant instant) {
+        LocalDate date = LocalDate.ofInstant(instant, ZoneOffset.UTC);
+        return switch (this) {
+            case WEEK -> Math.floorDiv(date.toEpochDay() - FIRST_MONDAY, 7);
+            case MONTH -> date.getYear() * 12L + date.getMonthValue() - 1;
+            case QUARTER -> date.getYear() * 4L + (date.getMonthValue() - 1) / 3;
+        };
+    }
+
+    public LocalDate start(long bucket) {
+        return switch (this) {
+            case WEEK -> LocalDate.ofEpochDay(bucket * 7 + FIRST_MONDAY);
+            case MONTH -> LocalDate.of((int) Math.floorDiv(bucket, 12), (int) Math.floorMod(bucket, 12) + 1, 1);
+            case QUARTER -> LocalDate.of((int) Math.floorDiv(bucket, 4), (int) Math.floorMod(bucket, 4) * 3 + 1, 1);
+        };
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.recognitionapi.persistence;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary framing shared by the log segments and the snapshots.
+ * <p>
+ * A frame is {@code [int payloadLength][int crc32c(payload)][payload]}; the payload holds the
+ * recognition fields as length-prefixed UTF-8 strings, a visibility byte, a flags byte and the
+ * creation instant as epoch seconds plus nanos.
+ */
+final class RecognitionCodec {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    // Upper bound used to detect garbage lengths in a torn or corrupted file, so also enforced on write
+    static final int MAX_PAYLOAD_BYTES = 1 << 20;
+
+    private static final byte FLAG_ANONYMOUS = 1;
+
+    private RecognitionCodec() {
+    }
+
+    // Upper bound (UTF-8 needs at most 3 bytes per UTF-16 char), so strings are encoded only once
+    static int maxFrameSize(Recognition recognition) {
+        return HEADER_BYTES
+                + maxStringSize(recognition.id())
+                + maxStringSize(recognition.senderId())
+                + maxStringSize(recognition.recipientId())
+                + maxStringSize(recognition.message())
+                + 2 // visibility + flags
+                + Long.BYTES + Integer.BYTES;
+    }
+
+    /**
+     * Encodes one frame at the buffer's position.
+     *
+     * @throws IllegalArgumentException if the payload is over {@link #MAX_PAYLOAD_BYTES}, which
+     *                                  {@link #readFrame} would take for a torn frame; the buffer's
+     *                                  position is then left untouched
+     */
+    static void writeFrame(ByteBuffer buffer, Recognition recognition) {
+        int headerPosition = buffer.position();
+        buffer.position(headerPosition + HEADER_BYTES);
+        int payloadStart = buffer.position();
+
+        writeString(buffer, recognition.id());
+        writeString(buffer, recognition.senderId());
+        writeString(buffer, recognition.recipientId());
+        writeString(buffer, recognition.message());
+        buffer.put((byte) recognition.visibility().ordinal());
+        buffer.put(recognition.isAnonymous() ? FLAG_ANONYMOUS : 0);
+        Instant createdAt = recognition.createdAt();
+        buffer.putLong(createdAt.getEpochSecond());
+        buffer.putInt(createdAt.getNano());
+
+        int payloadEnd = buffer.position();
+        if (payloadEnd - payloadStart > MAX_PAYLOAD_BYTES) {
+            buffer.position(headerPosition);
+            throw new IllegalArgumentException("Recognition " + recognition.id() + " encodes to "
+                    + (payloadEnd - payloadStart) + " bytes, over the frame limit of " + MAX_PAYLOAD_BYTES + ".");
+        }
+        buffer.putInt(headerPosition, payloadEnd - payloadStart);
+        buffer.putInt(headerPosition + Integer.BYTES, checksum(buffer, payloadStart, payloadEnd));
+    }
+
+    /**
+     * Reads the frame at the buffer's position. Returns {@code null}, leaving the position
+     * untouched, when the remaining bytes do not hold a complete, intact frame.
+     */
+    static Recognition readFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        int crc = buffer.getInt(start + Integer.BYTES);
+        if (length <= 0 || length > MAX_PAYLOAD_BYTES || buffer.remaining() < HEADER_BYTES + length) {
+            return null;
+        }
+        int payloadStart = start + HEADER_BYTES;
+        if (checksum(buffer, payloadStart, payloadStart + length) != crc) {
+            return null;
+        }
+
+        buffer.position(payloadStart);
+        Recognition recognition = new Recognition(
+                readString(buffer),
+                readString(buffer),
+                readString(buffer),
+                readString(buffer),
+                Visibility.values()[buffer.get()],
+                (buffer.get() & FLAG_ANONYMOUS) != 0,
+                Instant.ofEpochSecond(buffer.getLong(), buffer.getInt())
+        );
+        buffer.position(payloadStart + length);
+        return recognition;
+    }
+
+    /**
+     * Length of the frame at the buffer's position as announced by its header, or -1 if the header is incomplete.
+     */
+    static int peekFrameSize(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return -1;
+        }
+        return HEADER_BYTES + buffer.getInt(buffer.position());
+    }
+
+    private static int maxStringSize(String value) {
+        return Integer.BYTES + value.length() * 3;
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,558 @@
+package com.example.recognitionapi.persistence;
+
+import com.example.recognitionapi.model.Recognition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only, length-prefixed recognition log with periodic compacted snapshots.
+ * <p>
+ * Appends are queued and written by a single writer thread that drains everything waiting in the
+ * queue into one {@link FileChannel} write followed by one {@code force} (group commit), so
+ * concurrent callers share the cost of an fsync.
+ * <p>
+ * Files in the log directory:
+ * <ul>
+ *     <li>{@code log-N.bin}: segment N. A new segment is started on every open and every snapshot.</li>
+ *     <li>{@code snapshot-N.bin}: every recognition appended to segments before N. Written to a
+ *     temporary file and renamed into place, so a snapshot that exists is complete.</li>
+ * </ul>
+ * Recovery memory-maps the newest snapshot, then replays the segments from N on, skipping a torn
+ * frame at the end of a segment left by a crash mid-write.
+ * <p>
+ * Callers must apply a recognition to their in-memory state <em>before</em> appending it, so that a
+ * snapshot taken after a segment is rotated out already contains everything that segment held.
+ */
+public class RecognitionLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RecognitionLog.class);
+
+    private static final int SEGMENT_MAGIC = 0x52_4C_4F_47; // "RLOG"
+    private static final int SNAPSHOT_MAGIC = 0x52_53_4E_50; // "RSNP"
+    private static final int SNAPSHOT_END_MAGIC = 0x52_53_4E_45; // "RSNE"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FILE_HEADER_BYTES = Integer.BYTES * 2;
+    private static final int SNAPSHOT_TRAILER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final long MAP_WINDOW_BYTES = 256L * 1024 * 1024;
+    private static final int INITIAL_BUFFER_BYTES = 1024 * 1024;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("log-(\\d+)\\.bin");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    // Marks a rotation request in the writer queue; appends carry their recognition
+    private record Pending(Recognition recognition, CompletableFuture<Long> done) {
+    }
+
+    private static final Pending SHUTDOWN = new Pending(null, null);
+
+    private final Path directory;
+    private final boolean fsync;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final AtomicLong appendsSinceSnapshot = new AtomicLong();
+    private final Object snapshotLock = new Object();
+
+    private Thread writer;
+    private ScheduledExecutorService snapshotScheduler;
+    private volatile boolean open;
+
+    // Owned by the writer thread once it has started
+    private FileChannel segment;
+    private long segmentNumber;
+    // End of the last acknowledged frame in the segment
+    private long committed;
+    // A failed write could be neither cut off nor left behind for a new segment
+    private boolean damaged;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+
+    public RecognitionLog(Path directory, boolean fsync, int maxBatch, int queueCapacity) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Loads the newest snapshot and the segments written after it into {@code sink}, then opens a
+     * fresh segment for appends. Must be called once, before the first {@link #append}.
+     *
+     * @return the number of frames recovered (a recognition appended twice counts twice)
+     */
+    public synchronized long recover(Consumer<Recognition> sink) throws IOException {
+        if (open) {
+            throw new IllegalStateException("Recognition log is already open.");
+        }
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT_NAME);
+        TreeMap<Long, Path> segments = list(SEGMENT_NAME);
+        long firstSegment = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+
+        long recovered = 0;
+        if (!snapshots.isEmpty()) {
+            recovered += readSnapshot(snapshots.lastEntry().getValue(), sink);
+        }
+        for (Path path : segments.tailMap(firstSegment, true).values()) {
+            recovered += readSegment(path, sink);
+        }
+        deleteObsolete(firstSegment);
+
+        segmentNumber = segments.isEmpty() ? firstSegment : Math.max(firstSegment, segments.lastKey() + 1);
+        segment = openSegment(segmentNumber);
+        committed = FILE_HEADER_BYTES;
+        open = true;
+        writer = new Thread(this::writeLoop, "recognition-log-writer");
+        writer.start();
+
+        log.info("Recovered recognitions count={} directory={} elapsedMs={}", recovered, directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return recovered;
+    }
+
+    /**
+     * Appends a recognition and blocks until it has been written (and forced to disk when fsync is
+     * enabled) as part of the next group commit.
+     */
+    public void append(Recognition recognition) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        enqueue(new Pending(recognition, done));
+        await(done);
+        appendsSinceSnapshot.incrementAndGet();
+    }
+
+    /**
+     * Appends recognitions in order and blocks until all of them are written. They are queued
+     * together, so they share group commits instead of paying one each.
+     */
+    public void appendAll(Collection<Recognition> recognitions) {
+        List<CompletableFuture<Long>> pending = new ArrayList<>(recognitions.size());
+        for (Recognition recognition : recognitions) {
+            CompletableFuture<Long> done = new CompletableFuture<>();
+            enqueue(new Pending(recognition, done));
+            pending.add(done);
+        }
+        for (CompletableFuture<Long> done : pending) {
+            await(done);
+        }
+        appendsSinceSnapshot.addAndGet(recognitions.size());
+    }
+
+    /**
+     * Writes a compacted snapshot of {@code state} and drops the segments it supersedes.
+     * {@code state} must already reflect every recognition appended so far.
+     */
+    public void snapshot(Supplier<? extends Iterable<Recognition>> state) throws IOException {
+        synchronized (snapshotLock) {
+            appendsSinceSnapshot.set(0);
+            CompletableFuture<Long> rotated = new CompletableFuture<>();
+            enqueue(new Pending(null, rotated));
+            long covered = await(rotated);
+
+            long written = writeSnapshot(covered, state.get());
+            deleteObsolete(covered);
+            log.info("Wrote snapshot segment={} recognitions={}", covered, written);
+        }
+    }
+
+    public void scheduleSnapshots(Duration interval, Supplier<? extends Iterable<Recognition>> state) {
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recognition-log-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            if (appendsSinceSnapshot.get() == 0) {
+                return;
+            }
+            try {
+                snapshot(state);
+            } catch (IOException | RuntimeException e) {
+                log.error("Snapshot failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        try {
+            queue.put(SHUTDOWN);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    // ========= Writer thread =========
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<CompletableFuture<Long>> group = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+
+            for (Pending pending : batch) {
+                if (pending == SHUTDOWN) {
+                    commit(group);
+                    failRemaining();
+                    return;
+                }
+                if (pending.recognition() == null) {
+                    commit(group);
+                    rotate(pending.done());
+                } else if (encode(pending.recognition(), group)) {
+                    group.add(pending.done());
+                } else {
+                    pending.done().completeExceptionally(new IllegalArgumentException(
+                            "Recognition " + pending.recognition().id() + " is too large for the recognition log."));
+                }
+            }
+            commit(group);
+            batch.clear();
+        }
+    }
+
+    // False, with nothing written, for a recognition too large for one frame: recovery would drop it and everything after
+    private boolean encode(Recognition recognition, List<CompletableFuture<Long>> group) {
+        int needed = RecognitionCodec.maxFrameSize(recognition);
+        if (buffer.remaining() < needed) {
+            try {
+                drainBuffer();
+            } catch (IOException e) {
+                fail(group, e);
+            }
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocateDirect(Math.max(needed, buffer.capacity() * 2));
+            }
+        }
+        try {
+            RecognitionCodec.writeFrame(buffer, recognition);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void commit(List<CompletableFuture<Long>> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            drainBuffer();
+            if (fsync) {
+                segment.force(false);
+            }
+            committed = segment.position();
+            for (CompletableFuture<Long> done : group) {
+                done.complete(segmentNumber);
+            }
+        } catch (IOException e) {
+            fail(group, e);
+        }
+        group.clear();
+    }
+
+    private void drainBuffer() throws IOException {
+        if (damaged) {
+            roll();
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                segment.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void rotate(CompletableFuture<Long> done) {
+        try {
+            roll();
+            done.complete(segmentNumber);
+        } catch (IOException e) {
+            done.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    private void roll() throws IOException {
+        FileChannel next = openSegment(segmentNumber + 1);
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Failed to close recognition log segment={}", segmentNumber, e);
+        }
+        segment = next;
+        segmentNumber++;
+        committed = FILE_HEADER_BYTES;
+        damaged = false;
+    }
+
+    private void fail(List<CompletableFuture<Long>> group, IOException e) {
+        for (CompletableFuture<Long> done : group) {
+            done.completeExceptionally(new UncheckedIOException("Failed to append to recognition log", e));
+        }
+        group.clear();
+        discardUnacknowledged();
+    }
+
+    /*
+     * A failed write can leave part of a frame in the segment. Recovery stops at it, so frames
+     * appended after it would be acknowledged and then lost: cut the segment back to the last
+     * acknowledged frame, or failing that move on to a new segment, before writing again.
+     */
+    private void discardUnacknowledged() {
+        buffer.clear();
+        try {
+            segment.truncate(committed);
+            segment.position(committed);
+            return;
+        } catch (IOException e) {
+            log.warn("Failed to truncate recognition log segment={} offset={}", segmentNumber, committed, e);
+        }
+        try {
+            roll();
+        } catch (IOException e) {
+            damaged = true;
+            log.error("Failed to start a new recognition log segment after a failed write", e);
+        }
+    }
+
+    private void failRemaining() {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending.done() != null) {
+                pending.done().completeExceptionally(new IllegalStateException("Recognition log is closed."));
+            }
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        if (!open) {
+            throw new IllegalStateException("Recognition log is not open.");
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to the recognition log.", e);
+        }
+    }
+
+    private static long await(CompletableFuture<Long> done) {
+        try {
+            return done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ========= Files =========
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(segmentName(number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putInt(SEGMENT_MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return channel;
+    }
+
+    private long writeSnapshot(long number, Iterable<Recognition> state) throws IOException {
+        Path target = directory.resolve("snapshot-" + number + ".bin");
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        long count = 0;
+        ByteBuffer out = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION);
+            for (Recognition recognition : state) {
+                int needed = RecognitionCodec.maxFrameSize(recognition);
+                if (out.remaining() < needed) {
+                    writeFully(channel, out);
+                    if (out.capacity() < needed) {
+                        out = ByteBuffer.allocateDirect(Math.max(needed, out.capacity() * 2));
+                    }
+                }
+                RecognitionCodec.writeFrame(out, recognition);
+                count++;
+            }
+            if (out.remaining() < SNAPSHOT_TRAILER_BYTES) {
+                writeFully(channel, out);
+            }
+            out.putInt(SNAPSHOT_END_MAGIC).putLong(count);
+            writeFully(channel, out);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    private long readSnapshot(Path path, Consumer<Recognition> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < FILE_HEADER_BYTES + SNAPSHOT_TRAILER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            ByteBuffer edges = ByteBuffer.allocate(SNAPSHOT_TRAILER_BYTES);
+            channel.read(edges, size - SNAPSHOT_TRAILER_BYTES);
+            edges.flip();
+            if (edges.getInt() != SNAPSHOT_END_MAGIC) {
+                throw new IOException("Snapshot " + path + " has no trailer");
+            }
+            long expected = edges.getLong();
+            checkHeader(channel, path, SNAPSHOT_MAGIC);
+
+            long dataEnd = size - SNAPSHOT_TRAILER_BYTES;
+            long end = readFrames(channel, FILE_HEADER_BYTES, dataEnd, sink, expected);
+            if (end != dataEnd) {
+                throw new IOException("Snapshot " + path + " is corrupted at offset " + end);
+            }
+            return expected;
+        }
+    }
+
+    private long readSegment(Path path, Consumer<Recognition> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < FILE_HEADER_BYTES) {
+                // Crashed while creating the segment: nothing was ever appended to it
+                channel.truncate(0);
+                return 0;
+            }
+            checkHeader(channel, path, SEGMENT_MAGIC);
+            long[] count = new long[1];
+            long end = readFrames(channel, FILE_HEADER_BYTES, size, recognition -> {
+                sink.accept(recognition);
+                count[0]++;
+            }, Long.MAX_VALUE);
+            if (end < size) {
+                // Torn write from a crash: drop the partial frame so the segment ends cleanly
+                log.warn("Truncating torn tail path={} offset={}", path, end);
+                channel.truncate(end);
+            }
+            return count[0];
+        }
+    }
+
+    /**
+     * Decodes frames in {@code [from, to)} through memory-mapped windows and returns the offset just
+     * past the last intact frame.
+     */
+    private static long readFrames(FileChannel channel, long from, long to, Consumer<Recognition> sink, long limit)
+            throws IOException {
+        long position = from;
+        long read = 0;
+        while (position < to && read < limit) {
+            long windowBytes = Math.min(MAP_WINDOW_BYTES, to - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowBytes);
+            while (read < limit) {
+                int frameSize = RecognitionCodec.peekFrameSize(window);
+                if (frameSize < 0 || frameSize > window.remaining()) {
+                    break;
+                }
+                Recognition recognition = RecognitionCodec.readFrame(window);
+                if (recognition == null) {
+                    return position + window.position();
+                }
+                sink.accept(recognition);
+                read++;
+            }
+            if (window.position() == 0) {
+                // Not even one frame fits: either the tail is torn or the window ends mid-frame at EOF
+                return position;
+            }
+            position += window.position();
+        }
+        return position;
+    }
+
+    private static void checkHeader(FileChannel channel, Path path, int magic) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != magic || header.getInt() != FORMAT_VERSION) {
+            throw new IOException(path + " is not a recognition log file of version " + FORMAT_VERSION);
+        }
+    }
+
+    private void deleteObsolete(long firstLiveSegment) throws IOException {
+        for (Path path : list(SEGMENT_NAME).headMap(firstLiveSegment, false).values()) {
+            Files.deleteIfExists(path);
+        }
+        for (Path path : list(SNAPSHOT_NAME).headMap(firstLiveSegment, false).values()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private TreeMap<Long, Path> list(Pattern pattern) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (var paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher matcher = pattern.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    private static String segmentName(long number) {
+        return "log-" + number + ".bin";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.recognitionapi.security;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.service.RecognitionService;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves the caller's {@link Employee} once per GraphQL request (HTTP) or once per
+ * WebSocket session, and exposes it to resolvers through the GraphQL context under
+ * {@link #CURRENT_EMPLOYEE}.
+ */
+@Component
+public class CurrentEmployeeInterceptor implements WebSocketGraphQlInterceptor {
+
+    public static final String CURRENT_EMPLOYEE = "currentEmployee";
+
+    private static final String SESSION_ATTRIBUTE = CurrentEmployeeInterceptor.class.getName() + ".employee";
+
+    private final RecognitionService dataService;
+
+    public CurrentEmployeeInterceptor(RecognitionService dataService) {
+        this.dataService = dataService;
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        Mono<Optional<Employee>> employee = (request instanceof WebSocketGraphQlRequest webSocketRequest) ?
+                resolveForSession(webSocketRequest.getSessionInfo()) :
+                Mono.fromSupplier(() -> resolve(SecurityContextHolder.getContext().getAuthentication()));
+
+        return employee.flatMap(current -> {
+            current.ifPresent(e -> request.configureExecutionInput((input, builder) ->
+                    builder.graphQLContext(Map.of(CURRENT_EMPLOYEE, e)).build()));
+            return chain.next(request);
+        });
+    }
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo sessionInfo, Map<String, Object> connectionInitPayload) {
+        // Resolve eagerly so the first subscription on the session doesn't pay for it
+        return resolveForSession(sessionInfo).then(Mono.empty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Optional<Employee>> resolveForSession(WebSocketSessionInfo sessionInfo) {
+        Optional<Employee> cached = (Optional<Employee>) sessionInfo.getAttributes().get(SESSION_ATTRIBUTE);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return sessionInfo.getPrincipal()
+                .map(this::resolve)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(employee -> sessionInfo.getAttributes().put(SESSION_ATTRIBUTE, employee));
+    }
+
+    private Optional<Employee> resolve(Principal principal) {
+        return Optional.ofNullable(dataService.findByEmail(emailOf(principal)));
+    }
+
+    /**
+     * The email claim of an OIDC-authenticated principal, or {@code null} for any other kind of principal.
+     */
+    public static String emailOf(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof OidcUser oidcUser) {
+            return oidcUser.getEmail();
+        }
+        return null;
+    }
+}
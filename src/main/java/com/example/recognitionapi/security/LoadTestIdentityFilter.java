@@ -0,0 +1,86 @@
+package com.example.recognitionapi.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stand-in for the OIDC login in the {@code loadtest} profile. A request names its caller's email in
+ * {@value #USER_HEADER}, and optionally IdP groups in {@value #GROUPS_HEADER} (comma-separated, e.g.
+ * {@code Admin,HR}). The filter builds the OIDC principal a real login would produce and maps its
+ * authorities with the application's {@link GrantedAuthoritiesMapper}, so roles, method security and
+ * {@link CurrentEmployeeInterceptor} behave as they do behind Auth0.
+ * <p>
+ * The caller is trusted blindly. This filter must never be reachable outside a load test.
+ */
+public class LoadTestIdentityFilter extends OncePerRequestFilter {
+
+    public static final String USER_HEADER = "X-Load-Test-User";
+    public static final String GROUPS_HEADER = "X-Load-Test-Groups";
+    public static final String REGISTRATION_ID = "loadtest";
+
+    private final String groupsClaim;
+    private final GrantedAuthoritiesMapper authoritiesMapper;
+
+    public LoadTestIdentityFilter(String groupsClaim, GrantedAuthoritiesMapper authoritiesMapper) {
+        this.groupsClaim = groupsClaim;
+        this.authoritiesMapper = authoritiesMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String email = request.getHeader(USER_HEADER);
+        if (email != null && !email.isBlank()) {
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authenticate(email.trim(), request.getHeader(GROUPS_HEADER)));
+            SecurityContextHolder.setContext(context);
+        }
+        chain.doFilter(request, response);
+    }
+
+    // GraphQL over HTTP completes on an async dispatch, which needs the caller as well
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    OAuth2AuthenticationToken authenticate(String email, String groups) {
+        List<String> groupNames = groups == null ? List.of() : Arrays.stream(groups.split(","))
+                .map(String::trim)
+                .filter(group -> !group.isEmpty())
+                .toList();
+        Instant now = Instant.now();
+        OidcIdToken idToken = OidcIdToken.withTokenValue(REGISTRATION_ID)
+                .subject(email)
+                .claim(StandardClaimNames.EMAIL, email)
+                .claim(groupsClaim, groupNames)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3_600))
+                .build();
+        DefaultOidcUser user = new DefaultOidcUser(List.of(new OidcUserAuthority(idToken)), idToken,
+                StandardClaimNames.EMAIL);
+        return new OAuth2AuthenticationToken(user, authoritiesMapper.mapAuthorities(user.getAuthorities()),
+                REGISTRATION_ID);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Team;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of teams and employees with every lookup the resolvers need prebuilt.
+ * Changes build a new snapshot, which {@link RecognitionService} publishes atomically, so reads
+ * take no locks and return shared immutable lists instead of copying.
+ */
+record Directory(
+        List<Team> teams,
+        List<Employee> employees,
+        Map<String, Team> teamsById,
+        Map<String, Employee> employeesById,
+        // Keyed by normalized (lower-cased) email so sign-in lookups are a single hash probe
+        Map<String, Employee> employeesByEmail,
+        Map<String, List<Employee>> membersByTeam
+) {
+
+    static final Directory EMPTY = new Directory(List.of(), List.of(), Map.of(), Map.of(), Map.of(), Map.of());
+
+    Directory withTeam(Team team) {
+        Map<String, Team> teams = new LinkedHashMap<>();
+        for (Team existing : this.teams) {
+            teams.put(existing.id(), existing);
+        }
+        teams.put(team.id(), team);
+        return new Directory(List.copyOf(teams.values()), employees, Map.copyOf(teams),
+                employeesById, employeesByEmail, membersByTeam);
+    }
+
+    // Replaces any employee with the same id, including in their old team's member list
+    Directory withEmployee(Employee employee) {
+        Map<String, Employee> employees = new LinkedHashMap<>();
+        for (Employee existing : this.employees) {
+            employees.put(existing.id(), existing);
+        }
+        employees.put(employee.id(), employee);
+
+        Map<String, Employee> byEmail = new LinkedHashMap<>();
+        Map<String, List<Employee>> members = new LinkedHashMap<>();
+        for (Employee current : employees.values()) {
+            byEmail.put(normalizeEmail(current.email()), current);
+            members.computeIfAbsent(current.teamId(), teamId -> new ArrayList<>()).add(current);
+        }
+        Map<String, List<Employee>> frozenMembers = new LinkedHashMap<>();
+        members.forEach((teamId, list) -> frozenMembers.put(teamId, List.copyOf(list)));
+
+        return new Directory(teams, List.copyOf(employees.values()), teamsById, Map.copyOf(employees),
+                Map.copyOf(byEmail), Map.copyOf(frozenMembers));
+    }
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
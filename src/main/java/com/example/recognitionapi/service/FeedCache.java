@@ -0,0 +1,95 @@
+package com.example.recognitionapi.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches feed results under a per-feed version. Saving a recognition bumps the versions of the
+ * feeds it appears in (its recipient's, its sender's and the timeline), so only those entries
+ * stop matching; everything else keeps hitting. Entries are evicted least recently used.
+ * <p>
+ * A reader takes the version before computing and stores the result under it. A save bumps
+ * the version only after the recognition is indexed, so a result that raced a save is stored
+ * under the old version and is never served once the save is done.
+ */
+final class FeedCache {
+
+    static final String TIMELINE = "*";
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Key, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    FeedCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param feed  {@link #TIMELINE}, or a key from {@link #received} or {@link #sent}
+     * @param query what is being read from the feed (a page size and cursor, say), part of the cache key
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String feed, Object query, Supplier<T> compute) {
+        long version = versions.getOrDefault(feed, 0L);
+        Key key = new Key(feed, query);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return (T) entry.value;
+        }
+
+        misses.increment();
+        T value = compute.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(version, value));
+        }
+        return value;
+    }
+
+    void invalidate(String recipientId, String senderId) {
+        versions.merge(received(recipientId), 1L, Long::sum);
+        versions.merge(sent(senderId), 1L, Long::sum);
+        versions.merge(TIMELINE, 1L, Long::sum);
+    }
+
+    static String received(String employeeId) {
+        return "to:" + employeeId;
+    }
+
+    static String sent(String employeeId) {
+        return "from:" + employeeId;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Key(String feed, Object query) {
+    }
+
+    private record Entry(long version, Object value) {
+    }
+}
@@ -3,112 +3,123 @@ package com.example.recognitionapi.service;
 import com.example.recognitionapi.model.Employee;
 import com.example.recognitionapi.model.Recognition;
 import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.webhook.WebhookDestination;
+import com.example.recognitionapi.webhook.WebhookDispatcher;
+import com.example.recognitionapi.webhook.WebhookMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class NotificationService {
 
-    private final WebClient webClient = WebClient.create();
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
-    // Reading configuration from application.properties
-    private final boolean isSlackEnabled;
-    private final String slackWebhookUrl;
-    private final boolean isTeamsEnabled;
-    private final String teamsWebhookUrl;
+    private final WebhookDispatcher dispatcher;
+
+    // Enabled destinations, built from application.properties
+    private final List<WebhookDestination> destinations = new ArrayList<>();
 
     public NotificationService(
+            WebhookDispatcher dispatcher,
             @Value("${app.webhook.slack.enabled:false}") boolean isSlackEnabled,
             @Value("${app.webhook.slack.url:}") String slackWebhookUrl,
             @Value("${app.webhook.teams.enabled:false}") boolean isTeamsEnabled,
             @Value("${app.webhook.teams.url:}") String teamsWebhookUrl
     ) {
-        this.isSlackEnabled = isSlackEnabled;
-        this.slackWebhookUrl = slackWebhookUrl;
-        this.isTeamsEnabled = isTeamsEnabled;
-        this.teamsWebhookUrl = teamsWebhookUrl;
+        this.dispatcher = dispatcher;
+        if (isSlackEnabled && hasUrl(slackWebhookUrl)) {
+            destinations.add(new WebhookDestination("Slack", slackWebhookUrl, NotificationService::slackPayload));
+        }
+        if (isTeamsEnabled && hasUrl(teamsWebhookUrl)) {
+            destinations.add(new WebhookDestination("Teams", teamsWebhookUrl, NotificationService::teamsPayload));
+        }
     }
 
 
     public void sendRecognitionNotification(Recognition recognition, Employee sender, Employee recipient) {
         // You can add business logic here. For example, only send notifications for PUBLIC recognitions.
         if (recognition.visibility() != Visibility.PUBLIC) {
-            System.out.println("--- NOTIFICATION: Skipping webhook for PRIVATE recognition " + recognition.id() + " ---");
+            log.debug("Skipping webhook for private recognition id={}", recognition.id());
             return;
         }
 
-        if (isSlackEnabled && slackWebhookUrl != null && !slackWebhookUrl.isEmpty()) {
-            sendSlackNotification(recognition, sender, recipient);
+        String senderName = recognition.isAnonymous() ? "An anonymous colleague" : sender.name();
+        WebhookMessage message = new WebhookMessage(recognition.id(), senderName, recipient.name(), recognition.message());
+        for (WebhookDestination destination : destinations) {
+            // Queued; delivery, retries and digests happen on the dispatcher's pipeline
+            dispatcher.submit(destination, message);
         }
+    }
 
-        if (isTeamsEnabled && teamsWebhookUrl != null && !teamsWebhookUrl.isEmpty()) {
-            sendTeamsNotification(recognition, sender, recipient);
+    /**
+     * Notifies about a batch with a few digest requests per destination instead of one per recognition.
+     */
+    public void sendRecognitionNotifications(List<Recognition> recognitions, Map<String, Employee> employees) {
+        List<WebhookMessage> messages = new ArrayList<>();
+        for (Recognition recognition : recognitions) {
+            if (recognition.visibility() != Visibility.PUBLIC) {
+                continue;
+            }
+            Employee sender = employees.get(recognition.senderId());
+            Employee recipient = employees.get(recognition.recipientId());
+            if (sender == null || recipient == null) {
+                continue;
+            }
+            String senderName = recognition.isAnonymous() ? "An anonymous colleague" : sender.name();
+            messages.add(new WebhookMessage(recognition.id(), senderName, recipient.name(), recognition.message()));
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        for (WebhookDestination destination : destinations) {
+            dispatcher.submitAll(destination, messages);
         }
     }
 
-    private void sendSlackNotification(Recognition recognition, Employee sender, Employee recipient) {
-        String senderName = recognition.isAnonymous() ? "An anonymous colleague" : sender.name();
-        String message = String.format(
-                "*%s* sent a new recognition to *%s*! :tada:\n> %s",
-                senderName,
-                recipient.name(),
-                recognition.message()
-        );
-
-        Map<String, String> payload = Map.of("text", message);
-
-        System.out.println("--- NOTIFICATION: Sending payload to Slack webhook ---");
-        webClient.post()
-                .uri(slackWebhookUrl)
-                .bodyValue(payload)
-                .retrieve()
-                .toBodilessEntity() // We don't care about the response body, just that it was successful
-                .doOnSuccess(response -> System.out.println("--- NOTIFICATION: Slack webhook sent successfully! Status: " + response.getStatusCode() + " ---"))
-                .doOnError(error -> System.err.println("--- NOTIFICATION ERROR: Failed to send Slack webhook: " + error.getMessage() + " ---"))
-                .subscribe(); // .subscribe() makes the call asynchronous (non-blocking)
+    static Object slackPayload(List<WebhookMessage> messages) {
+        String text = messages.stream()
+                .map(message -> String.format(
+                        "*%s* sent a new recognition to *%s*! :tada:\n> %s",
+                        message.senderName(),
+                        message.recipientName(),
+                        message.text()
+                ))
+                .collect(Collectors.joining("\n\n"));
+        return Map.of("text", text);
     }
 
-    private void sendTeamsNotification(Recognition recognition, Employee sender, Employee recipient) {
-        String senderName = recognition.isAnonymous() ? "An anonymous colleague" : sender.name();
-        String title = String.format("New Recognition for %s!", recipient.name());
-        String summary = String.format("%s sent a recognition to %s", senderName, recipient.name());
-
-        Map<String, Object> payload = Map.of(
+    static Object teamsPayload(List<WebhookMessage> messages) {
+        String summary = messages.size() == 1
+                ? String.format("%s sent a recognition to %s", messages.get(0).senderName(), messages.get(0).recipientName())
+                : String.format("%d new recognitions", messages.size());
+
+        List<Map<String, Object>> sections = messages.stream()
+                .map(message -> Map.<String, Object>of(
+                        "activityTitle", String.format("New Recognition for %s!", message.recipientName()),
+                        "activitySubtitle", String.format("From: **%s**", message.senderName()),
+                        "facts", List.of(
+                                Map.of("name", "Recipient:", "value", message.recipientName()),
+                                Map.of("name", "Message:", "value", message.text())
+                        ),
+                        "markdown", true
+                ))
+                .toList();
+
+        return Map.of(
                 "@type", "MessageCard",
                 "@context", "http://schema.org/extensions",
                 "themeColor", "0076D7", // A nice blue color
                 "summary", summary,
-                "sections", List.of(
-                        Map.of(
-                                "activityTitle", title,
-                                "activitySubtitle", String.format("From: **%s**", senderName),
-                                "facts", List.of(
-                                        Map.of("name", "Recipient:", "value", recipient.name()),
-                                        Map.of("name", "Message:", "value", recognition.message())
-                                ),
-                                "markdown", true
-                        )
-                )
+                "sections", sections
         );
-
-        System.out.println("--- NOTIFICATION: Sending payload to Teams webhook ---");
-        sendWebhook(teamsWebhookUrl, payload, "Teams");
-    }
-
-    private void sendWebhook(String url, Object payload, String serviceName) {
-        webClient.post()
-                .uri(url)
-                .bodyValue(payload)
-                .retrieve()
-                .toBodilessEntity()
-                .doOnSuccess(response -> System.out.println("--- NOTIFICATION: " + serviceName + " webhook sent successfully! Status: " + response.getStatusCode() + " ---"))
-                .doOnError(error -> System.err.println("--- NOTIFICATION ERROR: Failed to send " + serviceName + " webhook: " + error.getMessage() + " ---"))
-                .subscribe();
     }
 
     private boolean hasUrl(String url) {
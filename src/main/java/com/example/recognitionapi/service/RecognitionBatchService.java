@@ -0,0 +1,250 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.events.RecognitionEventBus;
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.ImportReport;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionIdGenerator;
+import com.example.recognitionapi.model.RecognitionInput;
+import com.example.recognitionapi.model.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates recognitions in bulk: the {@code createRecognitions} mutation and the admin NDJSON import.
+ * Each batch is validated against one directory lookup, stored in one pass over the indexes and one
+ * queued log append, published on the event bus as one batch, and sent to webhooks as digests.
+ */
+@Service
+public class RecognitionBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecognitionBatchService.class);
+
+    public static final int MAX_MUTATION_BATCH_SIZE = 1_000;
+
+    // Rejected import lines listed in the report; the rest are only counted
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final RecognitionService dataService;
+    private final RecognitionEventBus eventBus;
+    private final NotificationService notificationService;
+    private final int importBatchSize;
+    private final Counter imported;
+
+    public RecognitionBatchService(RecognitionService dataService, RecognitionEventBus eventBus,
+                                   NotificationService notificationService,
+                                   @Value("${app.import.batch-size:1000}") int importBatchSize,
+                                   MeterRegistry meterRegistry) {
+        this.dataService = dataService;
+        this.eventBus = eventBus;
+        this.notificationService = notificationService;
+        this.importBatchSize = importBatchSize;
+        this.imported = Counter.builder("recognitions.imported").register(meterRegistry);
+    }
+
+    /**
+     * Creates every input or none: any invalid input rejects the whole batch, naming each bad index.
+     */
+    public List<Recognition> createAll(Employee sender, List<RecognitionInput> inputs) {
+        if (inputs.size() > MAX_MUTATION_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_MUTATION_BATCH_SIZE
+                    + " recognitions can be created at once, got " + inputs.size() + ".");
+        }
+
+        Set<String> ids = new HashSet<>();
+        ids.add(sender.id());
+        for (RecognitionInput input : inputs) {
+            ids.add(input.recipientId());
+        }
+        Map<String, Employee> employees = dataService.getEmployeesByIds(ids);
+
+        List<String> errors = new ArrayList<>();
+        List<Recognition> recognitions = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            RecognitionInput input = inputs.get(i);
+            String error = validate(sender.id(), input.recipientId(), input.message(), employees);
+            if (error != null) {
+                errors.add("input[" + i + "]: " + error);
+                continue;
+            }
+            recognitions.add(Recognition.create(sender.id(), input.recipientId(), input.message(),
+                    input.visibility(), input.isAnonymous()));
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+
+        List<Recognition> added = dataService.saveRecognitions(recognitions);
+        eventBus.publish(added);
+        notificationService.sendRecognitionNotifications(added, employees);
+        return added;
+    }
+
+    /**
+     * Imports newline-delimited JSON recognitions, reading the stream once in batches of
+     * {@code app.import.batch-size} lines. Invalid lines are skipped and reported; lines whose id is
+     * already stored count as duplicates, so re-running an import is safe.
+     *
+     * @param notify whether imported PUBLIC recognitions are also sent to the webhooks
+     */
+    public ImportReport importNdjson(InputStream ndjson, boolean notify) throws IOException {
+        long started = System.nanoTime();
+        Tally tally = new Tally();
+        List<ImportLine> batch = new ArrayList<>(importBatchSize);
+        List<Long> lineNumbers = new ArrayList<>(importBatchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tally.lines++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(JSON.readValue(line, ImportLine.class));
+                    lineNumbers.add(tally.lines);
+                } catch (JsonProcessingException e) {
+                    tally.reject(tally.lines, "not a valid recognition record");
+                }
+                if (batch.size() == importBatchSize) {
+                    importBatch(batch, lineNumbers, notify, tally);
+                    batch.clear();
+                    lineNumbers.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, lineNumbers, notify, tally);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double recordsPerSecond = elapsedNanos == 0 ? 0 : tally.imported * 1e9 / elapsedNanos;
+        log.info("Imported recognitions lines={} imported={} duplicates={} rejected={} elapsedMs={} recordsPerSecond={}",
+                tally.lines, tally.imported, tally.duplicates, tally.rejected,
+                elapsedNanos / 1_000_000, Math.round(recordsPerSecond));
+        return new ImportReport(tally.lines, tally.imported, tally.duplicates, tally.rejected,
+                List.copyOf(tally.errors), elapsedNanos / 1_000_000, recordsPerSecond);
+    }
+
+    private void importBatch(List<ImportLine> batch, List<Long> lineNumbers, boolean notify, Tally tally) {
+        Set<String> ids = new HashSet<>();
+        for (ImportLine line : batch) {
+            if (line.senderId() != null) {
+                ids.add(line.senderId());
+            }
+            if (line.recipientId() != null) {
+                ids.add(line.recipientId());
+            }
+        }
+        Map<String, Employee> employees = dataService.getEmployeesByIds(ids);
+
+        List<Recognition> recognitions = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            ImportLine line = batch.get(i);
+            String error = line.senderId() == null || !employees.containsKey(line.senderId())
+                    ? "sender " + line.senderId() + " not found"
+                    : validate(line.senderId(), line.recipientId(), line.message(), employees);
+            Instant createdAt = null;
+            if (error == null) {
+                try {
+                    createdAt = line.createdAt() == null ? Instant.now() : Instant.parse(line.createdAt());
+                } catch (DateTimeParseException e) {
+                    error = "createdAt is not an ISO-8601 instant";
+                }
+            }
+            if (error != null) {
+                tally.reject(lineNumbers.get(i), error);
+                continue;
+            }
+            recognitions.add(new Recognition(
+                    line.id() == null ? RecognitionIdGenerator.shared().next().toString() : line.id(),
+                    line.senderId(),
+                    line.recipientId(),
+                    line.message(),
+                    line.visibility() == null ? Visibility.PUBLIC : line.visibility(),
+                    Boolean.TRUE.equals(line.isAnonymous()),
+                    // Stored as epoch millis, so keep only millisecond precision
+                    createdAt.truncatedTo(ChronoUnit.MILLIS)));
+        }
+
+        List<Recognition> added = dataService.saveRecognitions(recognitions);
+        tally.imported += added.size();
+        tally.duplicates += recognitions.size() - added.size();
+        imported.increment(added.size());
+
+        eventBus.publish(added);
+        if (notify) {
+            notificationService.sendRecognitionNotifications(added, employees);
+        }
+    }
+
+    // createRecognition's rules
+    private static String validate(String senderId, String recipientId, String message,
+                                   Map<String, Employee> employees) {
+        if (recipientId == null || !employees.containsKey(recipientId)) {
+            return "recipient " + recipientId + " not found";
+        }
+        if (senderId.equals(recipientId)) {
+            return "sender and recipient are the same employee";
+        }
+        if (message == null || message.isBlank()) {
+            return "message is empty";
+        }
+        if (message.length() > Recognition.MAX_MESSAGE_LENGTH) {
+            return "message is longer than " + Recognition.MAX_MESSAGE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    record ImportLine(
+            String id,
+            String senderId,
+            String recipientId,
+            String message,
+            Visibility visibility,
+            @JsonProperty("isAnonymous") Boolean isAnonymous,
+            String createdAt
+    ) {
+    }
+
+    private static final class Tally {
+
+        private long lines;
+        private long imported;
+        private long duplicates;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        void reject(long lineNumber, String error) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + error);
+            }
+        }
+    }
+}
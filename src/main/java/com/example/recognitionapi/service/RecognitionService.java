@@ -1,71 +1,331 @@
 package com.example.recognitionapi.service;
 
 
+import com.example.recognitionapi.analytics.Ranked;
+import com.example.recognitionapi.analytics.RecognitionRollups;
 import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.LeaderboardEntry;
+import com.example.recognitionapi.model.LeaderboardScope;
 import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionStats;
 import com.example.recognitionapi.model.Role;
 import com.example.recognitionapi.model.Team;
+import com.example.recognitionapi.model.TimeWindow;
+import com.example.recognitionapi.persistence.RecognitionLog;
+import com.example.recognitionapi.storage.Feed;
+import com.example.recognitionapi.storage.RecognitionStore;
+import com.example.recognitionapi.storage.TieredRecognitionStore;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 public class RecognitionService {
 
-    private final Map<String, Team> teamData = new ConcurrentHashMap<>();
-    private final Map<String, Employee> employeeData = new ConcurrentHashMap<>();
-    private final Map<String, Recognition> recognitionData = new ConcurrentHashMap<>();
+    public static final int MAX_PAGE_SIZE = 100;
 
+    // Weeks, months and quarters of analytics kept: a quarter of weeks, a year of months
+    private static final int RETAINED_BUCKETS = 13;
+
+    // Feeds larger than this are read straight from the store rather than held in the feed cache
+    static final int MAX_CACHED_FEED = 1_000;
+
+    private static final int DEFAULT_FEED_CACHE_ENTRIES = 10_000;
+    private static final String WHOLE_FEED = "all";
+
+    // Replaced wholesale on every directory change; readers never lock or copy
+    private final AtomicReference<Directory> directory = new AtomicReference<>(Directory.EMPTY);
+
+    // Compact primitive-encoded rows, indexed by timeline, recipient and sender in createdAt order; with
+    // app.storage.tiering.enabled=true only the hot window, older recognitions are in compressed segment files
+    private final TieredRecognitionStore recognitionData;
+
+    // Only present when app.persistence.enabled=true; otherwise recognitions live in memory only
+    private final RecognitionLog recognitionLog;
+    private final Duration snapshotInterval;
+    private final Duration migrateInterval;
+
+    // Leaderboard and stats counters, updated on every save so reads never scan the store
+    private final RecognitionRollups rollups = new RecognitionRollups(Clock.systemUTC(), RETAINED_BUCKETS);
+
+    // Unfiltered feed reads, invalidated per recipient and sender as recognitions are saved
+    private final FeedCache feedCache;
+
+    public RecognitionService() {
+        this(new RecognitionStore(), null, Duration.ZERO, DEFAULT_FEED_CACHE_ENTRIES);
+    }
+
+    @Autowired
+    public RecognitionService(TieredRecognitionStore recognitionData,
+                              ObjectProvider<RecognitionLog> recognitionLog,
+                              @Value("${app.persistence.snapshot-interval:PT10M}") Duration snapshotInterval,
+                              @Value("${app.storage.tiering.migrate-interval:P7D}") Duration migrateInterval,
+                              @Value("${app.cache.feeds.max-entries:10000}") int feedCacheEntries) {
+        this(recognitionData, recognitionLog.getIfAvailable(), snapshotInterval, migrateInterval, feedCacheEntries);
+    }
+
+    RecognitionService(RecognitionStore recognitionData, RecognitionLog recognitionLog, Duration snapshotInterval,
+                       int feedCacheEntries) {
+        this(new TieredRecognitionStore(recognitionData), recognitionLog, snapshotInterval, Duration.ZERO,
+                feedCacheEntries);
+    }
+
+    RecognitionService(TieredRecognitionStore recognitionData, RecognitionLog recognitionLog,
+                       Duration snapshotInterval, Duration migrateInterval, int feedCacheEntries) {
+        this.recognitionData = recognitionData;
+        this.recognitionLog = recognitionLog;
+        this.snapshotInterval = snapshotInterval;
+        this.migrateInterval = migrateInterval;
+        this.feedCache = new FeedCache(feedCacheEntries);
+    }
+
+    // Directory reads return the current snapshot's immutable lists as they are
     public List<Team> getAllTeams() {
-        return List.copyOf(teamData.values());
+        return directory.get().teams();
     }
 
     public List<Employee> getAllEmployees() {
-        return List.copyOf(employeeData.values());
+        return directory.get().employees();
     }
 
     public Employee getEmployeeById(String id) {
-        return employeeData.get(id);
+        return directory.get().employeesById().get(id);
     }
 
     public Team getTeamById(String id) {
-        return teamData.get(id);
+        return directory.get().teamsById().get(id);
+    }
+
+    // Batch lookups used by the DataLoader-backed resolvers: one call per query level instead of one per object
+    public Map<String, Employee> getEmployeesByIds(Collection<String> ids) {
+        Map<String, Employee> employeesById = directory.get().employeesById();
+        Map<String, Employee> employees = new HashMap<>();
+        for (String id : ids) {
+            Employee employee = employeesById.get(id);
+            if (employee != null) {
+                employees.put(id, employee);
+            }
+        }
+        return employees;
+    }
+
+    public Map<String, Team> getTeamsByIds(Collection<String> ids) {
+        Map<String, Team> teamsById = directory.get().teamsById();
+        Map<String, Team> teams = new HashMap<>();
+        for (String id : ids) {
+            Team team = teamsById.get(id);
+            if (team != null) {
+                teams.put(id, team);
+            }
+        }
+        return teams;
+    }
+
+    public Map<String, List<Employee>> getEmployeesByTeamIds(Collection<String> teamIds) {
+        Map<String, List<Employee>> membersByTeam = directory.get().membersByTeam();
+        Map<String, List<Employee>> members = new HashMap<>();
+        for (String teamId : teamIds) {
+            members.put(teamId, membersByTeam.getOrDefault(teamId, List.of()));
+        }
+        return members;
     }
 
+    // Feeds are returned newest first, as shared unmodifiable lists
     public List<Recognition> getRecognitionsForRecipient(String recipientId) {
         if (recipientId == null) {
-            return List.copyOf(recognitionData.values());
+            return wholeFeed(FeedCache.TIMELINE, recognitionData::timeline);
         }
-        return recognitionData.values().stream()
-                .filter(r -> r.recipientId().equals(recipientId))
-                .collect(Collectors.toList());
+        return wholeFeed(FeedCache.received(recipientId), () -> recognitionData.receivedBy(recipientId));
     }
 
     public List<Recognition> getRecognitionsForSender(String senderId) {
         if (senderId == null) {
-            return List.copyOf(recognitionData.values());
+            return wholeFeed(FeedCache.TIMELINE, recognitionData::timeline);
         }
-        return recognitionData.values().stream()
-                .filter(r -> r.senderId().equals(senderId))
-                .collect(Collectors.toList());
+        return wholeFeed(FeedCache.sent(senderId), () -> recognitionData.sentBy(senderId));
     }
 
+    /**
+     * Recognitions received by {@code recipientId} (every recipient if null) that {@code viewer} may see,
+     * newest first. HR and admins see everything, and recipients see all they received; both read the
+     * cached unfiltered feeds. Anyone else reads the public timeline merged with their own private
+     * recognitions, so the cost follows what they can see rather than everything stored.
+     */
+    public List<Recognition> getRecognitionsForRecipient(String recipientId, Employee viewer) {
+        if (seesPrivate(viewer) || viewer.id().equals(recipientId)) {
+            return getRecognitionsForRecipient(recipientId);
+        }
+        return Collections.unmodifiableList(visibleFeed(recipientId, viewer).newestFirst());
+    }
+
+    private List<Recognition> wholeFeed(String key, Supplier<Feed> feed) {
+        Feed current = feed.get();
+        if (current.size() > MAX_CACHED_FEED) {
+            return Collections.unmodifiableList(current.newestFirst());
+        }
+        // Resolved again after the cache reads its version, so a migration in between cannot cache a stale feed
+        return feedCache.get(key, WHOLE_FEED, () -> Collections.unmodifiableList(feed.get().newestFirst()));
+    }
+
+    // Pages walk the ordered indexes newest first, seeking straight to the cursor, so a page costs
+    // O(page size) for unfiltered feeds however long the feed is.
+    public RecognitionConnection getRecognitionPageForRecipient(String recipientId, int first, String after,
+                                                                Predicate<Recognition> filter) {
+        Feed feed = recipientId == null ? recognitionData.timeline() : recognitionData.receivedBy(recipientId);
+        return feed.page(pageSize(first), after, filter);
+    }
+
+    /**
+     * Recognitions created in {@code [from, to)}, oldest first, read lazily from the store. Either bound
+     * may be null. With a {@code teamId}, only recognitions sent or received by the team's current
+     * members are included.
+     */
+    public Iterable<Recognition> getRecognitionsBetween(Instant from, Instant to, String teamId) {
+        List<String> participants = null;
+        if (teamId != null) {
+            participants = directory.get().membersByTeam().getOrDefault(teamId, List.of()).stream()
+                    .map(Employee::id)
+                    .toList();
+        }
+        return recognitionData.between(from == null ? Long.MIN_VALUE : from.toEpochMilli(),
+                to == null ? Long.MAX_VALUE : to.toEpochMilli(), participants);
+    }
+
+    // Unfiltered pages are the same for every caller, so they are served from the feed cache
+    public RecognitionConnection getRecognitionPageForRecipient(String recipientId, int first, String after) {
+        int pageSize = pageSize(first);
+        if (recipientId == null) {
+            return feedCache.get(FeedCache.TIMELINE, new PageQuery(pageSize, after),
+                    () -> recognitionData.timeline().page(pageSize, after, recognition -> true));
+        }
+        return feedCache.get(FeedCache.received(recipientId), new PageQuery(pageSize, after),
+                () -> recognitionData.receivedBy(recipientId).page(pageSize, after, recognition -> true));
+    }
+
+    public RecognitionConnection getRecognitionPageForRecipient(String recipientId, Employee viewer, int first,
+                                                                String after) {
+        if (seesPrivate(viewer) || viewer.id().equals(recipientId)) {
+            return getRecognitionPageForRecipient(recipientId, first, after);
+        }
+        return visibleFeed(recipientId, viewer).page(pageSize(first), after, recognition -> true);
+    }
+
+    private Feed visibleFeed(String recipientId, Employee viewer) {
+        if (recipientId == null) {
+            return recognitionData.timelineVisibleTo(viewer.id(), false);
+        }
+        return recognitionData.receivedByVisibleTo(recipientId, viewer.id(), false);
+    }
+
+    public RecognitionConnection getRecognitionPageForSender(String senderId, int first, String after) {
+        int pageSize = pageSize(first);
+        if (senderId == null) {
+            return feedCache.get(FeedCache.TIMELINE, new PageQuery(pageSize, after),
+                    () -> recognitionData.timeline().page(pageSize, after, recognition -> true));
+        }
+        return feedCache.get(FeedCache.sent(senderId), new PageQuery(pageSize, after),
+                () -> recognitionData.sentBy(senderId).page(pageSize, after, recognition -> true));
+    }
+
+    // Same rules as MessageController.isVisibleTo, applied while the posting lists are intersected
+    public RecognitionConnection searchRecognitions(String query, int first, String after, Employee viewer) {
+        return recognitionData.search(query, pageSize(first), after, viewer.id(), seesPrivate(viewer));
+    }
+
+    // HR and admins see PRIVATE recognitions they are not party to
+    private static boolean seesPrivate(Employee viewer) {
+        return viewer.role() == Role.ADMIN || viewer.role() == Role.HR;
+    }
+
+    // Saving an id that is already stored is a no-op
     public Recognition saveRecognition(Recognition recognition) {
-        recognitionData.put(recognition.id(), recognition);
+        boolean added = recognitionData.add(recognition);
+        // Appended after it is indexed, as RecognitionLog snapshots rely on; blocks only until the next group commit
+        if (added) {
+            feedCache.invalidate(recognition.recipientId(), recognition.senderId());
+            recordRollups(recognition);
+            if (recognitionLog != null) {
+                recognitionLog.append(recognition);
+            }
+        }
         return recognition;
     }
 
+    /**
+     * Saves a batch: one pass over the indexes in creation order, then one queued log append.
+     *
+     * @return the recognitions actually added, in creation order; ids already stored are skipped
+     */
+    public List<Recognition> saveRecognitions(Collection<Recognition> recognitions) {
+        List<Recognition> added = recognitionData.addAll(recognitions);
+        for (Recognition recognition : added) {
+            feedCache.invalidate(recognition.recipientId(), recognition.senderId());
+            recordRollups(recognition);
+        }
+        if (recognitionLog != null && !added.isEmpty()) {
+            recognitionLog.appendAll(added);
+        }
+        return added;
+    }
+
+    // Reads are O(limit): the rollups keep a running top-K per window
+    public List<LeaderboardEntry> getLeaderboard(LeaderboardScope scope, TimeWindow window, int limit) {
+        List<Ranked> ranked = rollups.leaderboard(scope, window, limit);
+        List<LeaderboardEntry> entries = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            Ranked entry = ranked.get(i);
+            entries.add(scope == LeaderboardScope.EMPLOYEE
+                    ? new LeaderboardEntry(i + 1, entry.key(), getEmployeeById(entry.key()), null, entry.count())
+                    : new LeaderboardEntry(i + 1, entry.key(), null, getTeamById(entry.key()), entry.count()));
+        }
+        return entries;
+    }
+
+    public RecognitionStats getRecognitionStats(String teamId, TimeWindow window) {
+        return rollups.stats(teamId, window);
+    }
+
+    private void recordRollups(Recognition recognition) {
+        rollups.record(recognition, teamOf(recognition.senderId()), teamOf(recognition.recipientId()));
+    }
+
+    private String teamOf(String employeeId) {
+        Employee employee = getEmployeeById(employeeId);
+        return employee == null ? null : employee.teamId();
+    }
+
+    private static int pageSize(int first) {
+        if (first < 0) {
+            throw new IllegalArgumentException("first must not be negative.");
+        }
+        return Math.min(first, MAX_PAGE_SIZE);
+    }
+
     // This method populates our in-memory data store on startup
     @PostConstruct
     private void init() {
         Team engineering = new Team("1", "Engineering", List.of());
         Team product = new Team("2", "Product", List.of());
-        teamData.put(engineering.id(), engineering);
-        teamData.put(product.id(), product);
+        saveTeam(engineering);
+        saveTeam(product);
 
         Employee alice = new Employee("101", "Alice", "alice@corp.com", engineering.id(), Role.ADMIN);
         Employee bob = new Employee("102", "Bob", "bob@corp.com", engineering.id(), Role.EMPLOYEE);
@@ -73,19 +333,75 @@ public class RecognitionService {
         Employee diana = new Employee("104", "Diana", "diana@corp.com", product.id(), Role.EMPLOYEE);
         Employee eve = new Employee("105", "Eve", "eve@corp.com", "3", Role.HR); // No team
 
-        employeeData.put(alice.id(), alice);
-        employeeData.put(bob.id(), bob);
-        employeeData.put(charlie.id(), charlie);
-        employeeData.put(diana.id(), diana);
-        employeeData.put(eve.id(), eve);
+        saveEmployee(alice);
+        saveEmployee(bob);
+        saveEmployee(charlie);
+        saveEmployee(diana);
+        saveEmployee(eve);
+
+        if (recognitionLog != null) {
+            recoverRecognitions();
+        }
+        recordColdRollups();
+        if (!migrateInterval.isZero()) {
+            recognitionData.scheduleMigrations(migrateInterval);
+        }
+    }
+
+    private void recoverRecognitions() {
+        try {
+            recognitionLog.recover(recognition -> {
+                if (recognitionData.add(recognition)) {
+                    recordRollups(recognition);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover recognitions from the log", e);
+        }
+        if (!snapshotInterval.isZero()) {
+            // Segments hold the cold tier durably, so snapshots cover the hot window only
+            recognitionLog.scheduleSnapshots(snapshotInterval, recognitionData::hot);
+        }
+    }
+
+    // The log no longer replays recognitions that moved to the cold tier, so they are counted from there
+    private void recordColdRollups() {
+        for (Recognition recognition : recognitionData.coldBetween(rollups.retainedSince().toEpochMilli(),
+                Long.MAX_VALUE)) {
+            recordRollups(recognition);
+        }
+    }
+
+    // The directory changes rarely and is read on every request, so each change rebuilds the snapshot
+    private void saveTeam(Team team) {
+        directory.updateAndGet(current -> current.withTeam(team));
+    }
+
+    private void saveEmployee(Employee employee) {
+        directory.updateAndGet(current -> current.withEmployee(employee));
     }
 
     public Employee findByEmail(String email) {
-        // Search through all employees to find one with a matching email (case-insensitive)
-        return employeeData.values().stream()
-                .filter(employee -> employee.email().equalsIgnoreCase(email))
-                .findFirst()
-                .orElse(null); // Return null if not found
+        if (email == null) {
+            return null;
+        }
+        return directory.get().employeesByEmail().get(Directory.normalizeEmail(email)); // Returns null if not found
+    }
+
+    // ========= Metrics =========
+
+    public long feedCacheHits() {
+        return feedCache.hits();
     }
-}
 
+    public long feedCacheMisses() {
+        return feedCache.misses();
+    }
+
+    public int feedCacheSize() {
+        return feedCache.size();
+    }
+
+    private record PageQuery(int pageSize, String after) {
+    }
+}
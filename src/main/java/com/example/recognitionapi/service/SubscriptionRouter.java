@@ -0,0 +1,252 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.model.Visibility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes new recognitions to {@code recognitionReceived} subscribers without evaluating every
+ * event for every subscriber:
+ * <ul>
+ *     <li>PUBLIC recognitions go to the broadcast channel, which EMPLOYEE and MANAGER subscribers share.</li>
+ *     <li>PRIVATE recognitions go only to the sender's and the recipient's participant channels.</li>
+ *     <li>Every recognition goes to the privileged channel, which HR and ADMIN subscribers use instead.</li>
+ * </ul>
+ * Channels hand events to subscribers without waiting on them. Each subscriber reads through
+ * its own bounded buffer, so a slow consumer only overflows its own buffer, handled by the
+ * configured {@link BufferOverflowStrategy}; under ERROR the subscriber is disconnected as soon
+ * as its buffer overflows. Nothing bounded sits between a channel and that
+ * buffer: a best-effort channel drops an event for a subscriber that has no demand, uncounted.
+ */
+@Service
+public class SubscriptionRouter {
+
+    private final int bufferSize;
+    private final int lagThreshold;
+    private final BufferOverflowStrategy overflowStrategy;
+
+    private final Channel broadcast = new Channel();
+    private final Channel privileged = new Channel();
+    private final Map<String, Channel> participants = new ConcurrentHashMap<>();
+
+    private final Set<Tracker> active = ConcurrentHashMap.newKeySet();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder disconnectedSubscribers = new LongAdder();
+    private final LongAdder failedEmissions = new LongAdder();
+
+    public SubscriptionRouter(
+            @Value("${app.subscriptions.buffer-size:256}") int bufferSize,
+            @Value("${app.subscriptions.lag-threshold:128}") int lagThreshold,
+            @Value("${app.subscriptions.overflow-strategy:DROP_OLDEST}") BufferOverflowStrategy overflowStrategy
+    ) {
+        this.bufferSize = bufferSize;
+        this.lagThreshold = lagThreshold;
+        this.overflowStrategy = overflowStrategy;
+    }
+
+    public void publish(Recognition recognition) {
+        privileged.emit(recognition);
+        if (recognition.visibility() == Visibility.PUBLIC) {
+            broadcast.emit(recognition);
+            return;
+        }
+        emitTo(recognition.senderId(), recognition);
+        // A self-recognition has one participant, whose channel must get it once
+        if (!recognition.recipientId().equals(recognition.senderId())) {
+            emitTo(recognition.recipientId(), recognition);
+        }
+    }
+
+    /**
+     * Publishes a batch, taking each channel's emission lock once for all of its events.
+     */
+    public void publishAll(List<Recognition> recognitions) {
+        privileged.emitAll(recognitions);
+        List<Recognition> broadcastEvents = new ArrayList<>();
+        Map<String, List<Recognition>> participantEvents = new HashMap<>();
+        for (Recognition recognition : recognitions) {
+            if (recognition.visibility() == Visibility.PUBLIC) {
+                broadcastEvents.add(recognition);
+            } else {
+                participantEvents.computeIfAbsent(recognition.senderId(), id -> new ArrayList<>()).add(recognition);
+                if (!recognition.recipientId().equals(recognition.senderId())) {
+                    participantEvents.computeIfAbsent(recognition.recipientId(), id -> new ArrayList<>())
+                            .add(recognition);
+                }
+            }
+        }
+        broadcast.emitAll(broadcastEvents);
+        participantEvents.forEach((employeeId, events) -> {
+            Channel channel = participants.get(employeeId);
+            if (channel != null) {
+                channel.emitAll(events);
+            }
+        });
+    }
+
+    public Flux<Recognition> subscribe(Employee subscriber) {
+        return Flux.defer(() -> {
+            Tracker tracker = new Tracker();
+            active.add(tracker);
+            Sinks.Empty<Void> overflowed = Sinks.empty();
+
+            Flux<Recognition> events;
+            Runnable release;
+            if (subscriber.role() == Role.ADMIN || subscriber.role() == Role.HR) {
+                events = privileged.sink.asFlux();
+                release = () -> { };
+            } else {
+                Channel own = acquire(subscriber.id());
+                // Unbounded prefetch: the merge always has demand and passes events straight on to the buffer
+                events = Flux.merge(Integer.MAX_VALUE, broadcast.sink.asFlux(), own.sink.asFlux());
+                release = () -> releaseParticipant(subscriber.id());
+            }
+
+            return events
+                    .doOnNext(recognition -> tracker.received.incrementAndGet())
+                    .onBackpressureBuffer(bufferSize, recognition -> {
+                        tracker.dropped.incrementAndGet();
+                        droppedEvents.increment();
+                        if (overflowStrategy == BufferOverflowStrategy.ERROR) {
+                            overflowed.tryEmitError(Exceptions.failWithOverflow(
+                                    "Subscriber buffer of " + bufferSize + " events overflowed"));
+                        }
+                    }, overflowStrategy)
+                    // The buffer signals its own overflow error only once drained, which a stalled subscriber
+                    // never does, so the error is raised past it
+                    .takeUntilOther(overflowed.asMono())
+                    .doOnNext(recognition -> tracker.delivered.incrementAndGet())
+                    .doOnError(error -> disconnectedSubscribers.increment())
+                    .doFinally(signal -> {
+                        active.remove(tracker);
+                        release.run();
+                    });
+        });
+    }
+
+    // ========= Metrics =========
+
+    public int activeSubscribers() {
+        return active.size();
+    }
+
+    /** Subscribers whose buffer holds at least {@code app.subscriptions.lag-threshold} undelivered events. */
+    public int laggingSubscribers() {
+        int lagging = 0;
+        for (Tracker tracker : active) {
+            if (tracker.buffered() >= lagThreshold) {
+                lagging++;
+            }
+        }
+        return lagging;
+    }
+
+    /** Events sitting in subscriber buffers, summed over all subscribers. */
+    public long bufferedEvents() {
+        long buffered = 0;
+        for (Tracker tracker : active) {
+            buffered += tracker.buffered();
+        }
+        return buffered;
+    }
+
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /** Subscribers terminated because their buffer overflowed under the ERROR strategy. */
+    public long disconnectedSubscribers() {
+        return disconnectedSubscribers.sum();
+    }
+
+    /** Emissions a channel rejected for a reason other than having no subscribers. */
+    public long failedEmissions() {
+        return failedEmissions.sum();
+    }
+
+    // ========= Channels =========
+
+    private void emitTo(String employeeId, Recognition recognition) {
+        Channel channel = participants.get(employeeId);
+        if (channel != null) {
+            channel.emit(recognition);
+        }
+    }
+
+    private Channel acquire(String employeeId) {
+        return participants.compute(employeeId, (id, channel) -> {
+            Channel acquired = channel == null ? new Channel() : channel;
+            acquired.subscribers++;
+            return acquired;
+        });
+    }
+
+    private void releaseParticipant(String employeeId) {
+        // Returning null from compute drops the channel once its last subscriber is gone
+        participants.compute(employeeId, (id, channel) -> {
+            if (channel == null || --channel.subscribers == 0) {
+                return null;
+            }
+            return channel;
+        });
+    }
+
+    private final class Channel {
+
+        private final Sinks.Many<Recognition> sink = Sinks.many().multicast().directBestEffort();
+
+        // Guarded by the participants map's compute() for participant channels
+        private int subscribers;
+
+        void emitAll(List<Recognition> recognitions) {
+            int failed = 0;
+            synchronized (this) {
+                for (Recognition recognition : recognitions) {
+                    Sinks.EmitResult result = sink.tryEmitNext(recognition);
+                    if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                        failed++;
+                    }
+                }
+            }
+            failedEmissions.add(failed);
+        }
+
+        void emit(Recognition recognition) {
+            Sinks.EmitResult result;
+            // Sinks reject concurrent emitters; delivery into subscriber buffers is cheap, so serialize here
+            synchronized (this) {
+                result = sink.tryEmitNext(recognition);
+            }
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                failedEmissions.increment();
+            }
+        }
+    }
+
+    private static final class Tracker {
+
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        long buffered() {
+            return Math.max(0, received.get() - delivered.get() - dropped.get());
+        }
+    }
+}
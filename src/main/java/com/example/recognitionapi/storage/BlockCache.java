@@ -0,0 +1,70 @@
+package com.example.recognitionapi.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decompressed cold blocks, least recently used evicted first. Paging through an old feed reads
+ * the same blocks page after page, so even a few hundred blocks save most of the decompression.
+ * Two readers missing on the same block may both decompress it; the second result replaces the first.
+ */
+final class BlockCache {
+
+    private final Map<Key, ColdSegment.Block> blocks;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    BlockCache(int maxBlocks) {
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, ColdSegment.Block> eldest) {
+                return size() > maxBlocks;
+            }
+        };
+    }
+
+    ColdSegment.Block get(ColdSegment segment, int block) {
+        Key key = new Key(segment.number(), block);
+        ColdSegment.Block cached;
+        synchronized (blocks) {
+            cached = blocks.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        ColdSegment.Block read;
+        try {
+            read = segment.read(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read block " + block + " of " + segment.path(), e);
+        }
+        synchronized (blocks) {
+            blocks.put(key, read);
+        }
+        return read;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    int size() {
+        synchronized (blocks) {
+            return blocks.size();
+        }
+    }
+
+    private record Key(long segment, int block) {
+    }
+}
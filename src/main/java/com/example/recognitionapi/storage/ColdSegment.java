@@ -0,0 +1,810 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An immutable file of recognitions that left the hot window, sorted by creation time and cut
+ * into blocks of up to {@link #BLOCK_ROWS} rows, each Deflate-compressed on its own.
+ * <pre>
+ *   header:  magic, version
+ *   blocks:  compressed rows, oldest first
+ *   lists:   per employee, the numbers of the blocks holding a recognition they received, then sent
+ *   filters: per block a Bloom filter of the search terms in its messages (from version 2)
+ *   footer:  per block its offset, compressed length, and first and last key; per employee the
+ *            length of their two lists; the migration cutoff and the row count
+ *   trailer: lists offset, footer offset, footer CRC-32, magic
+ * </pre>
+ * Opening a segment reads the footer onto the heap: about 70 bytes per block plus a few per
+ * employee. The block lists, at most two ints per row, are memory-mapped and stay off the heap.
+ * They are sparse: an employee's feed reads only the blocks they appear in, and one block
+ * serves every row of theirs it holds. The term filters, {@link #FILTER_BYTES} per block, are
+ * mapped too; a search reads only the blocks whose filter may hold every query term.
+ * <p>
+ * Row keys are those of the hot store: creation millis, then the UUID bits. Ids that are not
+ * UUIDs are keyed by a hash of their text instead of an arena address, so a segment's order
+ * does not depend on the store it came from.
+ */
+final class ColdSegment implements Closeable {
+
+    static final int BLOCK_ROWS = 256;
+
+    // Keeps the per-employee lists a writer builds on the heap, and each mapped lists region, small
+    static final int MAX_ROWS = 4 * 1024 * 1024;
+
+    // Indexes a feed can read
+    static final int RECEIVED = 0;
+    static final int SENT = 1;
+    static final int ALL = 2;
+
+    // Bits of a block's term filter: at a few hundred distinct terms per block and three bits a
+    // term, a block lacking a term passes for it about one time in ten
+    static final int FILTER_BITS = 4096;
+    static final int FILTER_BYTES = FILTER_BITS / Byte.SIZE;
+    private static final int FILTER_HASHES = 3;
+
+    private static final int MAGIC = 0x52534547; // "RSEG"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int TRAILER_BYTES = Long.BYTES * 2 + Integer.BYTES * 2;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".bin";
+
+    private final long number;
+    private final Path path;
+    private final FileChannel channel;
+    private final long cutoff;
+    private final int rows;
+
+    // Block index: offset and compressed length, then first and last key as three longs each
+    private final long[] offsets;
+    private final int[] lengths;
+    private final long[] firstKeys;
+    private final long[] lastKeys;
+
+    // Per employee: where their received and sent lists start in the mapped lists, and how long they are
+    private final Map<String, int[]> employees;
+    private final IntBuffer lists;
+
+    // Per block FILTER_BITS bits; null for a version 1 segment, which has none
+    private final LongBuffer filters;
+
+    private ColdSegment(long number, Path path, FileChannel channel, long cutoff, int rows, long[] offsets,
+                        int[] lengths, long[] firstKeys, long[] lastKeys, Map<String, int[]> employees,
+                        IntBuffer lists, LongBuffer filters) {
+        this.number = number;
+        this.path = path;
+        this.channel = channel;
+        this.cutoff = cutoff;
+        this.rows = rows;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.firstKeys = firstKeys;
+        this.lastKeys = lastKeys;
+        this.employees = employees;
+        this.lists = lists;
+        this.filters = filters;
+    }
+
+    static Path path(Path directory, long number) {
+        return directory.resolve(PREFIX + number + SUFFIX);
+    }
+
+    /** Segment number of a segment file name, or -1 for any other file. */
+    static long number(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static ColdSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Segment " + path + " is truncated.");
+            }
+            ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long listsOffset = trailer.getLong();
+            long footerOffset = trailer.getLong();
+            int footerCrc = trailer.getInt();
+            if (trailer.getInt() != MAGIC || listsOffset < HEADER_BYTES || footerOffset < listsOffset
+                    || footerOffset > size - TRAILER_BYTES) {
+                throw new IOException("Segment " + path + " has no valid trailer.");
+            }
+            ByteBuffer footer = readFully(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+            CRC32 crc = new CRC32();
+            crc.update(footer.duplicate());
+            if ((int) crc.getValue() != footerCrc) {
+                throw new IOException("Segment " + path + " failed its footer checksum.");
+            }
+
+            int blocks = footer.getInt();
+            long[] offsets = new long[blocks];
+            int[] lengths = new int[blocks];
+            long[] firstKeys = new long[blocks * 3];
+            long[] lastKeys = new long[blocks * 3];
+            for (int block = 0; block < blocks; block++) {
+                offsets[block] = footer.getLong();
+                lengths[block] = footer.getInt();
+                for (int i = 0; i < 3; i++) {
+                    firstKeys[block * 3 + i] = footer.getLong();
+                }
+                for (int i = 0; i < 3; i++) {
+                    lastKeys[block * 3 + i] = footer.getLong();
+                }
+            }
+            int employeeCount = footer.getInt();
+            Map<String, int[]> employees = new HashMap<>(employeeCount * 2);
+            int start = 0;
+            for (int i = 0; i < employeeCount; i++) {
+                byte[] id = new byte[footer.getShort() & 0xFFFF];
+                footer.get(id);
+                int received = footer.getInt();
+                int sent = footer.getInt();
+                employees.put(new String(id, StandardCharsets.UTF_8), new int[] {start, received, start + received, sent});
+                start += received + sent;
+            }
+            long cutoff = footer.getLong();
+            int rows = footer.getInt();
+
+            long filtersOffset = listsOffset + (long) start * Integer.BYTES;
+            long filtersLength = footerOffset - filtersOffset;
+            if (filtersLength != 0 && filtersLength != (long) blocks * FILTER_BYTES) {
+                throw new IOException("Segment " + path + " has a malformed term filter region.");
+            }
+            IntBuffer lists = channel.map(FileChannel.MapMode.READ_ONLY, listsOffset, filtersOffset - listsOffset)
+                    .asIntBuffer();
+            LongBuffer filters = filtersLength == 0 ? null
+                    : channel.map(FileChannel.MapMode.READ_ONLY, filtersOffset, filtersLength).asLongBuffer();
+            return new ColdSegment(number(path), path, channel, cutoff, rows, offsets, lengths, firstKeys, lastKeys,
+                    employees, lists, filters);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long number() {
+        return number;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /** Every row is older than this, in epoch millis: the hot window's start when it was written. */
+    long cutoff() {
+        return cutoff;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int blocks() {
+        return offsets.length;
+    }
+
+    long bytes() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The blocks an index reads, oldest first: every block for {@link #ALL}, or the blocks
+     * holding a recognition {@code employeeId} received or sent.
+     */
+    BlockList blocks(int index, String employeeId) {
+        if (index == ALL) {
+            return new BlockList(null, 0, offsets.length);
+        }
+        int[] entry = employees.get(employeeId);
+        if (entry == null) {
+            return new BlockList(null, 0, 0);
+        }
+        return index == RECEIVED ? new BlockList(lists, entry[0], entry[1]) : new BlockList(lists, entry[2], entry[3]);
+    }
+
+    /**
+     * Whether {@code block} may hold a message with every term; false only if it certainly does
+     * not. {@code termBits} holds each term's {@link #filterBits}.
+     */
+    boolean mayContainAll(int block, int[][] termBits) {
+        if (filters == null) {
+            return true;
+        }
+        int base = block * (FILTER_BITS / Long.SIZE);
+        for (int[] bits : termBits) {
+            for (int bit : bits) {
+                if ((filters.get(base + (bit >>> 6)) & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // The filter bits of a search term, from two halves of its FNV-1a hash
+    static int[] filterBits(String term) {
+        byte[] utf8 = term.getBytes(StandardCharsets.UTF_8);
+        long hash = RecognitionTable.textKey(utf8, 0, utf8.length);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        int[] bits = new int[FILTER_HASHES];
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            bits[i] = Math.floorMod(first + i * second, FILTER_BITS);
+        }
+        return bits;
+    }
+
+    // Block keys, compared as the table compares rows
+    int compareFirst(int block, long createdAt, long idHigh, long idLow) {
+        return compare(firstKeys, block * 3, createdAt, idHigh, idLow);
+    }
+
+    int compareLast(int block, long createdAt, long idHigh, long idLow) {
+        return compare(lastKeys, block * 3, createdAt, idHigh, idLow);
+    }
+
+    long firstCreatedAt(int block) {
+        return firstKeys[block * 3];
+    }
+
+    long lastCreatedAt(int block) {
+        return lastKeys[block * 3];
+    }
+
+    long firstIdHigh(int block) {
+        return firstKeys[block * 3 + 1];
+    }
+
+    long firstIdLow(int block) {
+        return firstKeys[block * 3 + 2];
+    }
+
+    long lastIdHigh(int block) {
+        return lastKeys[block * 3 + 1];
+    }
+
+    long lastIdLow(int block) {
+        return lastKeys[block * 3 + 2];
+    }
+
+    /** Reads and decompresses one block. Positional reads, so any number of threads may read at once. */
+    Block read(int block) throws IOException {
+        ByteBuffer compressed = readFully(channel, offsets[block], lengths[block]);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(lengths[block] * 3);
+            byte[] buffer = new byte[16 * 1024];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Block " + block + " of " + path + " is truncated.");
+                }
+                out.write(buffer, 0, count);
+            }
+            return Block.decode(out.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IOException("Block " + block + " of " + path + " is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static int compare(long[] keys, int at, long createdAt, long idHigh, long idLow) {
+        int order = Long.compare(keys[at], createdAt);
+        if (order != 0) {
+            return order;
+        }
+        order = Long.compare(keys[at + 1], idHigh);
+        return order != 0 ? order : Long.compare(keys[at + 2], idLow);
+    }
+
+    // Key of an id: its UUID bits, or a hash and length of its text, as the hot table keys it
+    static long[] idKey(String id) {
+        RecognitionTable.ParsedId parsed = RecognitionTable.ParsedId.of(id);
+        return new long[] {parsed.high(), parsed.low()};
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment file.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /** Block numbers in ascending order: all of them, or a slice of the mapped per-employee lists. */
+    record BlockList(IntBuffer lists, int start, int size) {
+
+        int get(int i) {
+            return lists == null ? start + i : lists.get(start + i);
+        }
+    }
+
+    /** A check on one row of a decompressed block, made from its columns without building the recognition. */
+    @FunctionalInterface
+    interface RowFilter {
+
+        RowFilter ANY = (block, row) -> true;
+
+        boolean test(Block block, int row);
+    }
+
+    /**
+     * A decompressed block, oldest first. Keys, flags and participants are decoded up front, the
+     * participants as indexes into the block's employee ids; ids and messages stay as bytes until
+     * {@link #get} builds a row's recognition. A feed page filters hundreds of rows of a block by
+     * participant and visibility, and builds only the few it returns.
+     */
+    static final class Block {
+
+        private final byte[] bytes;
+        private final long[] keys;
+        private final byte[] flags;
+        private final String[] employees;
+        private final int[] senders;
+        private final int[] recipients;
+        // Offset of each row's id (text ids only) and message in the bytes
+        private final int[] idOffsets;
+        private final int[] messageOffsets;
+        // Built on first use; a recognition is immutable, so a racing reader at worst builds it again
+        private final Recognition[] rows;
+
+        private Block(byte[] bytes, long[] keys, byte[] flags, String[] employees, int[] senders, int[] recipients,
+                      int[] idOffsets, int[] messageOffsets) {
+            this.bytes = bytes;
+            this.keys = keys;
+            this.flags = flags;
+            this.employees = employees;
+            this.senders = senders;
+            this.recipients = recipients;
+            this.idOffsets = idOffsets;
+            this.messageOffsets = messageOffsets;
+            this.rows = new Recognition[flags.length];
+        }
+
+        int size() {
+            return flags.length;
+        }
+
+        Recognition get(int row) {
+            Recognition recognition = rows[row];
+            if (recognition == null) {
+                recognition = materialize(row);
+                rows[row] = recognition;
+            }
+            return recognition;
+        }
+
+        private Recognition materialize(int row) {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            String id;
+            if ((flags[row] & RecognitionTable.FLAG_UUID_ID) != 0) {
+                id = new UUID(idHigh(row), idLow(row)).toString();
+            } else {
+                id = readText(in.position(idOffsets[row]));
+            }
+            String message = readText(in.position(messageOffsets[row]));
+            return new Recognition(id, senderId(row), recipientId(row), message,
+                    isPrivate(row) ? Visibility.PRIVATE : Visibility.PUBLIC,
+                    (flags[row] & RecognitionTable.FLAG_ANONYMOUS) != 0, Instant.ofEpochMilli(createdAt(row)));
+        }
+
+        String message(int row) {
+            Recognition built = rows[row];
+            return built != null ? built.message() : readText(ByteBuffer.wrap(bytes).position(messageOffsets[row]));
+        }
+
+        String senderId(int row) {
+            return employees[senders[row]];
+        }
+
+        String recipientId(int row) {
+            return employees[recipients[row]];
+        }
+
+        boolean isPrivate(int row) {
+            return (flags[row] & RecognitionTable.FLAG_PRIVATE) != 0;
+        }
+
+        long createdAt(int row) {
+            return keys[row * 3];
+        }
+
+        long idHigh(int row) {
+            return keys[row * 3 + 1];
+        }
+
+        long idLow(int row) {
+            return keys[row * 3 + 2];
+        }
+
+        int compare(int row, long createdAt, long idHigh, long idLow) {
+            return ColdSegment.compare(keys, row * 3, createdAt, idHigh, idLow);
+        }
+
+        /*
+         * Layout: row count; the block's employee ids; then per row flags, creation millis (delta
+         * from the previous row), id, sender and recipient (indexes into the employee ids), message.
+         */
+        static byte[] encode(List<Recognition> recognitions, List<long[]> idKeys) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(recognitions.size() * 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                Map<String, Integer> employees = new LinkedHashMap<>();
+                for (Recognition recognition : recognitions) {
+                    employees.putIfAbsent(recognition.senderId(), employees.size());
+                    employees.putIfAbsent(recognition.recipientId(), employees.size());
+                }
+                writeVarLong(out, recognitions.size());
+                writeVarLong(out, employees.size());
+                for (String employee : employees.keySet()) {
+                    writeText(out, employee);
+                }
+                long previous = 0;
+                for (int i = 0; i < recognitions.size(); i++) {
+                    Recognition recognition = recognitions.get(i);
+                    long[] id = idKeys.get(i);
+                    boolean uuid = RecognitionTable.ParsedId.of(recognition.id()).utf8() == null;
+                    int flags = (uuid ? RecognitionTable.FLAG_UUID_ID : 0)
+                            | (recognition.visibility() == Visibility.PRIVATE ? RecognitionTable.FLAG_PRIVATE : 0)
+                            | (recognition.isAnonymous() ? RecognitionTable.FLAG_ANONYMOUS : 0);
+                    out.writeByte(flags);
+                    long createdAt = recognition.createdAt().toEpochMilli();
+                    writeVarLong(out, i == 0 ? createdAt : createdAt - previous);
+                    previous = createdAt;
+                    if (uuid) {
+                        out.writeLong(id[0]);
+                        out.writeLong(id[1]);
+                    } else {
+                        writeText(out, recognition.id());
+                    }
+                    writeVarLong(out, employees.get(recognition.senderId()));
+                    writeVarLong(out, employees.get(recognition.recipientId()));
+                    writeText(out, recognition.message());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Block decode(byte[] bytes) {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int count = (int) readVarLong(in);
+            String[] employees = new String[(int) readVarLong(in)];
+            for (int i = 0; i < employees.length; i++) {
+                employees[i] = readText(in);
+            }
+            long[] keys = new long[count * 3];
+            byte[] flags = new byte[count];
+            int[] senders = new int[count];
+            int[] recipients = new int[count];
+            int[] idOffsets = new int[count];
+            int[] messageOffsets = new int[count];
+            long createdAt = 0;
+            for (int row = 0; row < count; row++) {
+                flags[row] = in.get();
+                long delta = readVarLong(in);
+                createdAt = row == 0 ? delta : createdAt + delta;
+                keys[row * 3] = createdAt;
+                if ((flags[row] & RecognitionTable.FLAG_UUID_ID) != 0) {
+                    keys[row * 3 + 1] = in.getLong();
+                    keys[row * 3 + 2] = in.getLong();
+                } else {
+                    idOffsets[row] = in.position();
+                    int length = (int) readVarLong(in);
+                    keys[row * 3 + 1] = RecognitionTable.textKey(bytes, in.position(), length);
+                    keys[row * 3 + 2] = length;
+                    in.position(in.position() + length);
+                }
+                senders[row] = (int) readVarLong(in);
+                recipients[row] = (int) readVarLong(in);
+                messageOffsets[row] = in.position();
+                int length = (int) readVarLong(in);
+                in.position(in.position() + length);
+            }
+            return new Block(bytes, keys, flags, employees, senders, recipients, idOffsets, messageOffsets);
+        }
+
+        private static void writeText(DataOutputStream out, String text) throws IOException {
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, utf8.length);
+            out.write(utf8);
+        }
+
+        private static String readText(ByteBuffer in) {
+            int length = (int) readVarLong(in);
+            String text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return text;
+        }
+
+        private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long readVarLong(ByteBuffer in) {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes one segment. Recognitions are added oldest first, in creation-millis order; rows of
+     * the same millisecond are put in key order here. The file appears under its final name only
+     * once {@link #finish} has forced it to disk.
+     */
+    static final class Writer implements Closeable {
+
+        private static final Comparator<Pending> KEY_ORDER = Comparator
+                .comparingLong((Pending pending) -> pending.idKey[0])
+                .thenComparingLong(pending -> pending.idKey[1]);
+
+        private final long number;
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final byte[] deflated = new byte[64 * 1024];
+
+        // Rows of the current millisecond, then rows of the block being filled
+        private final List<Pending> sameMillis = new ArrayList<>();
+        private final List<Recognition> blockRows = new ArrayList<>(BLOCK_ROWS);
+        private final List<long[]> blockKeys = new ArrayList<>(BLOCK_ROWS);
+
+        private final List<long[]> index = new ArrayList<>();
+        private final List<long[]> filters = new ArrayList<>();
+        private final Map<String, IntList[]> lists = new LinkedHashMap<>();
+        private long position = HEADER_BYTES;
+        private int rows;
+        private boolean finished;
+
+        Writer(Path directory, long number) throws IOException {
+            this.number = number;
+            this.target = path(directory, number);
+            this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(header, 0);
+        }
+
+        long number() {
+            return number;
+        }
+
+        int rows() {
+            return rows + sameMillis.size();
+        }
+
+        boolean isFull() {
+            return rows() >= MAX_ROWS;
+        }
+
+        void add(Recognition recognition) throws IOException {
+            long createdAt = recognition.createdAt().toEpochMilli();
+            if (!sameMillis.isEmpty() && sameMillis.get(0).recognition.createdAt().toEpochMilli() != createdAt) {
+                flushSameMillis();
+            }
+            sameMillis.add(new Pending(recognition, idKey(recognition.id())));
+        }
+
+        private void flushSameMillis() throws IOException {
+            sameMillis.sort(KEY_ORDER);
+            for (Pending pending : sameMillis) {
+                blockRows.add(pending.recognition);
+                blockKeys.add(pending.idKey);
+                rows++;
+                if (blockRows.size() == BLOCK_ROWS) {
+                    flushBlock();
+                }
+            }
+            sameMillis.clear();
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockRows.isEmpty()) {
+                return;
+            }
+            int block = index.size();
+            byte[] encoded = Block.encode(blockRows, blockKeys);
+            deflater.reset();
+            deflater.setInput(encoded);
+            deflater.finish();
+            long offset = position;
+            while (!deflater.finished()) {
+                int count = deflater.deflate(deflated);
+                writeFully(ByteBuffer.wrap(deflated, 0, count), position);
+                position += count;
+            }
+
+            Recognition first = blockRows.get(0);
+            Recognition last = blockRows.get(blockRows.size() - 1);
+            long[] firstId = blockKeys.get(0);
+            long[] lastId = blockKeys.get(blockKeys.size() - 1);
+            index.add(new long[] {offset, position - offset,
+                    first.createdAt().toEpochMilli(), firstId[0], firstId[1],
+                    last.createdAt().toEpochMilli(), lastId[0], lastId[1]});
+            long[] filter = new long[FILTER_BITS / Long.SIZE];
+            for (Recognition recognition : blockRows) {
+                for (String term : Tokenizer.terms(recognition.message()).keySet()) {
+                    for (int bit : filterBits(term)) {
+                        filter[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+            filters.add(filter);
+            for (Recognition recognition : blockRows) {
+                lists.computeIfAbsent(recognition.recipientId(), id -> new IntList[] {new IntList(), new IntList()})[RECEIVED]
+                        .addOnce(block);
+                lists.computeIfAbsent(recognition.senderId(), id -> new IntList[] {new IntList(), new IntList()})[SENT]
+                        .addOnce(block);
+            }
+            blockRows.clear();
+            blockKeys.clear();
+        }
+
+        /** Completes the file, forces it to disk and moves it under its final name. */
+        ColdSegment finish(long cutoff) throws IOException {
+            flushSameMillis();
+            flushBlock();
+
+            long listsOffset = position;
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (IntList[] employeeLists : lists.values()) {
+                for (IntList list : employeeLists) {
+                    for (int i = 0; i < list.size; i++) {
+                        if (!buffer.hasRemaining()) {
+                            position += writeFully(buffer.flip(), position);
+                            buffer.clear();
+                        }
+                        buffer.putInt(list.values[i]);
+                    }
+                }
+            }
+            position += writeFully(buffer.flip(), position);
+
+            ByteBuffer filterBuffer = ByteBuffer.allocate(FILTER_BYTES);
+            for (long[] filter : filters) {
+                filterBuffer.clear();
+                filterBuffer.asLongBuffer().put(filter);
+                position += writeFully(filterBuffer, position);
+            }
+
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeInt(index.size());
+            for (long[] entry : index) {
+                footer.writeLong(entry[0]);
+                footer.writeInt((int) entry[1]);
+                for (int i = 2; i < entry.length; i++) {
+                    footer.writeLong(entry[i]);
+                }
+            }
+            footer.writeInt(lists.size());
+            for (Map.Entry<String, IntList[]> entry : lists.entrySet()) {
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                footer.writeShort(id.length);
+                footer.write(id);
+                footer.writeInt(entry.getValue()[RECEIVED].size);
+                footer.writeInt(entry.getValue()[SENT].size);
+            }
+            footer.writeLong(cutoff);
+            footer.writeInt(rows);
+            byte[] footerArray = footerBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(footerArray);
+
+            long footerOffset = position;
+            position += writeFully(ByteBuffer.wrap(footerArray), position);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES)
+                    .putLong(listsOffset).putLong(footerOffset).putInt((int) crc.getValue()).putInt(MAGIC).flip();
+            position += writeFully(trailer, position);
+
+            channel.force(true);
+            channel.close();
+            deflater.end();
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return open(target);
+        }
+
+        private int writeFully(ByteBuffer buffer, long at) throws IOException {
+            int written = 0;
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, at + written);
+            }
+            return written;
+        }
+
+        /** Abandons an unfinished segment and deletes its temporary file. */
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            deflater.end();
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+
+        private record Pending(Recognition recognition, long[] idKey) {
+        }
+    }
+
+    // Ascending block numbers, each appended once
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
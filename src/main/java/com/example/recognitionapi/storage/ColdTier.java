@@ -0,0 +1,192 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The segment directory and the block cache shared by every read of the cold tier. Which
+ * segments are current is not kept here: each generation of a {@link TieredRecognitionStore}
+ * holds its own list, so a read sees the segments that match the hot store it reads.
+ */
+final class ColdTier {
+
+    private static final Logger log = LoggerFactory.getLogger(ColdTier.class);
+
+    private final Path directory;
+    private final BlockCache cache;
+    private final AtomicLong nextNumber = new AtomicLong();
+
+    ColdTier(Path directory, int cacheBlocks) {
+        this.directory = directory;
+        this.cache = new BlockCache(cacheBlocks);
+    }
+
+    /**
+     * Opens the segments left by earlier runs, oldest first, and deletes any a migration did not finish.
+     */
+    List<ColdSegment> open() throws IOException {
+        Files.createDirectories(directory);
+        List<ColdSegment> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    log.warn("Deleting unfinished cold segment file={}", file);
+                    Files.delete(file);
+                } else if (ColdSegment.number(file) >= 0) {
+                    segments.add(ColdSegment.open(file));
+                }
+            }
+        } catch (IOException e) {
+            for (ColdSegment segment : segments) {
+                segment.close();
+            }
+            throw e;
+        }
+        segments.sort(Comparator.comparingLong(ColdSegment::number));
+        if (!segments.isEmpty()) {
+            nextNumber.set(segments.get(segments.size() - 1).number() + 1);
+        }
+        return segments;
+    }
+
+    ColdSegment.Writer newSegment() throws IOException {
+        return new ColdSegment.Writer(directory, nextNumber.getAndIncrement());
+    }
+
+    BlockCache cache() {
+        return cache;
+    }
+
+    /**
+     * Whether {@code recognition} is already in one of {@code segments}. A stored recognition keeps
+     * its creation time, so only the blocks spanning that millisecond are read, usually one.
+     */
+    boolean contains(List<ColdSegment> segments, Recognition recognition) {
+        long createdAt = recognition.createdAt().toEpochMilli();
+        long[] idKey = ColdSegment.idKey(recognition.id());
+        for (ColdSegment segment : segments) {
+            if (createdAt >= segment.cutoff()) {
+                continue;
+            }
+            int low = 0;
+            int high = segment.blocks();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (segment.lastCreatedAt(middle) < createdAt) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int block = low; block < segment.blocks() && segment.firstCreatedAt(block) <= createdAt; block++) {
+                ColdSegment.Block rows = cache.get(segment, block);
+                for (int row = 0; row < rows.size(); row++) {
+                    // Text ids are keyed by a hash, so a matching key is confirmed against the id itself
+                    if (rows.compare(row, createdAt, idKey[0], idKey[1]) == 0
+                            && rows.get(row).id().equals(recognition.id())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The best {@code limit} rows of {@code segments} after {@code after} (null for the first)
+     * whose message has every term of {@code query}, best first, scored and ordered as
+     * {@link SearchIndex} scores and orders hot rows. Only blocks whose term filter may hold every
+     * term are read, so a rare term reads a few blocks and a common one most of them.
+     */
+    List<SearchIndex.Match> search(List<ColdSegment> segments, String query, int limit, SearchCursor.Position after,
+                                   ColdSegment.RowFilter visible) {
+        List<String> terms = List.copyOf(Tokenizer.terms(query).keySet());
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int[][] termBits = new int[terms.size()][];
+        for (int i = 0; i < termBits.length; i++) {
+            termBits[i] = ColdSegment.filterBits(terms.get(i));
+        }
+
+        // Worst match at the head, so the heap holds the best `limit` seen so far
+        PriorityQueue<SearchIndex.Match> best = new PriorityQueue<>(limit + 1, SearchIndex.BEST_FIRST.reversed());
+        for (ColdSegment segment : segments) {
+            for (int block = 0; block < segment.blocks(); block++) {
+                if (!segment.mayContainAll(block, termBits)) {
+                    continue;
+                }
+                ColdSegment.Block rows = cache.get(segment, block);
+                for (int row = 0; row < rows.size(); row++) {
+                    if (!visible.test(rows, row)) {
+                        continue;
+                    }
+                    double score = SearchIndex.score(Tokenizer.terms(rows.message(row)), terms);
+                    if (score < 0 || !isAfter(rows, row, score, after)) {
+                        continue;
+                    }
+                    RecognitionKey key = new RecognitionKey(rows.createdAt(row), rows.idHigh(row), rows.idLow(row));
+                    SearchIndex.Match candidate = new SearchIndex.Match(score, key, null);
+                    if (best.size() < limit) {
+                        best.add(new SearchIndex.Match(score, key, rows.get(row)));
+                    } else if (SearchIndex.BEST_FIRST.compare(candidate, best.peek()) < 0) {
+                        best.poll();
+                        best.add(new SearchIndex.Match(score, key, rows.get(row)));
+                    }
+                }
+            }
+        }
+        List<SearchIndex.Match> matches = new ArrayList<>(best);
+        matches.sort(SearchIndex.BEST_FIRST);
+        return matches;
+    }
+
+    private static boolean isAfter(ColdSegment.Block rows, int row, double score, SearchCursor.Position after) {
+        if (after == null) {
+            return true;
+        }
+        RecognitionKey key = after.key();
+        return score < after.score()
+                || score == after.score() && rows.compare(row, key.createdAt(), key.idHigh(), key.idLow()) < 0;
+    }
+
+    Selection select(List<ColdSegment> segments, int index, String employeeId, ColdSegment.RowFilter filter) {
+        return new Selection(segments, index, employeeId, filter, cache);
+    }
+
+    /**
+     * The rows of one cold index a feed reads: every row ({@link ColdSegment#ALL}) or an employee's
+     * received or sent blocks, narrowed by {@code filter}, which must check the employee too,
+     * since a block also holds other employees' rows.
+     */
+    record Selection(List<ColdSegment> segments, int index, String employeeId, ColdSegment.RowFilter filter,
+                     BlockCache cache) {
+
+        ColdWalk newestFirst(RecognitionKey before) {
+            return new ColdWalk(segments, index, employeeId, filter, cache, true, before);
+        }
+
+        // Rows in the blocks read, an upper bound on the rows returned
+        long sizeBound() {
+            long size = 0;
+            for (ColdSegment segment : segments) {
+                size += index == ColdSegment.ALL
+                        ? segment.rows()
+                        : Math.min((long) segment.blocks(index, employeeId).size() * ColdSegment.BLOCK_ROWS,
+                        segment.rows());
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Walks one index of several cold segments in key order, newest or oldest first, starting at a
+ * key. The segments are merged through a priority queue, and a block is decompressed only once it
+ * heads the queue. Until then it is queued under its last key (first key when walking oldest
+ * first), an exact bound on its rows. The first page of a feed therefore reads only the blocks
+ * its rows come from, however many segments and blocks there are.
+ */
+final class ColdWalk {
+
+    private final BlockCache cache;
+    private final int step;
+    private final RecognitionKey start;
+    private final ColdSegment.RowFilter filter;
+    private final PriorityQueue<Source> queue;
+
+    private long createdAt;
+    private long idHigh;
+    private long idLow;
+
+    /**
+     * @param newestFirst walk direction
+     * @param start       newest first: only rows below this key; oldest first: only rows at or above
+     *                    it; null to start at the end
+     * @param filter      rows the walk returns
+     */
+    ColdWalk(List<ColdSegment> segments, int index, String employeeId, ColdSegment.RowFilter filter,
+             BlockCache cache, boolean newestFirst, RecognitionKey start) {
+        this.cache = cache;
+        this.step = newestFirst ? -1 : 1;
+        this.start = start;
+        this.filter = filter;
+        this.queue = new PriorityQueue<>(Math.max(1, segments.size()), this::headFirst);
+        for (ColdSegment segment : segments) {
+            ColdSegment.BlockList blocks = segment.blocks(index, employeeId);
+            int position = firstPosition(segment, blocks);
+            if (position >= 0 && position < blocks.size()) {
+                queue.add(new Source(segment, blocks, position));
+            }
+        }
+    }
+
+    // Binary search for the first block that can hold a row past the start key
+    private int firstPosition(ColdSegment segment, ColdSegment.BlockList blocks) {
+        if (start == null) {
+            return step < 0 ? blocks.size() - 1 : 0;
+        }
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int block = blocks.get(middle);
+            // Newest first: the first block starting at or after the key; oldest first: ending at or after it
+            int order = step < 0
+                    ? segment.compareFirst(block, start.createdAt(), start.idHigh(), start.idLow())
+                    : segment.compareLast(block, start.createdAt(), start.idHigh(), start.idLow());
+            if (order < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return step < 0 ? low - 1 : low;
+    }
+
+    boolean hasNext() {
+        settle();
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Whether the row {@link #next} returns comes strictly before a key in the walk's order.
+     * A block whose bound is not before the key stays unread, so a page of hot rows that all come
+     * first decompresses nothing.
+     */
+    boolean precedes(long createdAt, long idHigh, long idLow) {
+        while (!queue.isEmpty()) {
+            Source head = queue.peek();
+            int order = Long.compare(head.createdAt(), createdAt);
+            if (order == 0) {
+                order = Long.compare(head.idHigh(), idHigh);
+            }
+            if (order == 0) {
+                order = Long.compare(head.idLow(), idLow);
+            }
+            boolean before = step < 0 ? order > 0 : order < 0;
+            if (head.block != null || !before) {
+                return before;
+            }
+            load(queue.poll());
+        }
+        return false;
+    }
+
+    Recognition next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Source head = queue.poll();
+        Recognition recognition = head.block.get(head.row);
+        createdAt = head.block.createdAt(head.row);
+        idHigh = head.block.idHigh(head.row);
+        idLow = head.block.idLow(head.row);
+        head.row += step;
+        if (head.seek()) {
+            queue.add(head);
+        }
+        return recognition;
+    }
+
+    /** Key of the row last returned by {@link #next}. */
+    RecognitionKey key() {
+        return new RecognitionKey(createdAt, idHigh, idLow);
+    }
+
+    // Decompresses blocks until a loaded row heads the queue: every block bound below it is then behind it
+    private void settle() {
+        while (!queue.isEmpty() && queue.peek().block == null) {
+            load(queue.poll());
+        }
+    }
+
+    private void load(Source source) {
+        source.block = cache.get(source.segment, source.blocks.get(source.position));
+        source.row = step < 0 ? source.block.size() - 1 : 0;
+        if (source.seek()) {
+            queue.add(source);
+        }
+    }
+
+    // Queue order: the head key furthest along the walk first, and an unread block before a row with the same key
+    private int headFirst(Source left, Source right) {
+        int order = Long.compare(left.createdAt(), right.createdAt());
+        if (order == 0) {
+            order = Long.compare(left.idHigh(), right.idHigh());
+        }
+        if (order == 0) {
+            order = Long.compare(left.idLow(), right.idLow());
+        }
+        if (order == 0) {
+            return Boolean.compare(left.block != null, right.block != null);
+        }
+        return step < 0 ? -order : order;
+    }
+
+    // One segment's place in the walk: an unread block, or a row of a decompressed one
+    private final class Source {
+
+        private final ColdSegment segment;
+        private final ColdSegment.BlockList blocks;
+        private int position;
+        private ColdSegment.Block block;
+        private int row;
+
+        Source(ColdSegment segment, ColdSegment.BlockList blocks, int position) {
+            this.segment = segment;
+            this.blocks = blocks;
+            this.position = position;
+        }
+
+        /**
+         * Moves to the next row past the start key that the filter accepts, or to the next unread
+         * block once this one is used up.
+         *
+         * @return false once the segment has nothing more
+         */
+        boolean seek() {
+            for (; row >= 0 && row < block.size(); row += step) {
+                if (pastStart() && filter.test(block, row)) {
+                    return true;
+                }
+            }
+            block = null;
+            position += step;
+            return position >= 0 && position < blocks.size();
+        }
+
+        private boolean pastStart() {
+            if (start == null) {
+                return true;
+            }
+            int order = block.compare(row, start.createdAt(), start.idHigh(), start.idLow());
+            return step < 0 ? order < 0 : order >= 0;
+        }
+
+        long createdAt() {
+            if (block != null) {
+                return block.createdAt(row);
+            }
+            int at = blocks.get(position);
+            return step < 0 ? segment.lastCreatedAt(at) : segment.firstCreatedAt(at);
+        }
+
+        long idHigh() {
+            if (block != null) {
+                return block.idHigh(row);
+            }
+            int at = blocks.get(position);
+            return step < 0 ? segment.lastIdHigh(at) : segment.firstIdHigh(at);
+        }
+
+        long idLow() {
+            if (block != null) {
+                return block.idLow(row);
+            }
+            int at = blocks.get(position);
+            return step < 0 ? segment.lastIdLow(at) : segment.firstIdLow(at);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionEdge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A point-in-time view of one or more recognition indexes, read newest first. Several indexes
+ * (say the public timeline and a viewer's private list) are merged as they are walked, and an
+ * optional slot check drops rows by their columns alone. Recognitions are materialized from the
+ * table only for the entries a caller actually returns. With tiering, the matching index of the
+ * cold segments is merged in as well, by the same keys.
+ */
+public final class Feed {
+
+    private final RecognitionTable table;
+    private final SlotList.View[] views;
+    private final IntPredicate included;
+    private final ColdTier.Selection cold;
+
+    Feed(RecognitionTable table, SlotList.View view) {
+        this(table, new SlotList.View[] {view}, null);
+    }
+
+    // The views must be disjoint
+    Feed(RecognitionTable table, SlotList.View[] views, IntPredicate included) {
+        this(table, views, included, null);
+    }
+
+    private Feed(RecognitionTable table, SlotList.View[] views, IntPredicate included, ColdTier.Selection cold) {
+        this.table = table;
+        this.views = views;
+        this.included = included;
+        this.cold = cold;
+    }
+
+    // The same feed merged with rows of the cold tier, which must not also be in the views
+    Feed withCold(ColdTier.Selection cold) {
+        return new Feed(table, views, included, cold);
+    }
+
+    /**
+     * Entries in the underlying indexes: the feed's length, or an upper bound if it checks slots.
+     */
+    public int size() {
+        long size = cold == null ? 0 : cold.sizeBound();
+        for (SlotList.View view : views) {
+            size += view.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    public List<Recognition> newestFirst() {
+        List<Recognition> recognitions = new ArrayList<>(included == null && cold == null ? size() : 16);
+        Merge merge = new Merge(null);
+        while (merge.next()) {
+            recognitions.add(merge.recognition());
+        }
+        return recognitions;
+    }
+
+    /**
+     * Up to {@code pageSize} recognitions accepted by {@code filter}, starting just after the
+     * {@code after} cursor. Seeking to the cursor is a binary search per index, so an unfiltered
+     * page costs O(log n + page size).
+     */
+    public RecognitionConnection page(int pageSize, String after, Predicate<Recognition> filter) {
+        if (pageSize == 0) {
+            return RecognitionConnection.empty();
+        }
+        Merge merge = new Merge(after == null ? null : RecognitionCursor.decode(after));
+
+        List<RecognitionEdge> edges = new ArrayList<>(pageSize);
+        boolean hasNextPage = false;
+        while (merge.next()) {
+            Recognition recognition = merge.recognition();
+            if (!filter.test(recognition)) {
+                continue;
+            }
+            if (edges.size() == pageSize) {
+                hasNextPage = true;
+                break;
+            }
+            edges.add(new RecognitionEdge(RecognitionCursor.encode(merge.key()), recognition));
+        }
+        return RecognitionConnection.of(edges, hasNextPage, after != null);
+    }
+
+    // Newest-first merge of the views, starting below a key; each step compares the views' heads
+    private final class Walk {
+
+        private final int[] next = new int[views.length];
+
+        Walk(RecognitionKey before) {
+            for (int i = 0; i < views.length; i++) {
+                next[i] = (before == null ? views[i].size() : views[i].lowerBound(before, table)) - 1;
+            }
+        }
+
+        // The next included slot, or -1 once every view is exhausted
+        int next() {
+            while (true) {
+                int newest = -1;
+                for (int i = 0; i < views.length; i++) {
+                    if (next[i] >= 0 && (newest < 0
+                            || table.compare(views[i].get(next[i]), views[newest].get(next[newest])) > 0)) {
+                        newest = i;
+                    }
+                }
+                if (newest < 0) {
+                    return -1;
+                }
+                int slot = views[newest].get(next[newest]--);
+                if (included == null || included.test(slot)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    // The hot walk merged with the cold one, if any; a hot row wins a tie
+    private final class Merge {
+
+        private final Walk hot;
+        private final ColdWalk coldWalk;
+        private int nextSlot;
+        private int slot;
+        private Recognition coldRecognition;
+
+        Merge(RecognitionKey before) {
+            hot = new Walk(before);
+            coldWalk = cold == null ? null : cold.newestFirst(before);
+            nextSlot = hot.next();
+        }
+
+        boolean next() {
+            if (nextSlot >= 0 && (coldWalk == null
+                    || !coldWalk.precedes(table.createdAt(nextSlot), table.idHigh(nextSlot), table.idLow(nextSlot)))) {
+                slot = nextSlot;
+                nextSlot = hot.next();
+                return true;
+            }
+            if (coldWalk != null && coldWalk.hasNext()) {
+                slot = -1;
+                coldRecognition = coldWalk.next();
+                return true;
+            }
+            return false;
+        }
+
+        Recognition recognition() {
+            return slot >= 0 ? table.materialize(slot) : coldRecognition;
+        }
+
+        RecognitionKey key() {
+            return slot >= 0 ? table.key(slot) : coldWalk.key();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.recognitionapi.storage;
+
+import java.util.Arrays;
+
+/**
+ * Recognition id to slot, as striped open-addressing tables of bare {@code int} slots.
+ * Keys are not stored: a probe compares against the id held in the table row, so the index
+ * costs about eight bytes per recognition at the 0.5 load factor.
+ */
+final class IdIndex {
+
+    private static final int EMPTY = -1;
+    private static final int STRIPES = 64;
+
+    private final RecognitionTable table;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    IdIndex(RecognitionTable table) {
+        this.table = table;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Records {@code slot} for {@code id} unless the id is already present.
+     *
+     * @return the slot now mapped to the id; a different slot means {@code id} was a duplicate
+     */
+    int putIfAbsent(RecognitionTable.ParsedId id, int slot) {
+        int hash = spread(id.hash());
+        return stripes[hash & (STRIPES - 1)].putIfAbsent(id, hash, slot);
+    }
+
+    int find(RecognitionTable.ParsedId id) {
+        int hash = spread(id.hash());
+        return stripes[hash & (STRIPES - 1)].find(id, hash);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private final class Stripe {
+
+        private int[] entries = newEntries(16);
+        private int size;
+
+        synchronized int putIfAbsent(RecognitionTable.ParsedId id, int hash, int slot) {
+            int existing = find(id, hash);
+            if (existing != EMPTY) {
+                return existing;
+            }
+            if ((size + 1) * 2 > entries.length) {
+                resize();
+            }
+            insert(entries, hash, slot);
+            size++;
+            return slot;
+        }
+
+        synchronized int find(RecognitionTable.ParsedId id, int hash) {
+            int mask = entries.length - 1;
+            for (int i = (hash >>> 6) & mask; ; i = (i + 1) & mask) {
+                int candidate = entries[i];
+                if (candidate == EMPTY) {
+                    return EMPTY;
+                }
+                if (table.idEquals(candidate, id)) {
+                    return candidate;
+                }
+            }
+        }
+
+        private void resize() {
+            int[] grown = newEntries(entries.length * 2);
+            for (int slot : entries) {
+                if (slot != EMPTY) {
+                    insert(grown, spread(table.idHash(slot)), slot);
+                }
+            }
+            entries = grown;
+        }
+
+        private static void insert(int[] entries, int hash, int slot) {
+            int mask = entries.length - 1;
+            int i = (hash >>> 6) & mask;
+            while (entries[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            entries[i] = slot;
+        }
+
+        private static int[] newEntries(int capacity) {
+            int[] entries = new int[capacity];
+            Arrays.fill(entries, EMPTY);
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.recognitionapi.storage;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps employee ids to dense {@code int} surrogates so each stored recognition carries two ints
+ * instead of two {@code String} references. Ids are never released; the set of employees is small
+ * and long-lived compared to the number of recognitions.
+ */
+final class IdInterner {
+
+    static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> surrogates = new ConcurrentHashMap<>();
+    private volatile String[] ids = new String[64];
+    private int next;
+
+    int intern(String id) {
+        Integer surrogate = surrogates.get(id);
+        if (surrogate != null) {
+            return surrogate;
+        }
+        synchronized (this) {
+            surrogate = surrogates.get(id);
+            if (surrogate != null) {
+                return surrogate;
+            }
+            int assigned = next++;
+            String[] current = ids;
+            if (assigned == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[assigned] = id;
+            ids = current;
+            // Published after the reverse mapping, so a surrogate is never seen before its id
+            surrogates.put(id, assigned);
+            return assigned;
+        }
+    }
+
+    int find(String id) {
+        Integer surrogate = surrogates.get(id);
+        return surrogate == null ? UNKNOWN : surrogate;
+    }
+
+    String id(int surrogate) {
+        return ids[surrogate];
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.recognitionapi.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only byte arena for message text (and ids that are not UUIDs), stored as UTF-8 in
+ * fixed-size chunks that are either heap arrays or direct (off-heap) buffers.
+ * <p>
+ * An address packs the chunk index in the high 32 bits and the offset in the low 32 bits.
+ * Space is reserved under a short lock; the bytes are copied outside it. Readers only reach an
+ * address through a published index entry, which orders the copy before the read.
+ */
+final class MessageArena {
+
+    private final int chunkBytes;
+    private final boolean offHeap;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[16];
+    private int chunkCount;
+    private int offset;
+    private long bytesUsed;
+
+    MessageArena(int chunkBytes, boolean offHeap) {
+        this.chunkBytes = chunkBytes;
+        this.offHeap = offHeap;
+    }
+
+    long append(byte[] bytes) {
+        checkFits(bytes.length);
+        ByteBuffer chunk;
+        int position;
+        int index;
+        synchronized (this) {
+            if (chunkCount == 0 || offset + bytes.length > chunkBytes) {
+                addChunk();
+            }
+            index = chunkCount - 1;
+            chunk = chunks[index];
+            position = offset;
+            offset += bytes.length;
+            bytesUsed += bytes.length;
+        }
+        chunk.put(position, bytes);
+        return ((long) index << 32) | position;
+    }
+
+    boolean fits(long length) {
+        return length <= chunkBytes;
+    }
+
+    /** Throws what {@link #append} would for {@code length} bytes, before anything is stored. */
+    void checkFits(long length) {
+        if (!fits(length)) {
+            throw new IllegalArgumentException("Message is too long: " + length + " bytes (limit " + chunkBytes + ").");
+        }
+    }
+
+    String read(long address, int length) {
+        return new String(bytes(address, length), StandardCharsets.UTF_8);
+    }
+
+    byte[] bytes(long address, int length) {
+        byte[] bytes = new byte[length];
+        chunks[(int) (address >>> 32)].get((int) address, bytes);
+        return bytes;
+    }
+
+    boolean equals(long address, int length, byte[] other) {
+        if (length != other.length) {
+            return false;
+        }
+        ByteBuffer chunk = chunks[(int) (address >>> 32)];
+        int position = (int) address;
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(position + i) != other[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized long bytesUsed() {
+        return bytesUsed;
+    }
+
+    synchronized long bytesReserved() {
+        return (long) chunkCount * chunkBytes;
+    }
+
+    private void addChunk() {
+        ByteBuffer[] current = chunks;
+        if (chunkCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[chunkCount++] = offHeap ? ByteBuffer.allocateDirect(chunkBytes) : ByteBuffer.allocate(chunkBytes);
+        chunks = current;
+        offset = 0;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.recognitionapi.storage;
+
+import java.util.Arrays;
+
+/**
+ * The slots containing one term, in increasing slot order, each with a packed int of per-document
+ * scoring data.
+ * <p>
+ * Postings are compressed in blocks of {@link #BLOCK_SIZE}. Within a block, slots are stored as
+ * varint deltas, followed by the varint scoring data. The first and last slot of every block are
+ * kept uncompressed as skip entries, so {@link Reader#seek} can jump over whole blocks during an
+ * intersection. The newest postings sit in an uncompressed tail until a block's worth has
+ * accumulated.
+ * <p>
+ * Publication follows {@link SlotList}: one writer at a time, with readers working lock-free on
+ * an immutable {@link State}. Slots normally arrive in increasing order and are written past the
+ * published end. A slot that arrives late is inserted into a copy of the tail. The rare slot
+ * older than the last compressed block rebuilds the list.
+ */
+final class PostingList {
+
+    static final int BLOCK_SIZE = 128;
+
+    record State(int blocks, int[] blockFirst, int[] blockLast, int[] blockOffset, byte[] data, int dataSize,
+                 int[] tailSlots, int[] tailInfo, int tailSize) {
+
+        int size() {
+            return blocks * BLOCK_SIZE + tailSize;
+        }
+    }
+
+    private volatile State state = new State(0, new int[4], new int[4], new int[4], new byte[0], 0,
+            new int[BLOCK_SIZE], new int[BLOCK_SIZE], 0);
+
+    synchronized void add(int slot, int info) {
+        State current = state;
+        if (current.blocks() > 0 && slot < current.blockLast()[current.blocks() - 1]) {
+            state = rebuild(current, slot, info);
+            return;
+        }
+
+        int[] slots = current.tailSlots();
+        int[] infos = current.tailInfo();
+        int count = current.tailSize();
+        if (count == 0 || slots[count - 1] < slot) {
+            slots[count] = slot;
+            infos[count] = info;
+        } else {
+            int position = Arrays.binarySearch(slots, 0, count, slot);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            slots = insert(slots, count, position, slot);
+            infos = insert(infos, count, position, info);
+        }
+        count++;
+
+        if (count < BLOCK_SIZE) {
+            state = new State(current.blocks(), current.blockFirst(), current.blockLast(), current.blockOffset(),
+                    current.data(), current.dataSize(), slots, infos, count);
+        } else {
+            state = appendBlock(current, slots, infos);
+        }
+    }
+
+    State snapshot() {
+        return state;
+    }
+
+    int size() {
+        return state.size();
+    }
+
+    private static State appendBlock(State current, int[] slots, int[] infos) {
+        int blocks = current.blocks();
+        int[] first = current.blockFirst();
+        int[] last = current.blockLast();
+        int[] offset = current.blockOffset();
+        if (blocks == first.length) {
+            // Growing copies; readers of the old state keep the old arrays
+            first = Arrays.copyOf(first, blocks * 2);
+            last = Arrays.copyOf(last, blocks * 2);
+            offset = Arrays.copyOf(offset, blocks * 2);
+        }
+        byte[] data = current.data();
+        int size = current.dataSize();
+        int worstCase = BLOCK_SIZE * 2 * 5;
+        if (size + worstCase > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + worstCase, data.length * 2));
+        }
+
+        first[blocks] = slots[0];
+        last[blocks] = slots[BLOCK_SIZE - 1];
+        offset[blocks] = size;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (i > 0) {
+                size = writeVarint(data, size, slots[i] - slots[i - 1]);
+            }
+            size = writeVarint(data, size, infos[i]);
+        }
+        return new State(blocks + 1, first, last, offset, data, size,
+                new int[BLOCK_SIZE], new int[BLOCK_SIZE], 0);
+    }
+
+    private static State rebuild(State current, int slot, int info) {
+        int total = current.size() + 1;
+        int[] slots = new int[total];
+        int[] infos = new int[total];
+        Reader reader = new Reader(current);
+        int n = 0;
+        boolean placed = false;
+        for (int target = 0; reader.seek(target); target = reader.slot() + 1) {
+            if (!placed && slot <= reader.slot()) {
+                if (slot == reader.slot()) {
+                    return current;
+                }
+                slots[n] = slot;
+                infos[n++] = info;
+                placed = true;
+            }
+            slots[n] = reader.slot();
+            infos[n++] = reader.info();
+        }
+        if (!placed) {
+            slots[n] = slot;
+            infos[n++] = info;
+        }
+
+        State rebuilt = new State(0, new int[4], new int[4], new int[4], new byte[0], 0,
+                new int[BLOCK_SIZE], new int[BLOCK_SIZE], 0);
+        int i = 0;
+        for (; i + BLOCK_SIZE <= n; i += BLOCK_SIZE) {
+            rebuilt = appendBlock(rebuilt, Arrays.copyOfRange(slots, i, i + BLOCK_SIZE),
+                    Arrays.copyOfRange(infos, i, i + BLOCK_SIZE));
+        }
+        int tail = n - i;
+        System.arraycopy(slots, i, rebuilt.tailSlots(), 0, tail);
+        System.arraycopy(infos, i, rebuilt.tailInfo(), 0, tail);
+        return new State(rebuilt.blocks(), rebuilt.blockFirst(), rebuilt.blockLast(), rebuilt.blockOffset(),
+                rebuilt.data(), rebuilt.dataSize(), rebuilt.tailSlots(), rebuilt.tailInfo(), tail);
+    }
+
+    private static int[] insert(int[] values, int count, int position, int value) {
+        int[] copy = new int[BLOCK_SIZE];
+        System.arraycopy(values, 0, copy, 0, position);
+        copy[position] = value;
+        System.arraycopy(values, position, copy, position + 1, count - position);
+        return copy;
+    }
+
+    private static int writeVarint(byte[] data, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * A forward-only cursor over one {@link State}. Decodes at most one block at a time.
+     */
+    static final class Reader {
+
+        private final State state;
+        private final int[] slots = new int[BLOCK_SIZE];
+        private final int[] infos = new int[BLOCK_SIZE];
+        // Current segment: a block index, or state.blocks() for the tail; -1 before the first seek
+        private int segment = -1;
+        private int index;
+        private boolean exhausted;
+
+        Reader(State state) {
+            this.state = state;
+        }
+
+        int size() {
+            return state.size();
+        }
+
+        int slot() {
+            return segment == state.blocks() ? state.tailSlots()[index] : slots[index];
+        }
+
+        int info() {
+            return segment == state.blocks() ? state.tailInfo()[index] : infos[index];
+        }
+
+        /**
+         * Moves to the first posting with a slot of at least {@code target}, never backwards.
+         *
+         * @return false once the list is exhausted
+         */
+        boolean seek(int target) {
+            if (exhausted) {
+                return false;
+            }
+            if (segment >= 0 && slot() >= target) {
+                return true;
+            }
+            int blocks = state.blocks();
+            // Still inside the current block?
+            if (segment >= 0 && segment < blocks && state.blockLast()[segment] >= target) {
+                while (slots[index] < target) {
+                    index++;
+                }
+                return true;
+            }
+            if (segment < blocks) {
+                int block = firstBlockEndingAtOrAfter(Math.max(segment + 1, 0), target);
+                if (block < blocks) {
+                    decode(block);
+                    while (slots[index] < target) {
+                        index++;
+                    }
+                    return true;
+                }
+                segment = blocks;
+                index = 0;
+            }
+            int position = Arrays.binarySearch(state.tailSlots(), index, state.tailSize(), target);
+            index = position >= 0 ? position : -position - 1;
+            if (index >= state.tailSize()) {
+                exhausted = true;
+                return false;
+            }
+            return true;
+        }
+
+        private int firstBlockEndingAtOrAfter(int from, int target) {
+            int low = from;
+            int high = state.blocks();
+            int[] last = state.blockLast();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (last[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void decode(int block) {
+            byte[] data = state.data();
+            int offset = state.blockOffset()[block];
+            int slot = state.blockFirst()[block];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                if (i > 0) {
+                    int delta = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = data[offset++];
+                        delta |= (b & 0x7F) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    slot += delta;
+                }
+                int info = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[offset++];
+                    info |= (b & 0x7F) << shift;
+                    if (b >= 0) {
+                        break;
+                    }
+                }
+                slots[i] = slot;
+                infos[i] = info;
+            }
+            segment = block;
+            index = 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.RecognitionIdGenerator;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+// Opaque pagination cursors. A cursor is the key of the last edge a client saw, so the next
+// page is a binary search into the ordered index rather than an offset scan. A time-ordered id
+// carries its own creation time, so for those rows the id alone is the key.
+public final class RecognitionCursor {
+
+    private static final byte VERSION = 2;
+    private static final byte ID_VERSION = 4;
+    private static final int BYTES = 1 + Long.BYTES * 3;
+    private static final int ID_BYTES = 1 + Long.BYTES * 2;
+
+    private RecognitionCursor() {
+    }
+
+    public static String encode(RecognitionKey key) {
+        if (RecognitionIdGenerator.isTimeOrdered(key.idHigh(), key.idLow())
+                && RecognitionIdGenerator.epochMillis(key.idHigh()) == key.createdAt()) {
+            ByteBuffer raw = ByteBuffer.allocate(ID_BYTES)
+                    .put(ID_VERSION)
+                    .putLong(key.idHigh())
+                    .putLong(key.idLow());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.array());
+        }
+        ByteBuffer raw = ByteBuffer.allocate(BYTES)
+                .put(VERSION)
+                .putLong(key.createdAt())
+                .putLong(key.idHigh())
+                .putLong(key.idLow());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.array());
+    }
+
+    public static RecognitionKey decode(String cursor) {
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (raw.length == ID_BYTES && raw[0] == ID_VERSION) {
+            ByteBuffer buffer = ByteBuffer.wrap(raw, 1, ID_BYTES - 1);
+            long idHigh = buffer.getLong();
+            long idLow = buffer.getLong();
+            if (!RecognitionIdGenerator.isTimeOrdered(idHigh, idLow)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new RecognitionKey(RecognitionIdGenerator.epochMillis(idHigh), idHigh, idLow);
+        }
+        if (raw.length != BYTES || raw[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw, 1, BYTES - 1);
+        return new RecognitionKey(buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+}
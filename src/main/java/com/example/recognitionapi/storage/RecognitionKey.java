@@ -0,0 +1,7 @@
+package com.example.recognitionapi.storage;
+
+// Sort key of every recognition index: creation time in epoch millis first, then the stored id
+// bits as a tie-breaker so two recognitions created in the same millisecond never collide. For
+// generated ids, which lead with their creation millis, this is simply the order of the ids.
+public record RecognitionKey(long createdAt, long idHigh, long idLow) {
+}
@@ -0,0 +1,318 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Compact in-memory recognition storage.
+ * <p>
+ * Recognitions are kept as primitive rows in a {@link RecognitionTable} (interned employee ids,
+ * epoch-millis timestamps, packed flags, messages in a shared {@link MessageArena}) and indexed
+ * by {@code int} slot: a global timeline plus one list per recipient and per sender, all ordered
+ * by creation time. Visibility is partitioned too: a timeline of PUBLIC recognitions and, per
+ * participant, a list of the PRIVATE recognitions they sent or received, so a viewer's feed is a
+ * merge of two lists rather than a scan that discards what they may not see. Messages are also
+ * indexed for full-text search by a {@link SearchIndex}.
+ * {@link Recognition} objects are only built when a feed is read.
+ */
+public class RecognitionStore {
+
+    public static final int DEFAULT_ARENA_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    private final IdInterner employees = new IdInterner();
+    private final MessageArena arena;
+    private final RecognitionTable table;
+    private final IdIndex ids;
+
+    private final SlotList timeline = new SlotList(1024);
+    private final Map<Integer, SlotList> byRecipient = new ConcurrentHashMap<>();
+    private final Map<Integer, SlotList> bySender = new ConcurrentHashMap<>();
+    private final SlotList publicTimeline = new SlotList(1024);
+    private final Map<Integer, SlotList> privateByParticipant = new ConcurrentHashMap<>();
+    private final SearchIndex search = new SearchIndex();
+
+    public RecognitionStore() {
+        this(DEFAULT_ARENA_CHUNK_BYTES, false);
+    }
+
+    public RecognitionStore(int arenaChunkBytes, boolean offHeap) {
+        this.arena = new MessageArena(arenaChunkBytes, offHeap);
+        this.table = new RecognitionTable(employees, arena);
+        this.ids = new IdIndex(table);
+    }
+
+    /**
+     * Stores and indexes a recognition. Ids are unique: saving an id that is already stored is a no-op.
+     *
+     * @return false if a recognition with the same id was already stored
+     */
+    public boolean add(Recognition recognition) {
+        RecognitionTable.ParsedId id = RecognitionTable.ParsedId.of(recognition.id());
+        if (ids.find(id) >= 0) {
+            return false;
+        }
+        table.checkFits(recognition, id);
+        int slot = table.insert(recognition, id);
+        if (ids.putIfAbsent(id, slot) != slot) {
+            // A concurrent save of the same id won; this row is never published
+            return false;
+        }
+        timeline.add(slot, table);
+        byRecipient.computeIfAbsent(table.recipient(slot), k -> new SlotList(4)).add(slot, table);
+        bySender.computeIfAbsent(table.sender(slot), k -> new SlotList(4)).add(slot, table);
+        if (isPrivate(slot)) {
+            for (int participant : participants(slot)) {
+                privateByParticipant.computeIfAbsent(participant, k -> new SlotList(4)).add(slot, table);
+            }
+        } else {
+            publicTimeline.add(slot, table);
+        }
+        search.add(slot, recognition.message());
+        return true;
+    }
+
+    /**
+     * Stores a batch in one pass. Rows are inserted in creation order, then each index list takes
+     * the whole batch at once, so a batch of older recognitions (an import of history) costs one
+     * merge per list rather than one copy per recognition.
+     *
+     * @return the recognitions that were added, in creation order; ids already stored are skipped
+     * @throws IllegalArgumentException if a row is too large to store; nothing in the batch is then stored
+     */
+    public List<Recognition> addAll(Collection<Recognition> recognitions) {
+        List<Recognition> ordered = new ArrayList<>(recognitions);
+        ordered.sort(Comparator.comparingLong((Recognition recognition) -> recognition.createdAt().toEpochMilli())
+                .thenComparing(Recognition::id));
+
+        // Every row is checked before any is stored: a row in the id index but in no list could never be read
+        RecognitionTable.ParsedId[] parsed = new RecognitionTable.ParsedId[ordered.size()];
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = RecognitionTable.ParsedId.of(ordered.get(i).id());
+            table.checkFits(ordered.get(i), parsed[i]);
+        }
+
+        List<Recognition> added = new ArrayList<>(ordered.size());
+        SlotList batch = new SlotList(ordered.size());
+        Map<Integer, SlotList> batchByRecipient = new HashMap<>();
+        Map<Integer, SlotList> batchBySender = new HashMap<>();
+        SlotList batchPublic = new SlotList(ordered.size());
+        Map<Integer, SlotList> batchPrivate = new HashMap<>();
+        for (int i = 0; i < parsed.length; i++) {
+            Recognition recognition = ordered.get(i);
+            RecognitionTable.ParsedId id = parsed[i];
+            if (ids.find(id) >= 0) {
+                continue;
+            }
+            int slot = table.insert(recognition, id);
+            if (ids.putIfAbsent(id, slot) != slot) {
+                continue;
+            }
+            // Batch lists are local and filled in creation order, so these are plain appends
+            batch.add(slot, table);
+            batchByRecipient.computeIfAbsent(table.recipient(slot), k -> new SlotList(4)).add(slot, table);
+            batchBySender.computeIfAbsent(table.sender(slot), k -> new SlotList(4)).add(slot, table);
+            if (isPrivate(slot)) {
+                for (int participant : participants(slot)) {
+                    batchPrivate.computeIfAbsent(participant, k -> new SlotList(4)).add(slot, table);
+                }
+            } else {
+                batchPublic.add(slot, table);
+            }
+            search.add(slot, recognition.message());
+            added.add(recognition);
+        }
+
+        timeline.addAll(batch.view(), table);
+        batchByRecipient.forEach((recipient, slots) ->
+                byRecipient.computeIfAbsent(recipient, k -> new SlotList(4)).addAll(slots.view(), table));
+        batchBySender.forEach((sender, slots) ->
+                bySender.computeIfAbsent(sender, k -> new SlotList(4)).addAll(slots.view(), table));
+        publicTimeline.addAll(batchPublic.view(), table);
+        batchPrivate.forEach((participant, slots) ->
+                privateByParticipant.computeIfAbsent(participant, k -> new SlotList(4)).addAll(slots.view(), table));
+        return added;
+    }
+
+    private boolean isPrivate(int slot) {
+        return (table.flags(slot) & RecognitionTable.FLAG_PRIVATE) != 0;
+    }
+
+    // Sender and recipient, once each, so a private list never holds a slot twice
+    private int[] participants(int slot) {
+        int sender = table.sender(slot);
+        int recipient = table.recipient(slot);
+        return sender == recipient ? new int[] {sender} : new int[] {sender, recipient};
+    }
+
+    public int size() {
+        return timeline.size();
+    }
+
+    public Feed timeline() {
+        return new Feed(table, timeline.view());
+    }
+
+    public Feed receivedBy(String employeeId) {
+        return feed(byRecipient, employeeId);
+    }
+
+    public Feed sentBy(String employeeId) {
+        return feed(bySender, employeeId);
+    }
+
+    /**
+     * The timeline as {@code viewerId} may see it: every PUBLIC recognition merged with the PRIVATE
+     * ones they sent or received, or everything if {@code seesPrivate}. Reading it never touches a
+     * private recognition the viewer cannot see.
+     */
+    public Feed timelineVisibleTo(String viewerId, boolean seesPrivate) {
+        if (seesPrivate) {
+            return timeline();
+        }
+        int viewer = employees.find(viewerId);
+        SlotList own = viewer == IdInterner.UNKNOWN ? null : privateByParticipant.get(viewer);
+        SlotList.View ownView = own == null ? SlotList.View.EMPTY : own.view();
+        return new Feed(table, new SlotList.View[] {publicTimeline.view(), ownView}, null);
+    }
+
+    /**
+     * Recognitions received by {@code recipientId} that {@code viewerId} may see. The recipient sees
+     * all of them, as does a viewer who {@code seesPrivate}; anyone else sees the PUBLIC ones and the
+     * PRIVATE ones they sent. That check reads the flag and sender columns only, so hidden rows are
+     * skipped without being materialized.
+     */
+    public Feed receivedByVisibleTo(String recipientId, String viewerId, boolean seesPrivate) {
+        if (seesPrivate || recipientId.equals(viewerId)) {
+            return receivedBy(recipientId);
+        }
+        int recipient = employees.find(recipientId);
+        SlotList list = recipient == IdInterner.UNKNOWN ? null : byRecipient.get(recipient);
+        if (list == null) {
+            return new Feed(table, SlotList.View.EMPTY);
+        }
+        int viewer = employees.find(viewerId);
+        return new Feed(table, new SlotList.View[] {list.view()},
+                slot -> !isPrivate(slot) || (viewer != IdInterner.UNKNOWN && table.sender(slot) == viewer));
+    }
+
+    /**
+     * Recognitions whose message contains every term of {@code query}, most relevant first and
+     * newest first among equals. PRIVATE recognitions are skipped during the posting-list
+     * intersection unless {@code seesPrivate} is set or {@code viewerId} sent or received them.
+     */
+    public RecognitionConnection search(String query, int pageSize, String after, String viewerId, boolean seesPrivate) {
+        SearchCursor.Position position = after == null ? null : SearchCursor.decode(after);
+        if (pageSize == 0) {
+            return RecognitionConnection.empty();
+        }
+        return SearchIndex.page(matches(query, pageSize + 1, position, viewerId, seesPrivate), pageSize, after);
+    }
+
+    /** The best {@code limit} matches after {@code after} (null for the first), best first. */
+    List<SearchIndex.Match> matches(String query, int limit, SearchCursor.Position after, String viewerId,
+                                    boolean seesPrivate) {
+        int viewer = viewerId == null ? IdInterner.UNKNOWN : employees.find(viewerId);
+        IntPredicate visible = slot -> seesPrivate
+                || (table.flags(slot) & RecognitionTable.FLAG_PRIVATE) == 0
+                || table.sender(slot) == viewer
+                || table.recipient(slot) == viewer;
+
+        List<SearchIndex.Match> matches = new ArrayList<>();
+        for (SearchIndex.Hit hit : search.search(query, limit, after, visible, table)) {
+            matches.add(new SearchIndex.Match(hit.score(), table.key(hit.slot()), table.materialize(hit.slot())));
+        }
+        return matches;
+    }
+
+    /**
+     * Every stored recognition, oldest first, materialized one at a time.
+     */
+    public Iterable<Recognition> all() {
+        return between(Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Recognitions created in {@code [fromMillis, toMillis)}, oldest first, over a snapshot of the
+     * timeline taken when iteration starts. The range bounds are binary searches. With
+     * {@code participantIds}, only recognitions sent or received by one of them are returned, and
+     * that check reads the interned ids, so skipped rows are never materialized.
+     */
+    public Iterable<Recognition> between(long fromMillis, long toMillis, Collection<String> participantIds) {
+        IntPredicate included;
+        if (participantIds == null) {
+            included = slot -> true;
+        } else {
+            BitSet participants = new BitSet();
+            for (String id : participantIds) {
+                int surrogate = employees.find(id);
+                if (surrogate != IdInterner.UNKNOWN) {
+                    participants.set(surrogate);
+                }
+            }
+            included = slot -> participants.get(table.sender(slot)) || participants.get(table.recipient(slot));
+        }
+        return rows(fromMillis, toMillis, included);
+    }
+
+    /**
+     * Slots handed out so far. Every slot below it belongs to a recognition that is stored, or
+     * skipped as a duplicate, once the adds in flight when it was read have returned.
+     */
+    int mark() {
+        return table.size();
+    }
+
+    // Rows in [fromMillis, toMillis) whose slot passes the check, oldest first; for migrations
+    Iterable<Recognition> rows(long fromMillis, long toMillis, IntPredicate included) {
+        return () -> {
+            SlotList.View view = timeline.view();
+            int start = view.lowerBound(new RecognitionKey(fromMillis, Long.MIN_VALUE, Long.MIN_VALUE), table);
+            int end = toMillis == Long.MAX_VALUE
+                    ? view.size()
+                    : view.lowerBound(new RecognitionKey(toMillis, Long.MIN_VALUE, Long.MIN_VALUE), table);
+            return new Iterator<>() {
+                private int next = advance(start);
+
+                private int advance(int from) {
+                    while (from < end && !included.test(view.get(from))) {
+                        from++;
+                    }
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public Recognition next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Recognition recognition = table.materialize(view.get(next));
+                    next = advance(next + 1);
+                    return recognition;
+                }
+            };
+        };
+    }
+
+    private Feed feed(Map<Integer, SlotList> index, String employeeId) {
+        int employee = employees.find(employeeId);
+        SlotList list = employee == IdInterner.UNKNOWN ? null : index.get(employee);
+        return new Feed(table, list == null ? SlotList.View.EMPTY : list.view());
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Column-oriented recognition rows addressed by an {@code int} slot.
+ * <p>
+ * Per row: the id as two longs (UUID bits, or for other ids the same FNV-1a hash and length
+ * that {@link ColdSegment} keys them by, so both tiers order them alike), the arena address of
+ * a non-UUID id's text, creation time as epoch millis, sender and recipient as interned ints,
+ * the message's arena address and length, and a flags byte for visibility, anonymity and the
+ * id encoding. That is 53 bytes plus the UTF-8 message and id, against several hundred bytes
+ * for a {@link Recognition} object graph.
+ * <p>
+ * Rows live in fixed-size chunks allocated on demand. A row is written once, before its slot
+ * is published through an index, and never modified afterwards.
+ */
+final class RecognitionTable {
+
+    static final int FLAG_PRIVATE = 1;
+    static final int FLAG_ANONYMOUS = 1 << 1;
+    static final int FLAG_UUID_ID = 1 << 2;
+
+    static final int ROW_BYTES = Long.BYTES * 5 + Integer.BYTES * 3 + 1;
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    private static final class Chunk {
+        final long[] idHigh = new long[CHUNK_ROWS];
+        final long[] idLow = new long[CHUNK_ROWS];
+        final long[] idAddress = new long[CHUNK_ROWS];
+        final long[] createdAt = new long[CHUNK_ROWS];
+        final long[] messageAddress = new long[CHUNK_ROWS];
+        final int[] messageLength = new int[CHUNK_ROWS];
+        final int[] sender = new int[CHUNK_ROWS];
+        final int[] recipient = new int[CHUNK_ROWS];
+        final byte[] flags = new byte[CHUNK_ROWS];
+    }
+
+    /**
+     * A recognition id parsed once for hashing and comparison against stored rows.
+     * {@code utf8} is null when the id is a UUID held entirely in {@code high}/{@code low};
+     * otherwise {@code high}/{@code low} are the {@link #textKey} and length of its UTF-8 bytes.
+     */
+    record ParsedId(long high, long low, byte[] utf8) {
+
+        static ParsedId of(String id) {
+            if (id.length() == 36) {
+                try {
+                    UUID uuid = UUID.fromString(id);
+                    return new ParsedId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), null);
+                } catch (IllegalArgumentException e) {
+                    // Not a UUID after all; stored as text below
+                }
+            }
+            byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+            return new ParsedId(textKey(utf8, 0, utf8.length), utf8.length, utf8);
+        }
+
+        int hash() {
+            return hash(high, low);
+        }
+
+        static int hash(long high, long low) {
+            return Long.hashCode(high * 0x9E3779B97F4A7C15L ^ low);
+        }
+    }
+
+    // FNV-1a over the UTF-8 bytes of a non-UUID id: derived from the id alone, so a row sorts the
+    // same however and wherever it was stored
+    static long textKey(byte[] utf8, int offset, int length) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (utf8[i] & 0xFF)) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final IdInterner employees;
+    private final MessageArena arena;
+    private volatile Chunk[] chunks = new Chunk[64];
+
+    RecognitionTable(IdInterner employees, MessageArena arena) {
+        this.employees = employees;
+        this.arena = arena;
+    }
+
+    /**
+     * Throws what {@link #insert} would for a row too large for the arena, without reserving a
+     * slot, so a batch can be rejected before any of it is stored.
+     */
+    void checkFits(Recognition recognition, ParsedId id) {
+        if (id.utf8() != null) {
+            arena.checkFits(id.utf8().length);
+        }
+        // UTF-8 needs at most three bytes per char, so only very long messages are encoded to check
+        String message = recognition.message();
+        if (!arena.fits(message.length() * 3L)) {
+            arena.checkFits(message.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    int insert(Recognition recognition, ParsedId id) {
+        int slot = nextSlot.getAndIncrement();
+        Chunk chunk = chunkFor(slot);
+        int row = slot & CHUNK_MASK;
+
+        int flags = 0;
+        chunk.idHigh[row] = id.high();
+        chunk.idLow[row] = id.low();
+        if (id.utf8() == null) {
+            flags |= FLAG_UUID_ID;
+        } else {
+            chunk.idAddress[row] = arena.append(id.utf8());
+        }
+        if (recognition.visibility() == Visibility.PRIVATE) {
+            flags |= FLAG_PRIVATE;
+        }
+        if (recognition.isAnonymous()) {
+            flags |= FLAG_ANONYMOUS;
+        }
+        byte[] message = recognition.message().getBytes(StandardCharsets.UTF_8);
+        chunk.messageAddress[row] = arena.append(message);
+        chunk.messageLength[row] = message.length;
+        chunk.createdAt[row] = recognition.createdAt().toEpochMilli();
+        chunk.sender[row] = employees.intern(recognition.senderId());
+        chunk.recipient[row] = employees.intern(recognition.recipientId());
+        chunk.flags[row] = (byte) flags;
+        return slot;
+    }
+
+    int size() {
+        return nextSlot.get();
+    }
+
+    Recognition materialize(int slot) {
+        Chunk chunk = chunk(slot);
+        int row = slot & CHUNK_MASK;
+        int flags = chunk.flags[row];
+        return new Recognition(
+                id(chunk, row, flags),
+                employees.id(chunk.sender[row]),
+                employees.id(chunk.recipient[row]),
+                arena.read(chunk.messageAddress[row], chunk.messageLength[row]),
+                (flags & FLAG_PRIVATE) != 0 ? Visibility.PRIVATE : Visibility.PUBLIC,
+                (flags & FLAG_ANONYMOUS) != 0,
+                Instant.ofEpochMilli(chunk.createdAt[row])
+        );
+    }
+
+    long createdAt(int slot) {
+        return chunk(slot).createdAt[slot & CHUNK_MASK];
+    }
+
+    long idHigh(int slot) {
+        return chunk(slot).idHigh[slot & CHUNK_MASK];
+    }
+
+    long idLow(int slot) {
+        return chunk(slot).idLow[slot & CHUNK_MASK];
+    }
+
+    int sender(int slot) {
+        return chunk(slot).sender[slot & CHUNK_MASK];
+    }
+
+    int recipient(int slot) {
+        return chunk(slot).recipient[slot & CHUNK_MASK];
+    }
+
+    int flags(int slot) {
+        return chunk(slot).flags[slot & CHUNK_MASK];
+    }
+
+    boolean idEquals(int slot, ParsedId id) {
+        Chunk chunk = chunk(slot);
+        int row = slot & CHUNK_MASK;
+        boolean uuid = (chunk.flags[row] & FLAG_UUID_ID) != 0;
+        if (uuid != (id.utf8() == null) || chunk.idHigh[row] != id.high() || chunk.idLow[row] != id.low()) {
+            return false;
+        }
+        return uuid || arena.equals(chunk.idAddress[row], (int) chunk.idLow[row], id.utf8());
+    }
+
+    int idHash(int slot) {
+        Chunk chunk = chunk(slot);
+        int row = slot & CHUNK_MASK;
+        return ParsedId.hash(chunk.idHigh[row], chunk.idLow[row]);
+    }
+
+    /**
+     * Orders slots by creation time, then by the stored id bits, which is the order of every index.
+     */
+    int compare(int left, int right) {
+        int order = Long.compare(createdAt(left), createdAt(right));
+        if (order != 0) {
+            return order;
+        }
+        order = Long.compare(idHigh(left), idHigh(right));
+        return order != 0 ? order : Long.compare(idLow(left), idLow(right));
+    }
+
+    int compare(int slot, RecognitionKey key) {
+        int order = Long.compare(createdAt(slot), key.createdAt());
+        if (order != 0) {
+            return order;
+        }
+        order = Long.compare(idHigh(slot), key.idHigh());
+        return order != 0 ? order : Long.compare(idLow(slot), key.idLow());
+    }
+
+    RecognitionKey key(int slot) {
+        return new RecognitionKey(createdAt(slot), idHigh(slot), idLow(slot));
+    }
+
+    long bytesReserved() {
+        Chunk[] current = chunks;
+        long allocated = 0;
+        for (Chunk chunk : current) {
+            if (chunk != null) {
+                allocated++;
+            }
+        }
+        return allocated * CHUNK_ROWS * ROW_BYTES;
+    }
+
+    private String id(Chunk chunk, int row, int flags) {
+        if ((flags & FLAG_UUID_ID) != 0) {
+            return new UUID(chunk.idHigh[row], chunk.idLow[row]).toString();
+        }
+        return arena.read(chunk.idAddress[row], (int) chunk.idLow[row]);
+    }
+
+    private Chunk chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private Chunk chunkFor(int slot) {
+        int index = slot >>> CHUNK_SHIFT;
+        Chunk[] current = chunks;
+        if (index < current.length && current[index] != null) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, index + 1));
+            }
+            if (current[index] == null) {
+                current[index] = new Chunk();
+            }
+            chunks = current;
+            return current[index];
+        }
+    }
+}
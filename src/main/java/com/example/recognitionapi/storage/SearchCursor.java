@@ -0,0 +1,44 @@
+package com.example.recognitionapi.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+// Opaque search cursors: the relevance score and key of the last hit a client saw. Scores depend
+// only on the document and the query, so the ranking, and with it the cursor, stays stable as new
+// recognitions are indexed.
+public final class SearchCursor {
+
+    private static final byte VERSION = 3;
+    private static final int BYTES = 1 + Double.BYTES + Long.BYTES * 3;
+
+    record Position(double score, RecognitionKey key) {
+    }
+
+    private SearchCursor() {
+    }
+
+    static String encode(double score, RecognitionKey key) {
+        ByteBuffer raw = ByteBuffer.allocate(BYTES)
+                .put(VERSION)
+                .putDouble(score)
+                .putLong(key.createdAt())
+                .putLong(key.idHigh())
+                .putLong(key.idLow());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.array());
+    }
+
+    static Position decode(String cursor) {
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (raw.length != BYTES || raw[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw, 1, BYTES - 1);
+        double score = buffer.getDouble();
+        return new Position(score, new RecognitionKey(buffer.getLong(), buffer.getLong(), buffer.getLong()));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionEdge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Inverted index over recognition messages: one {@link PostingList} of slots per term.
+ * <p>
+ * A query matches recognitions containing every query term. Lists are intersected rarest first
+ * by leapfrogging: each list seeks to the current candidate, skipping whole compressed blocks.
+ * The visibility check runs on each intersected slot before it is scored, reading the table's
+ * columns rather than materializing the recognition.
+ * <p>
+ * Ranking is BM25 with a fixed reference document length and no IDF. Every hit contains every
+ * term, so IDF would not change the order. Leaving out corpus statistics keeps a hit's score,
+ * and so a search cursor, stable while new recognitions arrive. For the same reason a hit's
+ * score is summed in query-term order, so {@link #score} gives a row in a cold segment exactly
+ * the score it had here.
+ */
+final class SearchIndex {
+
+    record Hit(int slot, double score) {
+    }
+
+    /** A hit from either tier, ready to be paged. */
+    record Match(double score, RecognitionKey key, Recognition recognition) {
+    }
+
+    /** Best first: higher score, then newer key. */
+    static final Comparator<Match> BEST_FIRST = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(Match::key, Comparator.comparingLong(RecognitionKey::createdAt)
+                    .thenComparingLong(RecognitionKey::idHigh)
+                    .thenComparingLong(RecognitionKey::idLow)
+                    .reversed());
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double REFERENCE_LENGTH = 12;
+    private static final int MAX_TF = 15;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    void add(int slot, String message) {
+        Map<String, Integer> terms = Tokenizer.terms(message);
+        int length = 0;
+        for (int frequency : terms.values()) {
+            length += frequency;
+        }
+        for (Map.Entry<String, Integer> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new PostingList()).add(slot, info(length, term.getValue()));
+        }
+    }
+
+    /**
+     * The score a message with these term frequencies gets for {@code queryTerms}, or -1 if it
+     * lacks one of them; what {@link #search} scores the same message.
+     */
+    static double score(Map<String, Integer> messageTerms, List<String> queryTerms) {
+        int length = 0;
+        for (int frequency : messageTerms.values()) {
+            length += frequency;
+        }
+        double score = 0;
+        for (String term : queryTerms) {
+            Integer frequency = messageTerms.get(term);
+            if (frequency == null) {
+                return -1;
+            }
+            score += termScore(info(length, frequency));
+        }
+        return score;
+    }
+
+    /** One page of the best matches after the cursor, best first; {@code matches} may hold more. */
+    static RecognitionConnection page(List<Match> matches, int pageSize, String after) {
+        List<Match> sorted = new ArrayList<>(matches);
+        sorted.sort(BEST_FIRST);
+        int count = Math.min(sorted.size(), pageSize);
+        List<RecognitionEdge> edges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Match match = sorted.get(i);
+            edges.add(new RecognitionEdge(SearchCursor.encode(match.score(), match.key()), match.recognition()));
+        }
+        return RecognitionConnection.of(edges, sorted.size() > pageSize, after != null);
+    }
+
+    int terms() {
+        return postings.size();
+    }
+
+    /**
+     * The best {@code limit} hits ordered after {@code after} (null for the first page), best first.
+     */
+    List<Hit> search(String query, int limit, SearchCursor.Position after, IntPredicate visible,
+                     RecognitionTable table) {
+        Collection<String> terms = Tokenizer.terms(query).keySet();
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // In query-term order; intersected rarest first
+        PostingList.Reader[] readers = new PostingList.Reader[terms.size()];
+        int n = 0;
+        for (String term : terms) {
+            PostingList list = postings.get(term);
+            if (list == null) {
+                return List.of();
+            }
+            readers[n++] = new PostingList.Reader(list.snapshot());
+        }
+        Integer[] rarestFirst = new Integer[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            rarestFirst[i] = i;
+        }
+        Arrays.sort(rarestFirst, Comparator.comparingInt(i -> readers[i].size()));
+        PostingList.Reader rarest = readers[rarestFirst[0]];
+
+        Comparator<Hit> bestFirst = (left, right) -> left.score() != right.score()
+                ? Double.compare(right.score(), left.score())
+                : table.compare(right.slot(), left.slot());
+        // Worst hit at the head, so the heap holds the best `limit` seen so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, bestFirst.reversed());
+
+        int target = 0;
+        candidates:
+        while (rarest.seek(target)) {
+            int candidate = rarest.slot();
+            for (int i = 1; i < rarestFirst.length; i++) {
+                PostingList.Reader reader = readers[rarestFirst[i]];
+                if (!reader.seek(candidate)) {
+                    break candidates;
+                }
+                int slot = reader.slot();
+                if (slot != candidate) {
+                    target = slot;
+                    continue candidates;
+                }
+            }
+            target = candidate + 1;
+            double score = 0;
+            for (PostingList.Reader reader : readers) {
+                score += termScore(reader.info());
+            }
+
+            if (!visible.test(candidate) || !isAfter(candidate, score, after, table)) {
+                continue;
+            }
+            Hit hit = new Hit(candidate, score);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (bestFirst.compare(hit, best.peek()) < 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(bestFirst);
+        return hits;
+    }
+
+    private static boolean isAfter(int slot, double score, SearchCursor.Position after, RecognitionTable table) {
+        if (after == null) {
+            return true;
+        }
+        return score < after.score() || score == after.score() && table.compare(slot, after.key()) < 0;
+    }
+
+    private static int info(int length, int frequency) {
+        return Math.min(length, 1 << 27) << 4 | Math.min(frequency, MAX_TF);
+    }
+
+    private static double termScore(int info) {
+        int frequency = info & MAX_TF;
+        int length = info >>> 4;
+        return frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / REFERENCE_LENGTH));
+    }
+}
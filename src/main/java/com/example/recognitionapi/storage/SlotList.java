@@ -0,0 +1,144 @@
+package com.example.recognitionapi.storage;
+
+import java.util.Arrays;
+
+/**
+ * A sorted list of slots, the storage behind every recognition index: four bytes per entry.
+ * <p>
+ * Writers are serialized on the list. Appending in order (the common case, since slots are
+ * stored moments after they are created) writes past the end and then publishes the new size;
+ * an out-of-order insert publishes a fresh copy. Readers never lock: they read the size, then
+ * the array, and always see a sorted prefix of the list.
+ */
+final class SlotList {
+
+    private volatile int[] slots;
+    private volatile int size;
+
+    SlotList(int initialCapacity) {
+        slots = new int[initialCapacity];
+    }
+
+    synchronized void add(int slot, RecognitionTable table) {
+        int[] current = slots;
+        int count = size;
+        if (count == 0 || table.compare(current[count - 1], slot) <= 0) {
+            if (count == current.length) {
+                current = Arrays.copyOf(current, grow(count));
+                current[count] = slot;
+                slots = current;
+            } else {
+                current[count] = slot;
+            }
+            size = count + 1;
+            return;
+        }
+
+        int position = insertionPoint(current, 0, count, slot, table);
+        int[] copy = new int[count == current.length ? grow(count) : current.length];
+        System.arraycopy(current, 0, copy, 0, position);
+        copy[position] = slot;
+        System.arraycopy(current, position, copy, position + 1, count - position);
+        slots = copy;
+        size = count + 1;
+    }
+
+    /**
+     * Adds a sorted batch with at most one copy: appended in place when it sorts after the current
+     * tail, otherwise merged into a fresh array, instead of one copy per out-of-order slot.
+     */
+    synchronized void addAll(View batch, RecognitionTable table) {
+        int[] current = slots;
+        int count = size;
+        int added = batch.size();
+        if (added == 0) {
+            return;
+        }
+        int capacity = count + added > current.length ? Math.max(grow(count), count + added) : current.length;
+        if (count == 0 || table.compare(current[count - 1], batch.get(0)) <= 0) {
+            if (capacity != current.length) {
+                current = Arrays.copyOf(current, capacity);
+                System.arraycopy(batch.slots(), 0, current, count, added);
+                slots = current;
+            } else {
+                System.arraycopy(batch.slots(), 0, current, count, added);
+            }
+            size = count + added;
+            return;
+        }
+
+        // Binary-search each batch slot's position and bulk-copy the runs of existing entries between
+        // them: O(batch * log size) comparisons, instead of comparing every existing entry
+        int[] merged = new int[capacity];
+        int from = 0;
+        int k = 0;
+        for (int j = 0; j < added; j++) {
+            int slot = batch.get(j);
+            int position = from + insertionPoint(current, from, count, slot, table);
+            System.arraycopy(current, from, merged, k, position - from);
+            k += position - from;
+            merged[k++] = slot;
+            from = position;
+        }
+        System.arraycopy(current, from, merged, k, count - from);
+        slots = merged;
+        size = count + added;
+    }
+
+    View view() {
+        int count = size;
+        return new View(slots, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Position after every entry in [from, to) not ordered after slot, relative to from
+    private static int insertionPoint(int[] slots, int from, int to, int slot, RecognitionTable table) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (table.compare(slots[middle], slot) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - from;
+    }
+
+    private static int grow(int count) {
+        return Math.max(4, count + (count >> 1));
+    }
+
+    /**
+     * An immutable, sorted (oldest first) snapshot of the list.
+     */
+    record View(int[] slots, int size) {
+
+        static final View EMPTY = new View(new int[0], 0);
+
+        int get(int index) {
+            return slots[index];
+        }
+
+        /**
+         * Index of the first entry not ordered before {@code key}, or {@link #size()} if there is none.
+         */
+        int lowerBound(RecognitionKey key, RecognitionTable table) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (table.compare(slots[middle], key) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
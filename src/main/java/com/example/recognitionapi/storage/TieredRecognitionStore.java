@@ -0,0 +1,508 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Recognition storage in two tiers: a {@link RecognitionStore} for the hot window, the last
+ * {@code hotWindow} of recognitions where nearly every read falls, and immutable
+ * {@link ColdSegment} files for everything older. Feeds, pages and range reads merge both tiers
+ * by key, so callers cannot tell where a recognition lives. So does full-text search, which
+ * scans the cold blocks whose term filters may match.
+ * <p>
+ * A migration writes the recognitions that have aged out to new segments, builds a fresh hot
+ * store with the rest, and then publishes both as one generation. Only that last step, and
+ * reading where it starts, hold off adds; everything else runs beside them. Readers never lock.
+ * A read takes one generation, and the hot store and segments in it never overlap. While a
+ * migration builds, the hot window is held twice on the heap.
+ * <p>
+ * Segments are written and forced to disk before they are published, so they are the durable
+ * copy of what they hold: {@link #hot()} is what a log snapshot needs. A recognition replayed or
+ * imported again after it moved is recognized by its id and creation time and not stored twice.
+ * <p>
+ * Built around a single store, with no segment directory, this is that store alone and never migrates.
+ */
+public class TieredRecognitionStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredRecognitionStore.class);
+
+    // Rows copied into the new hot store per addAll call
+    private static final int COPY_BATCH = 10_000;
+
+    private final Supplier<RecognitionStore> newHot;
+    private final ColdTier cold;
+    private final long hotWindowMillis;
+    private final Clock clock;
+
+    // Adds hold it shared; a migration holds it exclusively for two short moments
+    private final ReentrantReadWriteLock adds = new ReentrantReadWriteLock();
+    private final Object migrating = new Object();
+    private final LongAdder migrated = new LongAdder();
+
+    private volatile Generation generation;
+    private ScheduledExecutorService migrations;
+
+    public TieredRecognitionStore(RecognitionStore hot) {
+        this(null, null, Duration.ZERO, Clock.systemUTC(), hot, List.of());
+    }
+
+    private TieredRecognitionStore(Supplier<RecognitionStore> newHot, ColdTier cold, Duration hotWindow, Clock clock,
+                                   RecognitionStore hot, List<ColdSegment> segments) {
+        this.newHot = newHot;
+        this.cold = cold;
+        this.hotWindowMillis = hotWindow.toMillis();
+        this.clock = clock;
+        this.generation = Generation.of(hot, segments);
+    }
+
+    /**
+     * Tiered storage over the segments in {@code directory}, which is created if missing.
+     *
+     * @param newHot    an empty hot store; called once now and once per migration
+     * @param hotWindow how old a recognition gets before a migration moves it to a segment
+     */
+    public static TieredRecognitionStore open(Supplier<RecognitionStore> newHot, Path directory, Duration hotWindow,
+                                              int blockCacheBlocks, Clock clock) throws IOException {
+        if (hotWindow.isNegative() || hotWindow.isZero()) {
+            throw new IllegalArgumentException("The hot window must be positive.");
+        }
+        ColdTier cold = new ColdTier(directory, blockCacheBlocks);
+        List<ColdSegment> segments = cold.open();
+        TieredRecognitionStore store = new TieredRecognitionStore(newHot, cold, hotWindow, clock, newHot.get(),
+                List.copyOf(segments));
+        log.info("Opened cold storage directory={} segments={} recognitions={} hotWindow={}", directory,
+                segments.size(), store.coldSize(), hotWindow);
+        return store;
+    }
+
+    /**
+     * Stores and indexes a recognition. Ids are unique: saving an id that is already stored, in
+     * either tier, is a no-op.
+     *
+     * @return false if a recognition with the same id was already stored
+     */
+    public boolean add(Recognition recognition) {
+        if (cold == null) {
+            return generation.hot.add(recognition);
+        }
+        Lock lock = adds.readLock();
+        lock.lock();
+        try {
+            Generation current = generation;
+            return !inCold(current, recognition) && current.hot.add(recognition);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a batch; see {@link RecognitionStore#addAll}.
+     *
+     * @return the recognitions that were added, in creation order; ids already stored are skipped
+     */
+    public List<Recognition> addAll(Collection<Recognition> recognitions) {
+        if (cold == null) {
+            return generation.hot.addAll(recognitions);
+        }
+        Lock lock = adds.readLock();
+        lock.lock();
+        try {
+            Generation current = generation;
+            Collection<Recognition> fresh = recognitions;
+            if (current.watermark != Long.MIN_VALUE) {
+                fresh = new ArrayList<>(recognitions.size());
+                for (Recognition recognition : recognitions) {
+                    if (!inCold(current, recognition)) {
+                        fresh.add(recognition);
+                    }
+                }
+            }
+            return current.hot.addAll(fresh);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Only recognitions older than the newest cutoff can be in a segment, so recent ones skip the lookup
+    private boolean inCold(Generation current, Recognition recognition) {
+        return recognition.createdAt().toEpochMilli() < current.watermark
+                && cold.contains(current.segments, recognition);
+    }
+
+    public long size() {
+        Generation current = generation;
+        return current.hot.size() + current.coldRows;
+    }
+
+    public Feed timeline() {
+        Generation current = generation;
+        return withCold(current, current.hot.timeline(), ColdSegment.ALL, null, ColdSegment.RowFilter.ANY);
+    }
+
+    public Feed receivedBy(String employeeId) {
+        Generation current = generation;
+        return withCold(current, current.hot.receivedBy(employeeId), ColdSegment.RECEIVED, employeeId,
+                (block, row) -> block.recipientId(row).equals(employeeId));
+    }
+
+    public Feed sentBy(String employeeId) {
+        Generation current = generation;
+        return withCold(current, current.hot.sentBy(employeeId), ColdSegment.SENT, employeeId,
+                (block, row) -> block.senderId(row).equals(employeeId));
+    }
+
+    /** See {@link RecognitionStore#timelineVisibleTo}; cold rows are checked as they are read. */
+    public Feed timelineVisibleTo(String viewerId, boolean seesPrivate) {
+        if (seesPrivate) {
+            return timeline();
+        }
+        Generation current = generation;
+        return withCold(current, current.hot.timelineVisibleTo(viewerId, false), ColdSegment.ALL, null,
+                (block, row) -> !block.isPrivate(row)
+                        || viewerId.equals(block.senderId(row))
+                        || viewerId.equals(block.recipientId(row)));
+    }
+
+    /** See {@link RecognitionStore#receivedByVisibleTo}. */
+    public Feed receivedByVisibleTo(String recipientId, String viewerId, boolean seesPrivate) {
+        if (seesPrivate || recipientId.equals(viewerId)) {
+            return receivedBy(recipientId);
+        }
+        Generation current = generation;
+        return withCold(current, current.hot.receivedByVisibleTo(recipientId, viewerId, false),
+                ColdSegment.RECEIVED, recipientId,
+                (block, row) -> block.recipientId(row).equals(recipientId)
+                        && (!block.isPrivate(row) || viewerId.equals(block.senderId(row))));
+    }
+
+    private Feed withCold(Generation current, Feed hot, int index, String employeeId, ColdSegment.RowFilter filter) {
+        if (current.segments.isEmpty()) {
+            return hot;
+        }
+        return hot.withCold(cold.select(current.segments, index, employeeId, filter));
+    }
+
+    /**
+     * Full-text search over both tiers; see {@link RecognitionStore#search}. Each tier gives its
+     * best hits after the cursor, one more than a page, and the page is cut from the two merged.
+     */
+    public RecognitionConnection search(String query, int pageSize, String after, String viewerId, boolean seesPrivate) {
+        Generation current = generation;
+        if (current.segments.isEmpty()) {
+            return current.hot.search(query, pageSize, after, viewerId, seesPrivate);
+        }
+        SearchCursor.Position position = after == null ? null : SearchCursor.decode(after);
+        if (pageSize == 0) {
+            return RecognitionConnection.empty();
+        }
+        List<SearchIndex.Match> matches = new ArrayList<>(
+                current.hot.matches(query, pageSize + 1, position, viewerId, seesPrivate));
+        ColdSegment.RowFilter visible = seesPrivate ? ColdSegment.RowFilter.ANY
+                : (block, row) -> !block.isPrivate(row)
+                || viewerId != null && (viewerId.equals(block.senderId(row)) || viewerId.equals(block.recipientId(row)));
+        matches.addAll(cold.search(current.segments, query, pageSize + 1, position, visible));
+        return SearchIndex.page(matches, pageSize, after);
+    }
+
+    /**
+     * Every stored recognition, oldest first, materialized one at a time.
+     */
+    public Iterable<Recognition> all() {
+        return between(Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /** The hot window only: everything the segments do not already hold on disk. */
+    public Iterable<Recognition> hot() {
+        return generation.hot.all();
+    }
+
+    /**
+     * Recognitions created in {@code [fromMillis, toMillis)}, oldest first, from both tiers; see
+     * {@link RecognitionStore#between}. Cold blocks outside the range are never read.
+     */
+    public Iterable<Recognition> between(long fromMillis, long toMillis, Collection<String> participantIds) {
+        Generation current = generation;
+        Iterable<Recognition> hot = current.hot.between(fromMillis, toMillis, participantIds);
+        if (current.segments.isEmpty()) {
+            return hot;
+        }
+        ColdSegment.RowFilter filter;
+        if (participantIds == null) {
+            filter = ColdSegment.RowFilter.ANY;
+        } else {
+            Set<String> participants = new HashSet<>(participantIds);
+            filter = (block, row) -> participants.contains(block.senderId(row))
+                    || participants.contains(block.recipientId(row));
+        }
+        return () -> new Ascending(hot.iterator(), coldWalk(current, fromMillis, filter), toMillis);
+    }
+
+    /**
+     * Recognitions in the cold tier created in {@code [fromMillis, toMillis)}, oldest first, as
+     * when counting history that is no longer replayed from the log.
+     */
+    public Iterable<Recognition> coldBetween(long fromMillis, long toMillis) {
+        Generation current = generation;
+        if (current.segments.isEmpty()) {
+            return List.of();
+        }
+        return () -> new Ascending(Collections.emptyIterator(), coldWalk(current, fromMillis, ColdSegment.RowFilter.ANY),
+                toMillis);
+    }
+
+    private ColdWalk coldWalk(Generation current, long fromMillis, ColdSegment.RowFilter filter) {
+        return new ColdWalk(current.segments, ColdSegment.ALL, null, filter, cold.cache(), false,
+                new RecognitionKey(fromMillis, Long.MIN_VALUE, Long.MIN_VALUE));
+    }
+
+    /**
+     * Moves the recognitions older than the hot window into new segments and swaps in a hot store
+     * without them.
+     *
+     * @return how many recognitions moved
+     */
+    public int migrate() throws IOException {
+        if (cold == null) {
+            return 0;
+        }
+        synchronized (migrating) {
+            long started = System.nanoTime();
+            long cutoff = clock.millis() - hotWindowMillis;
+            Generation before = generation;
+            int mark = markWithoutAdds(before.hot);
+
+            Iterator<Recognition> aged = before.hot.rows(Long.MIN_VALUE, cutoff, slot -> slot < mark).iterator();
+            if (!aged.hasNext()) {
+                return 0;
+            }
+            List<ColdSegment> written = new ArrayList<>();
+            int moved = 0;
+            try {
+                ColdSegment.Writer writer = null;
+                try {
+                    while (aged.hasNext()) {
+                        if (writer == null) {
+                            writer = cold.newSegment();
+                        }
+                        writer.add(aged.next());
+                        moved++;
+                        if (writer.isFull()) {
+                            written.add(writer.finish(cutoff));
+                            writer = null;
+                        }
+                    }
+                    if (writer != null) {
+                        written.add(writer.finish(cutoff));
+                        writer = null;
+                    }
+                } finally {
+                    if (writer != null) {
+                        writer.close();
+                    }
+                }
+
+                RecognitionStore after = newHot.get();
+                copy(before.hot.rows(cutoff, Long.MAX_VALUE, slot -> slot < mark), after);
+                Lock exclusive = adds.writeLock();
+                exclusive.lock();
+                try {
+                    // Whatever was added since the mark, old or new, stays hot until the next migration
+                    copy(before.hot.rows(Long.MIN_VALUE, Long.MAX_VALUE, slot -> slot >= mark), after);
+                    List<ColdSegment> segments = new ArrayList<>(before.segments);
+                    segments.addAll(written);
+                    generation = Generation.of(after, List.copyOf(segments));
+                } finally {
+                    exclusive.unlock();
+                }
+            } catch (IOException | RuntimeException e) {
+                discard(written);
+                throw e;
+            }
+            migrated.add(moved);
+            log.info("Migrated recognitions to cold storage moved={} segments={} hot={} elapsedMs={}", moved,
+                    written.size(), generation.hot.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return moved;
+        }
+    }
+
+    // Every slot below the mark is stored, or skipped, once no add is in flight
+    private int markWithoutAdds(RecognitionStore hot) {
+        Lock exclusive = adds.writeLock();
+        exclusive.lock();
+        try {
+            return hot.mark();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    private static void copy(Iterable<Recognition> recognitions, RecognitionStore into) {
+        List<Recognition> batch = new ArrayList<>(COPY_BATCH);
+        for (Recognition recognition : recognitions) {
+            batch.add(recognition);
+            if (batch.size() == COPY_BATCH) {
+                into.addAll(batch);
+                batch.clear();
+            }
+        }
+        into.addAll(batch);
+    }
+
+    // Unpublished segments would hold a second copy of rows that stay hot
+    private static void discard(List<ColdSegment> written) {
+        for (ColdSegment segment : written) {
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.path());
+            } catch (IOException e) {
+                log.error("Could not delete unpublished cold segment file={}", segment.path(), e);
+            }
+        }
+    }
+
+    /** Runs {@link #migrate} now and then every {@code interval}, on a daemon thread. */
+    public synchronized void scheduleMigrations(Duration interval) {
+        if (cold == null || migrations != null) {
+            return;
+        }
+        migrations = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recognition-tier-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
+        migrations.scheduleWithFixedDelay(() -> {
+            try {
+                migrate();
+            } catch (IOException | RuntimeException e) {
+                log.error("Migration to cold storage failed", e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (migrations != null) {
+            migrations.shutdownNow();
+            try {
+                migrations.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (ColdSegment segment : generation.segments) {
+            segment.close();
+        }
+    }
+
+    // ========= Metrics =========
+
+    public int hotSize() {
+        return generation.hot.size();
+    }
+
+    public long coldSize() {
+        return generation.coldRows;
+    }
+
+    public int coldSegments() {
+        return generation.segments.size();
+    }
+
+    public long coldBytes() {
+        long bytes = 0;
+        for (ColdSegment segment : generation.segments) {
+            bytes += segment.bytes();
+        }
+        return bytes;
+    }
+
+    /** Recognitions moved to the cold tier since startup. */
+    public long migrated() {
+        return migrated.sum();
+    }
+
+    public long blockCacheHits() {
+        return cold == null ? 0 : cold.cache().hits();
+    }
+
+    public long blockCacheMisses() {
+        return cold == null ? 0 : cold.cache().misses();
+    }
+
+    // A hot store and the segments holding everything older than it; never overlapping
+    private record Generation(RecognitionStore hot, List<ColdSegment> segments, long watermark, long coldRows) {
+
+        static Generation of(RecognitionStore hot, List<ColdSegment> segments) {
+            long watermark = Long.MIN_VALUE;
+            long rows = 0;
+            for (ColdSegment segment : segments) {
+                watermark = Math.max(watermark, segment.cutoff());
+                rows += segment.rows();
+            }
+            return new Generation(hot, segments, watermark, rows);
+        }
+    }
+
+    // Oldest-first merge of a hot range with the cold tier, up to an end millis
+    private static final class Ascending implements Iterator<Recognition> {
+
+        private final Iterator<Recognition> hot;
+        private final ColdWalk coldWalk;
+        private final long toMillis;
+        private Recognition nextHot;
+
+        Ascending(Iterator<Recognition> hot, ColdWalk coldWalk, long toMillis) {
+            this.hot = hot;
+            this.coldWalk = coldWalk;
+            this.toMillis = toMillis;
+            this.nextHot = hot.hasNext() ? hot.next() : null;
+        }
+
+        private boolean coldLeft() {
+            return coldWalk.precedes(toMillis, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextHot != null || coldLeft();
+        }
+
+        @Override
+        public Recognition next() {
+            if (nextHot != null
+                    && !coldWalk.precedes(nextHot.createdAt().toEpochMilli(), Long.MIN_VALUE, Long.MIN_VALUE)) {
+                Recognition recognition = nextHot;
+                nextHot = hot.hasNext() ? hot.next() : null;
+                return recognition;
+            }
+            if (!coldLeft()) {
+                throw new NoSuchElementException();
+            }
+            return coldWalk.next();
+        }
+    }
+}
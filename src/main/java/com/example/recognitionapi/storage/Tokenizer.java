@@ -0,0 +1,35 @@
+package com.example.recognitionapi.storage;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Splits text into lower-cased runs of letters and digits. Single characters are dropped, and
+// overlong runs are cut, so a pasted blob cannot create huge terms.
+final class Tokenizer {
+
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    /** Term frequencies in first-seen order. */
+    static Map<String, Integer> terms(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TERM_LENGTH) {
+                    String term = text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT);
+                    terms.merge(term, 1, Integer::sum);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.recognitionapi.webhook;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-destination circuit breaker. After {@code failureThreshold} consecutive failures the
+ * circuit opens and calls are rejected for {@code openDuration}; then a single trial call is
+ * let through, which closes the circuit on success or reopens it on failure. Calls report back
+ * with the permit they were given, so a late failure from a call that started before the circuit
+ * opened cannot end the trial and let a second one through.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** What {@link #acquire} let through: nothing, an ordinary call, or the half-open trial. */
+    enum Permit { DENIED, CALL, TRIAL }
+
+    private static final long CLOSED = -1;
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // CLOSED, or the time the circuit opened
+    private final AtomicLong openedAt = new AtomicLong(CLOSED);
+    private final AtomicInteger trialInFlight = new AtomicInteger();
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+    }
+
+    Permit acquire() {
+        long opened = openedAt.get();
+        if (opened == CLOSED) {
+            return Permit.CALL;
+        }
+        if (clock.millis() - opened < openMillis) {
+            return Permit.DENIED;
+        }
+        // Half-open: exactly one caller gets to probe the destination
+        return trialInFlight.compareAndSet(0, 1) ? Permit.TRIAL : Permit.DENIED;
+    }
+
+    void onSuccess(Permit permit) {
+        consecutiveFailures.set(0);
+        openedAt.set(CLOSED);
+        if (permit == Permit.TRIAL) {
+            trialInFlight.set(0);
+        }
+    }
+
+    void onFailure(Permit permit) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || permit == Permit.TRIAL) {
+            openedAt.set(clock.millis());
+        }
+        if (permit == Permit.TRIAL) {
+            trialInFlight.set(0);
+        }
+    }
+
+    State state() {
+        long opened = openedAt.get();
+        if (opened == CLOSED) {
+            return State.CLOSED;
+        }
+        return clock.millis() - opened < openMillis ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.recognitionapi.webhook;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A webhook endpoint and how to render one or more messages (a digest) into its payload.
+ */
+public record WebhookDestination(String name, String url, Function<List<WebhookMessage>, Object> payload) {
+}
@@ -0,0 +1,304 @@
+package com.example.recognitionapi.webhook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers webhook messages from a bounded queue. At most {@code maxConcurrency} requests are
+ * in flight at once, over a pooled connection provider. Each request has a timeout and retries
+ * transient failures with exponential backoff. A request that timed out may still have reached
+ * the receiver, so its retry can deliver the same batch twice; every attempt at a batch carries
+ * the same {@value #DELIVERY_ID_HEADER} header for receivers to drop duplicates by. Every destination has its own circuit breaker,
+ * so a dead endpoint is skipped rather than tying up the pipeline. When a digest window is set,
+ * messages for a destination are coalesced into one request per window.
+ * <p>
+ * Submitting never blocks: when the queue is full the message is rejected and counted. A failed
+ * delivery never fails the pipeline; should the pipeline itself fail, it is logged and restarted
+ * on the same queue.
+ * <p>
+ * Each batch is timed end to end, retries included, as {@code webhook.delivery}, tagged with the
+ * destination and the outcome.
+ */
+public class WebhookDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookDispatcher.class);
+
+    private static final Duration PIPELINE_RESTART_DELAY = Duration.ofSeconds(1);
+
+    /** Unique per batch and repeated on each of its retries. */
+    public static final String DELIVERY_ID_HEADER = "X-Webhook-Delivery-Id";
+
+    public record Settings(
+            int queueCapacity,
+            int maxConcurrency,
+            int maxConnections,
+            Duration connectTimeout,
+            Duration requestTimeout,
+            int maxRetries,
+            Duration minBackoff,
+            Duration maxBackoff,
+            int breakerFailureThreshold,
+            Duration breakerOpenDuration,
+            Duration digestWindow,
+            int digestMaxSize
+    ) {
+    }
+
+    private record Delivery(WebhookDestination destination, List<WebhookMessage> messages) {
+    }
+
+    private final Settings settings;
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final Sinks.Many<Delivery> queue;
+    private final Disposable pipeline;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+
+    public WebhookDispatcher(Settings settings, MeterRegistry meterRegistry) {
+        this(settings, meterRegistry, Clock.systemUTC());
+    }
+
+    WebhookDispatcher(Settings settings, MeterRegistry meterRegistry, Clock clock) {
+        this.settings = settings;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.connectionProvider = ConnectionProvider.builder("webhooks")
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireMaxCount(settings.maxConcurrency())
+                .pendingAcquireTimeout(settings.requestTimeout())
+                .maxIdleTime(Duration.ofSeconds(30))
+                .evictInBackground(Duration.ofSeconds(60))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.connectTimeout().toMillis())
+                .responseTimeout(settings.requestTimeout());
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+
+        // Bounded buffer between producers and the pipeline; a full queue fails the emit instead of growing.
+        // It outlives its subscriber, so a pipeline restarted after an error picks up what is still queued.
+        this.queue = Sinks.many().multicast().onBackpressureBuffer(settings.queueCapacity(), false);
+        this.pipeline = coalesce(queue.asFlux())
+                .flatMap(this::deliver, settings.maxConcurrency())
+                .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, PIPELINE_RESTART_DELAY)
+                        .doBeforeRetry(signal -> log.error("Webhook pipeline failed, restarting it", signal.failure())))
+                .subscribe();
+
+        Gauge.builder("webhook.queue.size", this, WebhookDispatcher::queuedMessages)
+                .description("Webhook messages waiting for delivery")
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.rejected", rejected, LongAdder::sum)
+                .description("Webhook messages dropped because the delivery queue was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("webhook.retries", retried, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    public void submit(WebhookDestination destination, WebhookMessage message) {
+        Sinks.EmitResult result;
+        // Sinks reject concurrent emitters; the emit itself is just a queue offer
+        synchronized (queue) {
+            result = queue.tryEmitNext(new Delivery(destination, List.of(message)));
+        }
+        if (result.isFailure()) {
+            rejected.increment();
+            log.warn("Webhook queue full, dropping notification destination={} recognition={}",
+                    destination.name(), message.recognitionId());
+        }
+    }
+
+    /**
+     * Queues several messages for one destination, split into requests of at most the digest size.
+     */
+    public void submitAll(WebhookDestination destination, List<WebhookMessage> messages) {
+        for (int from = 0; from < messages.size(); from += settings.digestMaxSize()) {
+            List<WebhookMessage> chunk = List.copyOf(
+                    messages.subList(from, Math.min(messages.size(), from + settings.digestMaxSize())));
+            Sinks.EmitResult result;
+            synchronized (queue) {
+                result = queue.tryEmitNext(new Delivery(destination, chunk));
+            }
+            if (result.isFailure()) {
+                rejected.add(chunk.size());
+                log.warn("Webhook queue full, dropping notifications destination={} messages={}",
+                        destination.name(), chunk.size());
+            }
+        }
+    }
+
+    private Flux<Delivery> coalesce(Flux<Delivery> deliveries) {
+        if (settings.digestWindow().isZero() || settings.digestWindow().isNegative()) {
+            return deliveries;
+        }
+        return deliveries
+                .groupBy(delivery -> delivery.destination().name())
+                .flatMap(perDestination -> perDestination
+                        // Fair backpressure waits for demand instead of failing with an overflow under a backlog
+                        .bufferTimeout(settings.digestMaxSize(), settings.digestWindow(), true)
+                        .map(batch -> new Delivery(batch.get(0).destination(),
+                                batch.stream().flatMap(delivery -> delivery.messages().stream()).toList())),
+                        Integer.MAX_VALUE);
+    }
+
+    // Whatever goes wrong with one delivery, even a throw before its request is built, stays in it
+    private Mono<Void> deliver(Delivery delivery) {
+        return Mono.defer(() -> send(delivery))
+                .onErrorResume(error -> {
+                    failed.increment();
+                    log.error("Webhook delivery aborted destination={} messages={}",
+                            delivery.destination().name(), delivery.messages().size(), error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> send(Delivery delivery) {
+        WebhookDestination destination = delivery.destination();
+        // Rendered before a permit is taken, so a payload that fails to render cannot strand a trial
+        Object body = destination.payload().apply(delivery.messages());
+        CircuitBreaker breaker = breakerFor(destination.name());
+        CircuitBreaker.Permit permit = breaker.acquire();
+        if (permit == CircuitBreaker.Permit.DENIED) {
+            shortCircuited.increment();
+            Counter.builder("webhook.short.circuited").tag("destination", destination.name())
+                    .register(meterRegistry).increment(delivery.messages().size());
+            log.warn("Webhook circuit open, skipping destination={} messages={}",
+                    destination.name(), delivery.messages().size());
+            return Mono.empty();
+        }
+
+        String deliveryId = UUID.randomUUID().toString();
+        long started = System.nanoTime();
+        return webClient.post()
+                .uri(destination.url())
+                .header(DELIVERY_ID_HEADER, deliveryId)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(settings.requestTimeout())
+                .retryWhen(Retry.backoff(settings.maxRetries(), settings.minBackoff())
+                        .maxBackoff(settings.maxBackoff())
+                        .filter(WebhookDispatcher::isTransient)
+                        .doBeforeRetry(signal -> retried.increment())
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .doOnSuccess(response -> {
+                    breaker.onSuccess(permit);
+                    record(destination, "success", started);
+                    delivered.increment();
+                    log.debug("Webhook delivered destination={} messages={} status={} delivery={}",
+                            destination.name(), delivery.messages().size(), response.getStatusCode().value(),
+                            deliveryId);
+                })
+                .doOnError(error -> {
+                    breaker.onFailure(permit);
+                    record(destination, "failure", started);
+                    failed.increment();
+                    log.warn("Webhook delivery failed destination={} messages={} delivery={} error={}",
+                            destination.name(), delivery.messages().size(), deliveryId, error.toString());
+                })
+                .onErrorResume(error -> Mono.empty())
+                .then();
+    }
+
+    private void record(WebhookDestination destination, String outcome, long started) {
+        Timer.builder("webhook.delivery")
+                .tag("destination", destination.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    // Timeouts, connection failures, 429 and 5xx are worth retrying; other 4xx will fail the same way again.
+    // A POST that timed out may have been processed, so its retry can arrive twice (same delivery id).
+    static boolean isTransient(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    private CircuitBreaker breakerFor(String destination) {
+        return breakers.computeIfAbsent(destination, name -> new CircuitBreaker(
+                settings.breakerFailureThreshold(), settings.breakerOpenDuration(), clock));
+    }
+
+    // ========= Metrics =========
+
+    public long deliveredBatches() {
+        return delivered.sum();
+    }
+
+    public long failedBatches() {
+        return failed.sum();
+    }
+
+    /** Messages refused because the delivery queue was full. */
+    public long rejectedMessages() {
+        return rejected.sum();
+    }
+
+    /** Batches skipped because their destination's circuit was open. */
+    public long shortCircuitedBatches() {
+        return shortCircuited.sum();
+    }
+
+    public long retries() {
+        return retried.sum();
+    }
+
+    public int queuedMessages() {
+        return queue.scanOrDefault(Scannable.Attr.BUFFERED, 0);
+    }
+
+    CircuitBreaker.State circuitState(String destination) {
+        CircuitBreaker breaker = breakers.get(destination);
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.state();
+    }
+
+    @Override
+    public void close() {
+        synchronized (queue) {
+            queue.tryEmitComplete();
+        }
+        pipeline.dispose();
+        connectionProvider.dispose();
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.recognitionapi.webhook;
+
+// Destination-neutral content of one recognition notification
+public record WebhookMessage(String recognitionId, String senderName, String recipientName, String text) {
+}
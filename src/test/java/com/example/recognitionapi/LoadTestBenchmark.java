@@ -0,0 +1,342 @@
+package com.example.recognitionapi;
+
+import com.example.recognitionapi.security.LoadTestIdentityFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load over the real transports. {@code benchmark.clients} HTTP clients send a mix of
+ * {@code createRecognition} mutations ({@code benchmark.write-percent}) and feed or leaderboard queries
+ * for {@code benchmark.duration-seconds}. Meanwhile {@code benchmark.subscriptions} WebSocket sessions
+ * each hold one {@code recognitionReceived} subscription. Callers are the five seeded employees, named
+ * through {@link LoadTestIdentityFilter}'s header.
+ * <p>
+ * Reported: request throughput, p50/p99/p999 latency per operation, and delivery lag. Lag runs from
+ * the moment a mutation is sent to the moment a subscriber reads the event, taken from the wall clock
+ * stamped into each message, so the server may run in another process on the same host.
+ * <p>
+ * The application is started in-process with the {@code loadtest} profile, unless
+ * {@code benchmark.url} points at an instance already running with that profile. Run with
+ * {@code ./gradlew benchmark --tests '*LoadTestBenchmark' -Dbenchmark.subscriptions=5000}.
+ */
+@Tag("benchmark")
+class LoadTestBenchmark {
+
+    private static final String URL = System.getProperty("benchmark.url");
+    private static final int SUBSCRIPTIONS = Integer.getInteger("benchmark.subscriptions", 2_000);
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 32);
+    private static final int DURATION_SECONDS = Integer.getInteger("benchmark.duration-seconds", 30);
+    private static final int WRITE_PERCENT = Integer.getInteger("benchmark.write-percent", 20);
+
+    private static final List<String> EMPLOYEE_IDS = List.of("101", "102", "103", "104", "105");
+    private static final Map<String, String> EMAILS = Map.of("101", "alice@corp.com", "102", "bob@corp.com",
+            "103", "charlie@corp.com", "104", "diana@corp.com", "105", "eve@corp.com");
+
+    private static final String MESSAGE_PREFIX = "Load test @";
+    private static final String CREATE = """
+            mutation Create($recipientId: ID!, $message: String!, $visibility: Visibility!) {
+                createRecognition(recipientId: $recipientId, message: $message, visibility: $visibility, isAnonymous: false) { id }
+            }
+            """;
+    private static final List<String> QUERIES = List.of("""
+            query { myRecognitionsConnection(first: 20) { edges { cursor node { id message createdAt sender { name } } } } }
+            """, """
+            query { recognitionsConnection(first: 20) { edges { node { id message recipient { name team { name } } } } pageInfo { hasNextPage } } }
+            """, """
+            query { leaderboard(scope: EMPLOYEE, window: WEEK) { rank count employee { name } } }
+            """);
+    private static final String SUBSCRIBE = "{\"id\":\"1\",\"type\":\"subscribe\",\"payload\":"
+            + "{\"query\":\"subscription { recognitionReceived { message } }\"}}";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final LatencyHistogram createLatency = new LatencyHistogram();
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+    private final LatencyHistogram deliveryLag = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder publicCreated = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    @Test
+    void mixedTrafficWithSubscribers() throws Exception {
+        ConfigurableApplicationContext application = URL == null ? new SpringApplicationBuilder(GraphqlApplication.class)
+                .profiles("loadtest")
+                .properties("server.port=0")
+                .run() : null;
+        try {
+            String base = URL != null ? URL : "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+            run(URI.create(base + "/graphql"), URI.create(base.replaceFirst("^http", "ws") + "/graphql"));
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private void run(URI graphql, URI webSocket) throws Exception {
+        List<Subscriber> subscribers = new ArrayList<>(SUBSCRIPTIONS);
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            Subscriber subscriber = new Subscriber();
+            http.newWebSocketBuilder()
+                    .header(LoadTestIdentityFilter.USER_HEADER, EMAILS.get(EMPLOYEE_IDS.get(i % EMPLOYEE_IDS.size())))
+                    .subprotocols("graphql-transport-ws")
+                    .buildAsync(webSocket, subscriber)
+                    .get(10, TimeUnit.SECONDS);
+            subscribers.add(subscriber);
+        }
+        CompletableFuture.allOf(subscribers.stream().map(s -> s.acknowledged).toArray(CompletableFuture[]::new))
+                .get(60, TimeUnit.SECONDS);
+
+        // One public recognition proves every subscription is live before anything is measured
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (subscribers.stream().anyMatch(s -> s.received == 0)) {
+            assertThat(System.nanoTime()).as("subscriptions did not go live").isLessThan(deadline);
+            create(graphql, "101", "102", "PUBLIC");
+            Thread.sleep(200);
+        }
+        createLatency.reset();
+        deliveryLag.reset();
+        delivered.reset();
+        publicCreated.reset();
+
+        long started = System.nanoTime();
+        long end = started + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end) {
+                        String sender = EMPLOYEE_IDS.get(random.nextInt(EMPLOYEE_IDS.size()));
+                        if (random.nextInt(100) < WRITE_PERCENT) {
+                            String recipient = EMPLOYEE_IDS.get((EMPLOYEE_IDS.indexOf(sender) + 1
+                                    + random.nextInt(EMPLOYEE_IDS.size() - 1)) % EMPLOYEE_IDS.size());
+                            create(graphql, sender, recipient, random.nextInt(10) == 0 ? "PRIVATE" : "PUBLIC");
+                        } else {
+                            query(graphql, sender, QUERIES.get(random.nextInt(QUERIES.size())));
+                        }
+                    }
+                });
+            }
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        // Let in-flight events arrive
+        Thread.sleep(2_000);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+
+        long requests = createLatency.count() + queryLatency.count();
+        System.out.printf("load: %d clients, %,d subscriptions, %d%% writes: %,d requests in %,d ms (%,.0f/s), %,d errors%n",
+                CLIENTS, SUBSCRIPTIONS, WRITE_PERCENT, requests, elapsedNanos / 1_000_000, requests * 1e9 / elapsedNanos,
+                errors.sum());
+        System.out.println("load: createRecognition " + createLatency.summary());
+        System.out.println("load: queries " + queryLatency.summary());
+        System.out.printf("load: %,d events delivered (public recognitions alone account for %,d), lag %s%n",
+                delivered.sum(), publicCreated.sum() * SUBSCRIPTIONS, deliveryLag.summary());
+        assertThat(errors.sum()).isZero();
+        assertThat(delivered.sum()).isPositive();
+    }
+
+    private void create(URI graphql, String sender, String recipient, String visibility) {
+        Map<String, Object> variables = Map.of("recipientId", recipient, "message", MESSAGE_PREFIX + epochMicros(),
+                "visibility", visibility);
+        if (post(graphql, sender, CREATE, variables, createLatency) && visibility.equals("PUBLIC")) {
+            publicCreated.increment();
+        }
+    }
+
+    private void query(URI graphql, String caller, String query) {
+        post(graphql, caller, query, Map.of(), queryLatency);
+    }
+
+    private boolean post(URI graphql, String caller, String query, Map<String, Object> variables, LatencyHistogram latency) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(graphql)
+                    .header("Content-Type", "application/json")
+                    .header(LoadTestIdentityFilter.USER_HEADER, EMAILS.get(caller))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            JSON.writeValueAsString(Map.of("query", query, "variables", variables))))
+                    .build();
+            long started = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            latency.record((System.nanoTime() - started) / 1_000);
+            if (response.statusCode() != 200 || JSON.readTree(response.body()).has("errors")) {
+                errors.increment();
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            errors.increment();
+            return false;
+        }
+    }
+
+    private static long epochMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    // One graphql-transport-ws session with a single subscription
+    private final class Subscriber implements WebSocket.Listener {
+
+        final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        volatile long received;
+        private final StringBuilder text = new StringBuilder();
+        private CompletableFuture<WebSocket> sending;
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            sending = CompletableFuture.completedFuture(webSocket);
+            send("{\"type\":\"connection_init\"}");
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                handle(text.toString());
+                text.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            errors.increment();
+            acknowledged.completeExceptionally(error);
+        }
+
+        private void handle(String frame) {
+            try {
+                JsonNode message = JSON.readTree(frame);
+                switch (message.path("type").asText()) {
+                    case "connection_ack" -> {
+                        send(SUBSCRIBE);
+                        acknowledged.complete(null);
+                    }
+                    case "next" -> {
+                        String body = message.at("/payload/data/recognitionReceived/message").asText();
+                        if (body.startsWith(MESSAGE_PREFIX)) {
+                            deliveryLag.record(epochMicros() - Long.parseLong(body.substring(MESSAGE_PREFIX.length())));
+                        }
+                        delivered.increment();
+                        received++;
+                    }
+                    case "ping" -> send("{\"type\":\"pong\"}");
+                    case "error" -> errors.increment();
+                    default -> {
+                    }
+                }
+            } catch (Exception e) {
+                errors.increment();
+            }
+        }
+
+        // A WebSocket allows one outstanding send at a time
+        private synchronized void send(String message) {
+            sending = sending.thenCompose(webSocket -> webSocket.sendText(message, true));
+        }
+
+        synchronized void close() {
+            sending = sending.thenCompose(webSocket -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+        }
+    }
+
+    /**
+     * Microsecond values in log-linear buckets: exact below 64, then 32 buckets per power of two,
+     * so a reported percentile is within about 3% of the true value.
+     */
+    static final class LatencyHistogram {
+
+        private static final int LINEAR = 64;
+        private static final int SUB_BUCKETS = 32;
+
+        private final AtomicLongArray counts = new AtomicLongArray(LINEAR + 58 * SUB_BUCKETS);
+
+        void record(long micros) {
+            counts.incrementAndGet(index(Math.max(0, micros)));
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+        }
+
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(count() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= Math.max(rank, 1)) {
+                    return lowerBound(i);
+                }
+            }
+            return 0;
+        }
+
+        String summary() {
+            return String.format("%,d samples, p50 %s, p99 %s, p999 %s", count(),
+                    format(percentile(50)), format(percentile(99)), format(percentile(99.9)));
+        }
+
+        private static String format(long micros) {
+            return micros < 1_000 ? micros + " us" : String.format("%.1f ms", micros / 1_000.0);
+        }
+
+        static int index(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            return LINEAR + (exponent - 6) * SUB_BUCKETS + (int) ((value >>> (exponent - 5)) & (SUB_BUCKETS - 1));
+        }
+
+        static long lowerBound(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int exponent = (index - LINEAR) / SUB_BUCKETS + 6;
+            return (SUB_BUCKETS + (long) ((index - LINEAR) % SUB_BUCKETS)) << (exponent - 5);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.recognitionapi.analytics;
+
+import com.example.recognitionapi.model.LeaderboardScope;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionStats;
+import com.example.recognitionapi.model.TimeWindow;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecognitionRollupsTests {
+
+    // A Wednesday in the second month of Q1
+    private static final Instant NOW = Instant.parse("2024-02-14T12:00:00Z");
+
+    private final RecognitionRollups rollups = new RecognitionRollups(Clock.fixed(NOW, ZoneOffset.UTC), 13);
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @Test
+    void leaderboardRanksRecipientsAndTeamsInTheCurrentWindow() {
+        record("101", "102", "2024-02-12T00:00:00Z", 3); // Monday, this week
+        record("101", "103", "2024-02-13T00:00:00Z", 5);
+        record("102", "104", "2024-02-14T00:00:00Z", 1);
+        record("101", "104", "2024-02-11T23:59:59Z", 9); // Sunday, last week but this month
+
+        assertThat(rollups.leaderboard(LeaderboardScope.EMPLOYEE, TimeWindow.WEEK, 10))
+                .containsExactly(new Ranked("103", 5), new Ranked("102", 3), new Ranked("104", 1));
+        assertThat(rollups.leaderboard(LeaderboardScope.EMPLOYEE, TimeWindow.MONTH, 2))
+                .containsExactly(new Ranked("104", 10), new Ranked("103", 5));
+        // 102 is on team 1, 103 and 104 on team 2
+        assertThat(rollups.leaderboard(LeaderboardScope.TEAM, TimeWindow.QUARTER, 10))
+                .containsExactly(new Ranked("2", 15), new Ranked("1", 3));
+    }
+
+    @Test
+    void statsCountReceivedAndSentPerTeam() {
+        record("101", "103", "2024-02-01T00:00:00Z", 2);
+        rollups.record(recognition("103", "101", "2024-02-02T00:00:00Z", Visibility.PRIVATE), "2", "1");
+
+        RecognitionStats team = rollups.stats("2", TimeWindow.MONTH);
+        assertThat(team.windowStart()).isEqualTo("2024-02-01");
+        assertThat(team.received()).isEqualTo(2);
+        assertThat(team.sent()).isEqualTo(1);
+        assertThat(team.publicCount()).isEqualTo(2);
+        assertThat(team.privateCount()).isZero();
+
+        RecognitionStats company = rollups.stats(null, TimeWindow.QUARTER);
+        assertThat(company.windowStart()).isEqualTo("2024-01-01");
+        assertThat(company.received()).isEqualTo(3);
+        assertThat(company.privateCount()).isEqualTo(1);
+
+        assertThat(rollups.stats("9", TimeWindow.WEEK).received()).isZero();
+    }
+
+    @Test
+    void bucketsOlderThanTheRetentionAreDropped() {
+        record("101", "102", "2024-02-14T00:00:00Z", 1);
+        // Far enough back that every window has moved on by more than 13 buckets
+        record("101", "103", "2019-01-01T00:00:00Z", 4);
+
+        assertThat(rollups.leaderboard(LeaderboardScope.EMPLOYEE, TimeWindow.QUARTER, 10))
+                .containsExactly(new Ranked("102", 1));
+    }
+
+    @Test
+    void windowBucketsStartOnCalendarBoundaries() {
+        for (TimeWindow window : TimeWindow.values()) {
+            for (LocalDate date = LocalDate.of(1969, 12, 1); date.getYear() < 2026; date = date.plusDays(13)) {
+                long bucket = window.bucketOf(date.atStartOfDay(ZoneOffset.UTC).toInstant());
+                LocalDate start = window.start(bucket);
+                assertThat(start).isBeforeOrEqualTo(date);
+                assertThat(window.bucketOf(start.atStartOfDay(ZoneOffset.UTC).toInstant())).isEqualTo(bucket);
+                assertThat(window.bucketOf(start.minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant())).isEqualTo(bucket - 1);
+            }
+        }
+        assertThat(TimeWindow.WEEK.start(TimeWindow.WEEK.bucketOf(NOW)).getDayOfWeek().getValue()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRecordsKeepTheTopKExact() throws Exception {
+        int employees = 500;
+        Map<String, AtomicLong> expected = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    // Skewed so that ranks are distinct near the top
+                    int n = (int) Math.abs((long) (thread * 20_000 + i) * 2654435761L % (employees * employees));
+                    String recipient = String.valueOf((int) Math.sqrt(n));
+                    expected.computeIfAbsent(recipient, id -> new AtomicLong()).incrementAndGet();
+                    rollups.record(recognition("1", recipient, "2024-02-14T00:00:00Z", Visibility.PUBLIC), "1", "1");
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        List<Ranked> top = rollups.leaderboard(LeaderboardScope.EMPLOYEE, TimeWindow.WEEK, 20);
+        List<Ranked> bruteForce = expected.entrySet().stream()
+                .map(entry -> new Ranked(entry.getKey(), entry.getValue().get()))
+                .sorted(Comparator.comparingLong(Ranked::count).reversed().thenComparing(Ranked::key))
+                .limit(20)
+                .toList();
+        assertThat(top).isEqualTo(bruteForce);
+    }
+
+    private void record(String sender, String recipient, String createdAt, int times) {
+        for (int i = 0; i < times; i++) {
+            rollups.record(recognition(sender, recipient, createdAt, Visibility.PUBLIC), teamOf(sender), teamOf(recipient));
+        }
+    }
+
+    private Recognition recognition(String sender, String recipient, String createdAt, Visibility visibility) {
+        return new Recognition("r-" + ids.incrementAndGet(), sender, recipient, "Thanks", visibility, false, createdAt);
+    }
+
+    private static String teamOf(String employee) {
+        return employee.equals("101") || employee.equals("102") ? "1" : "2";
+    }
+}
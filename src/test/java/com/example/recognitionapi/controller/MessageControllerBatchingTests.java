@@ -0,0 +1,182 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.events.RecognitionEventBus;
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.security.CurrentEmployeeInterceptor;
+import com.example.recognitionapi.service.NotificationService;
+import com.example.recognitionapi.service.RecognitionBatchService;
+import com.example.recognitionapi.service.RecognitionService;
+import com.example.recognitionapi.service.SubscriptionRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.data.method.annotation.support.AnnotatedControllerConfigurer;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultExecutionGraphQlService;
+import org.springframework.graphql.execution.GraphQlSource;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MessageControllerBatchingTests {
+
+    private static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    private RecognitionService dataService;
+    private AnnotationConfigApplicationContext context;
+    private DefaultExecutionGraphQlService graphQlService;
+    private ExecutionGraphQlServiceTester tester;
+
+    @BeforeEach
+    void setUp() {
+        dataService = spy(new RecognitionService());
+        ReflectionTestUtils.invokeMethod(dataService, "init");
+
+        MessageController controller = new MessageController(dataService, mock(NotificationService.class),
+                mock(SubscriptionRouter.class), mock(RecognitionEventBus.class), mock(RecognitionBatchService.class),
+                new SimpleMeterRegistry());
+        BatchLoaderRegistry batchLoaderRegistry = new DefaultBatchLoaderRegistry();
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean(MessageController.class, () -> controller);
+        context.registerBean(BatchLoaderRegistry.class, () -> batchLoaderRegistry);
+        context.refresh();
+
+        AnnotatedControllerConfigurer configurer = new AnnotatedControllerConfigurer();
+        configurer.setApplicationContext(context);
+        configurer.afterPropertiesSet();
+
+        GraphQlSource graphQlSource = GraphQlSource.schemaResourceBuilder()
+                .schemaResources(new ClassPathResource("graphql/schema.graphqls"))
+                .configureRuntimeWiring(configurer)
+                .build();
+        graphQlService = new DefaultExecutionGraphQlService(graphQlSource);
+        graphQlService.addDataLoaderRegistrar(batchLoaderRegistry);
+        tester = ExecutionGraphQlServiceTester.create(graphQlService);
+
+        signInAs("alice@corp.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Test
+    void nestedFieldsCostOneBatchedLookupPerLevel() {
+        for (int i = 0; i < 1_000; i++) {
+            String sender = EMPLOYEES.get(i % EMPLOYEES.size());
+            String recipient = EMPLOYEES.get((i + 1) % EMPLOYEES.size());
+            dataService.saveRecognition(new Recognition("r-" + i, sender, recipient, "Thanks " + i,
+                    Visibility.PUBLIC, i % 10 == 0, Instant.ofEpochSecond(1_700_000_000L + i)));
+        }
+        clearInvocations(dataService);
+
+        tester.document("""
+                        query {
+                            recognitions {
+                                id
+                                sender { name team { name members { id } } }
+                                recipient { name team { name } }
+                            }
+                        }
+                        """)
+                .execute()
+                .path("recognitions").entityList(Object.class).hasSize(1_000);
+
+        // Caller identity is resolved once per request, not once per recognition
+        verify(dataService, times(1)).findByEmail(anyString());
+        verify(dataService, times(1)).getRecognitionsForRecipient(any());
+        // sender and recipient are two loaders; everything else is one batch per level
+        verify(dataService, times(2)).getEmployeesByIds(anyCollection());
+        verify(dataService, atMost(2)).getTeamsByIds(anyCollection());
+        verify(dataService, times(1)).getEmployeesByTeamIds(anyCollection());
+        // No per-object lookups remain
+        verify(dataService, never()).getEmployeeById(anyString());
+        verify(dataService, never()).getTeamById(anyString());
+        verify(dataService, never()).getAllEmployees();
+    }
+
+    @Test
+    void anonymousSenderIsHiddenFromRegularEmployees() {
+        dataService.saveRecognition(new Recognition("r-1", "103", "102", "Great demo",
+                Visibility.PUBLIC, true, Instant.ofEpochSecond(1_700_000_000L)));
+        signInAs("diana@corp.com");
+
+        tester.document("{ recognitions { id sender { id } recipient { id } } }")
+                .execute()
+                .path("recognitions[0].sender").valueIsNull()
+                .path("recognitions[0].recipient.id").entity(String.class).isEqualTo("102");
+    }
+
+    @Test
+    void callerFromGraphQlContextSkipsDirectoryLookup() {
+        dataService.saveRecognition(new Recognition("r-1", "102", "104", "Thanks",
+                Visibility.PRIVATE, false, Instant.ofEpochSecond(1_700_000_000L)));
+        Employee diana = dataService.getEmployeeById("104");
+        clearInvocations(dataService);
+
+        ExecutionGraphQlServiceTester contextTester = ExecutionGraphQlServiceTester.builder(graphQlService)
+                .configureExecutionInput((input, builder) -> builder
+                        .graphQLContext(Map.of(CurrentEmployeeInterceptor.CURRENT_EMPLOYEE, diana))
+                        .build())
+                .build();
+
+        contextTester.document("{ myRecognitions { id sender { id } } }")
+                .execute()
+                .path("myRecognitions[0].sender.id").entity(String.class).isEqualTo("102");
+
+        verify(dataService, never()).findByEmail(any());
+    }
+
+    @Test
+    void blankMessagesAreRejectedAsInABatch() {
+        clearInvocations(dataService);
+
+        tester.document("""
+                        mutation {
+                            createRecognition(recipientId: "102", message: "  ", visibility: PUBLIC, isAnonymous: false) {
+                                id
+                            }
+                        }
+                        """)
+                .execute()
+                .errors().expect(error -> true);
+
+        verify(dataService, never()).saveRecognition(any());
+    }
+
+    private static void signInAs(String email) {
+        DefaultOidcUser user = new DefaultOidcUser(List.of(new SimpleGrantedAuthority("ROLE_EMPLOYEE")),
+                new OidcIdToken("token", Instant.now(), Instant.now().plusSeconds(300),
+                        Map.of("sub", email, "email", email)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), "auth0"));
+    }
+}
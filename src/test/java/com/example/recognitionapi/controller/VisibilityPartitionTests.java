@@ -0,0 +1,114 @@
+package com.example.recognitionapi.controller;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionEdge;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.service.RecognitionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Property tests: for random histories, the feeds read from the visibility-partitioned indexes
+ * hold exactly the recognitions {@link MessageController#isVisibleTo} allows, in the same order,
+ * whether read whole or page by page.
+ */
+class VisibilityPartitionTests {
+
+    private static final Role[] ROLES = Role.values();
+
+    private final MessageController controller = new MessageController(null, null, null, null, null, new SimpleMeterRegistry());
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10})
+    void indexedFeedsMatchIsVisibleTo(long seed) {
+        Random random = new Random(seed);
+        List<String> employees = new ArrayList<>();
+        int employeeCount = 2 + random.nextInt(12);
+        for (int i = 0; i < employeeCount; i++) {
+            employees.add(String.valueOf(100 + i));
+        }
+        RecognitionService service = new RecognitionService();
+        saveRandomHistory(service, employees, random);
+
+        // Viewers include every role and one employee who took part in nothing
+        List<Employee> viewers = new ArrayList<>();
+        for (String id : employees) {
+            viewers.add(employee(id, ROLES[random.nextInt(ROLES.length)]));
+        }
+        for (Role role : ROLES) {
+            viewers.add(employee("999", role));
+        }
+        List<String> recipients = new ArrayList<>(employees);
+        recipients.add(null);
+        recipients.add("999");
+
+        for (Employee viewer : viewers) {
+            for (String recipientId : recipients) {
+                List<Recognition> expected = service.getRecognitionsForRecipient(recipientId).stream()
+                        .filter(recognition -> controller.isVisibleTo(recognition, viewer))
+                        .toList();
+
+                assertThat(service.getRecognitionsForRecipient(recipientId, viewer))
+                        .as("seed %d, viewer %s, recipient %s", seed, viewer, recipientId)
+                        .containsExactlyElementsOf(expected);
+                assertThat(readPageByPage(service, recipientId, viewer, 1 + random.nextInt(7)))
+                        .as("pages for seed %d, viewer %s, recipient %s", seed, viewer, recipientId)
+                        .containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
+    // Single and batch saves, shuffled timestamps with collisions, and the odd self-recognition
+    private static void saveRandomHistory(RecognitionService service, List<String> employees, Random random) {
+        int count = random.nextInt(400);
+        List<Recognition> batch = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            String sender = employees.get(random.nextInt(employees.size()));
+            String recipient = random.nextInt(50) == 0 ? sender : employees.get(random.nextInt(employees.size()));
+            Recognition recognition = new Recognition("r-" + n, sender, recipient, "message " + n,
+                    random.nextBoolean() ? Visibility.PRIVATE : Visibility.PUBLIC, random.nextInt(5) == 0,
+                    Instant.ofEpochMilli(1_700_000_000_000L + random.nextInt(count + 1) * 1_000L));
+            if (random.nextBoolean()) {
+                service.saveRecognition(recognition);
+            } else {
+                batch.add(recognition);
+                if (batch.size() == 16) {
+                    service.saveRecognitions(batch);
+                    batch.clear();
+                }
+            }
+        }
+        service.saveRecognitions(batch);
+    }
+
+    private static List<Recognition> readPageByPage(RecognitionService service, String recipientId, Employee viewer,
+                                                    int pageSize) {
+        List<Recognition> read = new ArrayList<>();
+        String after = null;
+        while (true) {
+            RecognitionConnection page = service.getRecognitionPageForRecipient(recipientId, viewer, pageSize, after);
+            for (RecognitionEdge edge : page.edges()) {
+                read.add(edge.node());
+            }
+            if (!page.pageInfo().hasNextPage()) {
+                return read;
+            }
+            after = page.edges().get(page.edges().size() - 1).cursor();
+        }
+    }
+
+    private static Employee employee(String id, Role role) {
+        return new Employee(id, "Employee " + id, id + "@corp.com", "1", role);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.recognitionapi.events;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RecognitionEventBusTests {
+
+    private final List<TcpEventBus> buses = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(TcpEventBus::close);
+    }
+
+    @Test
+    void framesRoundTripEveryField() {
+        List<Recognition> recognitions = List.of(
+                new Recognition(UUID.randomUUID().toString(), "101", "102", "Merci beaucoup! 🎉",
+                        Visibility.PRIVATE, true, "2025-01-31T09:00:00.123456789Z"),
+                new Recognition("legacy-7", "103", "104", "", Visibility.PUBLIC, false, "2025-01-31T09:00:00Z"),
+                new Recognition("3F2504E0-4F89-11D3-9A0C-0305E82C3301", "105", "101", "Upper-case id",
+                        Visibility.PUBLIC, false, "2024-02-29T23:59:59.999Z"));
+
+        byte[] frame = EventFrames.encode(42, recognitions);
+        EventFrames.Batch batch = decode(frame);
+
+        assertThat(batch.nodeId()).isEqualTo(42);
+        assertThat(batch.recognitions()).containsExactlyElementsOf(recognitions);
+    }
+
+    @Test
+    void corruptFramesAreRejected() {
+        byte[] frame = EventFrames.encode(1, List.of(recognition("a")));
+        frame[frame.length - 1] ^= 1;
+
+        assertThatIllegalArgumentException().isThrownBy(() -> decode(frame));
+    }
+
+    @Test
+    void recentIdsAreDeliveredOnce() {
+        List<Recognition> delivered = new ArrayList<>();
+        RecentIdFilter filter = new RecentIdFilter(2, delivered::addAll);
+
+        filter.accept(List.of(recognition("a"), recognition("b"), recognition("a")));
+        filter.accept(List.of(recognition("b"), recognition("c")));
+        // "a" has aged out of a two-id window
+        filter.accept(List.of(recognition("a")));
+
+        assertThat(delivered).extracting(Recognition::id).containsExactly("a", "b", "c", "a");
+        assertThat(filter.duplicates()).isEqualTo(2);
+    }
+
+    @Test
+    void nodesDeliverEachOthersRecognitionsOnce() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        // Both nodes share one peer list that includes themselves
+        List<InetSocketAddress> peers = List.of(loopback(portA), loopback(portB));
+        List<Recognition> deliveredA = new CopyOnWriteArrayList<>();
+        List<Recognition> deliveredB = new CopyOnWriteArrayList<>();
+        TcpEventBus a = start(portA, peers, deliveredA);
+        TcpEventBus b = start(portB, peers, deliveredB);
+
+        List<Recognition> batch = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            batch.add(recognition("a-" + i));
+        }
+        a.publish(batch);
+        b.publish(List.of(recognition("b-0")));
+        awaitTrue(() -> deliveredA.size() == 1_001 && deliveredB.size() == 1_001);
+
+        // A redelivery, as after a reconnect, reaches no subscriber twice
+        b.publish(batch.subList(0, 10));
+        b.publish(List.of(recognition("b-1")));
+        awaitTrue(() -> deliveredA.size() == 1_002);
+
+        assertThat(deliveredA).doesNotHaveDuplicates();
+        assertThat(deliveredB).doesNotHaveDuplicates().hasSize(1_002);
+        assertThat(deliveredB).containsAll(batch);
+        assertThat(a.framesSent()).isLessThan(1_000);
+    }
+
+    @Test
+    void unreachablePeersAreRetried() throws Exception {
+        int portA = freePort();
+        int portB = freePort();
+        List<Recognition> deliveredB = new CopyOnWriteArrayList<>();
+        TcpEventBus a = start(portA, List.of(loopback(portB)), new CopyOnWriteArrayList<>());
+
+        a.publish(List.of(recognition("lost")));
+        awaitTrue(() -> a.sendFailures() == 1);
+
+        start(portB, List.of(), deliveredB);
+        for (int i = 0; deliveredB.isEmpty() && i < 100; i++) {
+            a.publish(List.of(recognition("retry-" + i)));
+            Thread.sleep(50);
+        }
+
+        assertThat(deliveredB).isNotEmpty().extracting(Recognition::id).doesNotContain("lost");
+    }
+
+    @Test
+    void aPeerThatStopsReadingDoesNotHoldUpTheOthers() throws Exception {
+        String padding = "x".repeat(1_000);
+        AtomicLong receivedB = new AtomicLong();
+        AtomicLong paddedB = new AtomicLong();
+        TcpEventBus b = new TcpEventBus(loopback(0), List.of(), 256, 8_192, Duration.ofMillis(200),
+                Duration.ofMillis(20));
+        buses.add(b);
+        b.start(recognitions -> {
+            receivedB.addAndGet(recognitions.size());
+            paddedB.addAndGet(recognitions.stream().filter(recognition -> recognition.message().equals(padding)).count());
+        });
+        try (ServerSocket stalled = new ServerSocket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.bind(loopback(0));
+            // Accepts the connection but never reads from it
+            TcpEventBus a = start(0, List.of(loopback(stalled.getLocalPort()), loopback(b.port())),
+                    new CopyOnWriteArrayList<>());
+            for (int i = 0; receivedB.get() == 0 && i < 100; i++) {
+                a.publish(List.of(recognition("connect-" + i)));
+                Thread.sleep(50);
+            }
+
+            for (int round = 0; round < 200; round++) {
+                List<Recognition> batch = new ArrayList<>();
+                for (int i = 0; i < 256; i++) {
+                    batch.add(new Recognition(round + "-" + i, "101", "102", padding, Visibility.PUBLIC, false,
+                            "2025-01-31T09:00:00Z"));
+                }
+                a.publish(batch);
+                long expected = (round + 1) * 256L;
+                awaitTrue(() -> paddedB.get() == expected);
+            }
+
+            assertThat(a.dropped()).isPositive();
+        }
+    }
+
+    @Test
+    void aFailingDeliveryKeepsTheConnection() throws Exception {
+        List<Recognition> deliveredB = new CopyOnWriteArrayList<>();
+        TcpEventBus b = new TcpEventBus(loopback(0), List.of(), 256, 8_192, Duration.ofMillis(200),
+                Duration.ofMillis(20));
+        buses.add(b);
+        b.start(recognitions -> {
+            if (recognitions.get(0).id().equals("poison")) {
+                throw new IllegalStateException("Subscriber failed");
+            }
+            deliveredB.addAll(recognitions);
+        });
+        TcpEventBus a = start(0, List.of(loopback(b.port())), new CopyOnWriteArrayList<>());
+
+        a.publish(List.of(recognition("poison")));
+        awaitTrue(() -> b.framesReceived() == 1);
+        a.publish(List.of(recognition("after")));
+        awaitTrue(() -> deliveredB.size() == 1);
+
+        assertThat(deliveredB).extracting(Recognition::id).containsExactly("after");
+        assertThat(a.sendFailures()).isZero();
+    }
+
+    private TcpEventBus start(int port, List<InetSocketAddress> peers, List<Recognition> delivered) {
+        TcpEventBus bus = new TcpEventBus(loopback(port), peers, 256, 8_192, Duration.ofMillis(200), Duration.ofMillis(20));
+        bus.start(new RecentIdFilter(10_000, delivered::addAll));
+        buses.add(bus);
+        return bus;
+    }
+
+    private static EventFrames.Batch decode(byte[] frame) {
+        int crc = ByteBuffer.wrap(frame).getInt(Integer.BYTES);
+        return EventFrames.decode(Arrays.copyOfRange(frame, EventFrames.HEADER_BYTES, frame.length), crc);
+    }
+
+    private static Recognition recognition(String id) {
+        return new Recognition(id, "101", "102", "Thanks " + id, Visibility.PUBLIC, false, "2025-01-31T09:00:00Z");
+    }
+
+    private static InetSocketAddress loopback(int port) {
+        return new InetSocketAddress("127.0.0.1", port);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingDocumentProviderTests {
+
+    private static final String SDL = "type Query { hello: String answer: Int }";
+
+    private static final String HELLO = "{ hello }";
+    private static final String ANSWER = "{ answer }";
+    private static final String BOTH = "{ hello answer }";
+
+    @Test
+    void repeatedDocumentIsParsedOnce() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(10, false, List.of());
+        GraphQL graphQL = graphQL(documents);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(graphQL.execute(HELLO).<Map<String, Object>>getData()).containsEntry("hello", "world");
+        }
+
+        assertThat(documents.misses()).isEqualTo(1);
+        assertThat(documents.hits()).isEqualTo(2);
+    }
+
+    @Test
+    void leastRecentlyUsedDocumentIsEvicted() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(2, false, List.of());
+        GraphQL graphQL = graphQL(documents);
+
+        graphQL.execute(HELLO);
+        graphQL.execute(ANSWER);
+        graphQL.execute(HELLO);
+        graphQL.execute(BOTH);
+        assertThat(documents.evictions()).isEqualTo(1);
+
+        graphQL.execute(HELLO);
+        assertThat(documents.hits()).isEqualTo(2);
+        graphQL.execute(ANSWER);
+        assertThat(documents.misses()).isEqualTo(4);
+    }
+
+    @Test
+    void invalidDocumentsAreNotCached() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(10, false, List.of());
+        GraphQL graphQL = graphQL(documents);
+
+        assertThat(graphQL.execute("{ missing }").getErrors()).isNotEmpty();
+        assertThat(graphQL.execute("{ missing }").getErrors()).isNotEmpty();
+
+        assertThat(documents.misses()).isEqualTo(2);
+        assertThat(documents.size()).isZero();
+    }
+
+    @Test
+    void unknownHashIsRegisteredByTheRetryWithTheFullDocument() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(10, false, List.of());
+        GraphQL graphQL = graphQL(documents);
+        String hash = CachingDocumentProvider.sha256(HELLO);
+
+        assertThat(graphQL.execute(persisted(null, hash)).getErrors())
+                .extracting(GraphQLError::getMessage).containsExactly(CachingDocumentProvider.NOT_FOUND);
+        assertThat(graphQL.execute(persisted(HELLO, hash)).getErrors()).isEmpty();
+
+        ExecutionResult hashOnly = graphQL.execute(persisted(null, hash));
+        assertThat(hashOnly.getErrors()).isEmpty();
+        assertThat(hashOnly.<Map<String, Object>>getData()).containsEntry("hello", "world");
+        assertThat(documents.persistedNotFound()).isEqualTo(1);
+    }
+
+    @Test
+    void mismatchedHashIsRejected() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(10, false, List.of());
+
+        ExecutionResult result = graphQL(documents).execute(persisted(HELLO, CachingDocumentProvider.sha256(ANSWER)));
+
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getExtensions()).containsEntry("code", "PERSISTED_QUERY_HASH_MISMATCH"));
+        assertThat(documents.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void allowlistModeRunsOnlyAllowlistedDocuments() {
+        CachingDocumentProvider documents = new CachingDocumentProvider(10, true, List.of(HELLO));
+        GraphQL graphQL = graphQL(documents);
+
+        assertThat(graphQL.execute(persisted(null, CachingDocumentProvider.sha256(HELLO))).getErrors()).isEmpty();
+        assertThat(graphQL.execute(HELLO).getErrors()).isEmpty();
+        assertThat(graphQL.execute(ANSWER).getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getExtensions()).containsEntry("code", "PERSISTED_QUERY_NOT_ALLOWED"));
+        assertThat(graphQL.execute(persisted(null, CachingDocumentProvider.sha256(ANSWER))).getErrors())
+                .extracting(GraphQLError::getMessage).containsExactly(CachingDocumentProvider.NOT_FOUND);
+
+        assertThat(documents.misses()).isEqualTo(1);
+        assertThat(documents.hits()).isEqualTo(1);
+        assertThat(documents.rejected()).isEqualTo(1);
+    }
+
+    private static ExecutionInput persisted(String query, String hash) {
+        return ExecutionInput.newExecutionInput()
+                .query(query == null ? PersistedQuerySupport.PERSISTED_QUERY_MARKER : query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build();
+    }
+
+    private static GraphQL graphQL(CachingDocumentProvider documents) {
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("hello", env -> "world")
+                        .dataFetcher("answer", env -> 42))
+                .build();
+        return GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring))
+                .preparsedDocumentProvider(documents)
+                .build();
+    }
+}
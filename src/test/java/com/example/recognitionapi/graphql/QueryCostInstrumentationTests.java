@@ -0,0 +1,135 @@
+package com.example.recognitionapi.graphql;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.security.CurrentEmployeeInterceptor;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.introspection.IntrospectionQuery;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCostInstrumentationTests {
+
+    private static final String SDL = """
+            type Query {
+                teams: [Team!]!
+                feed(first: Int = 20): Connection!
+            }
+            type Team { name: String members: [Employee!]! }
+            type Employee { name: String team: Team }
+            type Connection { edges: [Edge!]! total: Int }
+            type Edge { cursor: String node: Employee }
+            """;
+
+    private static final Employee EMPLOYEE = new Employee("102", "Bob", "bob@corp.com", "1", Role.EMPLOYEE);
+    private static final Employee ADMIN = new Employee("101", "Alice", "alice@corp.com", "1", Role.ADMIN);
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GraphQL graphQL = graphQL(new QueryCostInstrumentation(new QueryCostInstrumentation.Settings(
+            5, 100, 100, Map.of("Query.feed", 3), Map.of("Query.teams", 10, "Team.members", 50),
+            QueryCostInstrumentation.budgets(1_000, 1_000, 50_000, 50_000)), registry));
+
+    @Test
+    void costIsReportedInTheResponseExtensions() {
+        // feed 3 + edges 1 + 5 nodes + 5 teams
+        ExecutionResult result = execute("{ feed(first: 5) { total edges { cursor node { name team { name } } } } }", EMPLOYEE);
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(cost(result)).containsEntry("requested", 14L).containsEntry("budget", 1_000).containsEntry("depth", 5);
+    }
+
+    @Test
+    void cyclicFanOutIsRejectedForEmployeesButNotAdmins() {
+        // teams 1 + 10 member lists + 500 teams + 500 member lists
+        String query = "{ teams { members { team { members { name } } } } }";
+
+        ExecutionResult rejected = execute(query, EMPLOYEE);
+        assertThat(rejected.getErrors()).extracting(GraphQLError::getMessage)
+                .singleElement().asString().startsWith("Query cost 1011 exceeds the budget of 1000");
+        assertThat(rejected.<Object>getData()).isNull();
+        assertThat(cost(rejected)).containsEntry("requested", 1_011L);
+
+        assertThat(execute(query, ADMIN).getErrors()).isEmpty();
+        assertThat(registry.counter("graphql.query.rejected", "reason", "cost").count()).isEqualTo(1);
+    }
+
+    @Test
+    void tooDeepQueryIsRejectedBeforeAnyResolverRuns() {
+        ExecutionResult result = execute("{ teams { members { team { members { team { name } } } } } }", ADMIN);
+
+        assertThat(result.getErrors()).extracting(GraphQLError::getMessage)
+                .containsExactly("Query depth 6 exceeds the maximum of 5.");
+        assertThat(fetches).hasValue(0);
+    }
+
+    @Test
+    void fragmentsCountWhereverTheyAreSpread() {
+        String query = """
+                { teams { members { ...Person } } feed(first: 2) { edges { node { ...Person } } } }
+                fragment Person on Employee { team { name } }
+                """;
+
+        // teams 1 + 10 member lists + 500 teams; feed 3 + edges 1 + 2 nodes + 2 teams
+        assertThat(cost(execute(query, ADMIN))).containsEntry("requested", 519L);
+    }
+
+    @Test
+    void introspectionIsFreeForEveryRole() {
+        ExecutionResult result = execute(IntrospectionQuery.INTROSPECTION_QUERY, EMPLOYEE);
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(cost(result)).containsEntry("requested", 0L).containsEntry("depth", 0);
+        assertThat(execute("{ __typename teams { __typename name } }", EMPLOYEE).getErrors()).isEmpty();
+    }
+
+    @Test
+    void callerWithoutARoleGetsTheSmallestBudget() {
+        ExecutionResult result = graphQL.execute("{ teams { members { team { members { name } } } } }");
+
+        assertThat(cost(result)).containsEntry("budget", 1_000);
+    }
+
+    private ExecutionResult execute(String query, Employee caller) {
+        return graphQL.execute(ExecutionInput.newExecutionInput()
+                .query(query)
+                .graphQLContext(Map.of(CurrentEmployeeInterceptor.CURRENT_EMPLOYEE, caller))
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cost(ExecutionResult result) {
+        return (Map<String, Object>) result.getExtensions().get("cost");
+    }
+
+    private GraphQL graphQL(QueryCostInstrumentation instrumentation) {
+        Map<String, Object> team = Map.of("name", "Engineering", "members", List.of());
+        Map<String, Object> employee = Map.of("name", "Bob", "team", team);
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("teams", env -> {
+                            fetches.incrementAndGet();
+                            return List.of(Map.of("name", "Engineering", "members", List.of(employee)));
+                        })
+                        .dataFetcher("feed", env -> {
+                            fetches.incrementAndGet();
+                            return Map.of("total", 1, "edges", List.of(Map.of("cursor", "c", "node", employee)));
+                        }))
+                .build();
+        return GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring))
+                .instrumentation(instrumentation)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadDataFetcherInstrumentationTests {
+
+    private static final String SDL = """
+            type Query { first: Item second: Item failing: String }
+            type Item { name: String thread: String }
+            """;
+
+    private final VirtualThreadDataFetcherInstrumentation instrumentation = new VirtualThreadDataFetcherInstrumentation();
+
+    @AfterEach
+    void tearDown() {
+        instrumentation.close();
+    }
+
+    @Test
+    void rootFieldsResolveConcurrentlyOnVirtualThreads() {
+        // Each root resolver waits for the other; run one after another they would both time out
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        GraphQL graphQL = graphQL(RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("first", env -> item("first", bothStarted))
+                        .dataFetcher("second", env -> item("second", bothStarted)))
+                .build());
+
+        ExecutionResult result = graphQL.execute("{ first { name thread } second { name } }");
+
+        assertThat(result.getErrors()).isEmpty();
+        Map<String, Map<String, Object>> data = result.getData();
+        assertThat(data.get("first")).containsEntry("name", "first").containsEntry("thread", "virtual");
+        assertThat(data.get("second")).containsEntry("name", "second");
+    }
+
+    @Test
+    void resolverExceptionsBecomeFieldErrors() {
+        GraphQL graphQL = graphQL(RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type.dataFetcher("failing", env -> {
+                    throw new IllegalStateException("boom");
+                }))
+                .build());
+
+        ExecutionResult result = graphQL.execute("{ failing }");
+
+        assertThat(result.getErrors()).singleElement()
+                .satisfies(error -> assertThat(error.getMessage()).contains("boom"));
+    }
+
+    private GraphQL graphQL(RuntimeWiring wiring) {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring);
+        return GraphQL.newGraphQL(schema).instrumentation(instrumentation).build();
+    }
+
+    private static Map<String, Object> item(String name, CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("root fields did not run concurrently");
+        }
+        return Map.of("name", name, "thread", Thread.currentThread().isVirtual() ? "virtual" : "platform");
+    }
+}
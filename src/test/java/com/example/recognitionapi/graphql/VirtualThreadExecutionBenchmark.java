@@ -0,0 +1,115 @@
+package com.example.recognitionapi.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Request latency and throughput with {@code benchmark.clients} concurrent clients, each sending
+ * one query with three independent root fields that block for {@code benchmark.latency-ms}.
+ * The blocking stands in for I/O such as a directory lookup. Three modes are compared:
+ * <ul>
+ *     <li>platform: a 200-thread pool, Tomcat's default maximum, with fields resolved one after another;</li>
+ *     <li>virtual: one virtual thread per request, with fields still sequential;</li>
+ *     <li>virtual + async fields: as above, plus {@link VirtualThreadDataFetcherInstrumentation}.</li>
+ * </ul>
+ * Run with {@code ./gradlew benchmark -Dbenchmark.clients=5000 -Dbenchmark.latency-ms=20}.
+ */
+@Tag("benchmark")
+class VirtualThreadExecutionBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 5_000);
+    private static final int LATENCY_MS = Integer.getInteger("benchmark.latency-ms", 20);
+    private static final int PLATFORM_THREADS = 200;
+
+    private static final String SDL = "type Query { profile: String team: String recognitions: String }";
+    private static final String QUERY = "{ profile team recognitions }";
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        GraphQLSchema schema = schema();
+
+        run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), GraphQL.newGraphQL(schema).build());
+        run("virtual", Executors.newVirtualThreadPerTaskExecutor(), GraphQL.newGraphQL(schema).build());
+        try (VirtualThreadDataFetcherInstrumentation instrumentation = new VirtualThreadDataFetcherInstrumentation()) {
+            run("virtual + async fields", Executors.newVirtualThreadPerTaskExecutor(),
+                    GraphQL.newGraphQL(schema).instrumentation(instrumentation).build());
+        }
+    }
+
+    private static void run(String mode, ExecutorService clients, GraphQL graphQL) throws Exception {
+        // Warm up the execution path before timing
+        for (int i = 0; i < 50; i++) {
+            graphQL.execute(QUERY);
+        }
+
+        long[] latencies = new long[CLIENTS];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        long begin = System.nanoTime();
+        for (int c = 0; c < CLIENTS; c++) {
+            int client = c;
+            // Latency is measured from submission, so time spent queued for a thread counts
+            long submitted = System.nanoTime();
+            clients.execute(() -> {
+                try {
+                    start.await();
+                    ExecutionResult result = graphQL.execute(QUERY);
+                    if (!result.getErrors().isEmpty()) {
+                        errors.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    errors.incrementAndGet();
+                } finally {
+                    latencies[client] = System.nanoTime() - submitted;
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(10, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - begin;
+        clients.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-24s %,d clients: %,8.0f req/s  p50 %,7.1f ms  p99 %,7.1f ms  max %,7.1f ms%n",
+                mode, CLIENTS, CLIENTS / (elapsed / 1e9), millis(latencies, 0.50), millis(latencies, 0.99),
+                latencies[latencies.length - 1] / 1e6);
+        assertThat(errors.get()).isZero();
+    }
+
+    private static GraphQLSchema schema() {
+        DataFetcher<String> blocking = env -> {
+            Thread.sleep(LATENCY_MS);
+            return env.getField().getName();
+        };
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("profile", blocking)
+                        .dataFetcher("team", blocking)
+                        .dataFetcher("recognitions", blocking))
+                .build();
+        return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SDL), wiring);
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))] / 1e6;
+    }
+}
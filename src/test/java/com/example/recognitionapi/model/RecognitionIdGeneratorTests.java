@@ -0,0 +1,114 @@
+package com.example.recognitionapi.model;
+
+import com.example.recognitionapi.storage.RecognitionCursor;
+import com.example.recognitionapi.storage.RecognitionKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RecognitionIdGeneratorTests {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void idsIncreaseAndCarryTheirTimestampEvenWhenTheClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        RecognitionIdGenerator generator = new RecognitionIdGenerator(7, clock::get);
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ids.add(generator.next());
+        }
+        clock.set(NOW + 5);
+        ids.add(generator.next());
+        clock.set(NOW - 1_000);
+        ids.add(generator.next());
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+            assertThat(ids.get(i).toString()).isGreaterThan(ids.get(i - 1).toString());
+        }
+        assertThat(ids).allMatch(id -> id.version() == 7 && id.variant() == 2)
+                .allMatch(id -> RecognitionIdGenerator.isTimeOrdered(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        assertThat(RecognitionIdGenerator.epochMillis(ids.get(0).getMostSignificantBits())).isEqualTo(NOW);
+        assertThat(RecognitionIdGenerator.epochMillis(ids.get(1_000).getMostSignificantBits())).isEqualTo(NOW + 5);
+        assertThat(RecognitionIdGenerator.epochMillis(ids.get(1_001).getMostSignificantBits())).isEqualTo(NOW + 5);
+    }
+
+    @Test
+    void idsAreUniqueUnderContention() throws InterruptedException {
+        RecognitionIdGenerator generator = new RecognitionIdGenerator(1, System::currentTimeMillis);
+        int threads = 64;
+        int perThread = 10_000;
+        Queue<List<UUID>> perThreadIds = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                List<UUID> ids = new ArrayList<>(perThread);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.next());
+                }
+                perThreadIds.add(ids);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        Set<UUID> distinct = new HashSet<>();
+        assertThat(perThreadIds).hasSize(threads);
+        for (List<UUID> ids : perThreadIds) {
+            assertThat(ids).isSorted();
+            distinct.addAll(ids);
+        }
+        assertThat(distinct).hasSize(threads * perThread);
+    }
+
+    @Test
+    void createdRecognitionsUseTheIdTimestampAndTheIdAsCursor() {
+        Recognition recognition = Recognition.create("101", "102", "Thanks", Visibility.PUBLIC, false);
+        UUID id = UUID.fromString(recognition.id());
+
+        assertThat(recognition.createdAt().toEpochMilli())
+                .isEqualTo(RecognitionIdGenerator.epochMillis(id.getMostSignificantBits()));
+
+        RecognitionKey key = new RecognitionKey(recognition.createdAt().toEpochMilli(),
+                id.getMostSignificantBits(), id.getLeastSignificantBits());
+        String cursor = RecognitionCursor.encode(key);
+        assertThat(cursor).hasSize(23);
+        assertThat(RecognitionCursor.decode(cursor)).isEqualTo(key);
+
+        // Keys whose creation time is not the id's own keep the full cursor
+        RecognitionKey imported = new RecognitionKey(key.createdAt() - 1, key.idHigh(), key.idLow());
+        assertThat(RecognitionCursor.decode(RecognitionCursor.encode(imported))).isEqualTo(imported);
+        RecognitionKey random = new RecognitionKey(key.createdAt(), UUID.randomUUID().getMostSignificantBits(), 1);
+        assertThat(RecognitionCursor.decode(RecognitionCursor.encode(random))).isEqualTo(random);
+    }
+
+    @Test
+    void nodeIdMustFitSixteenBits() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new RecognitionIdGenerator(-1, System::currentTimeMillis));
+        assertThatIllegalArgumentException().isThrownBy(
+                () -> new RecognitionIdGenerator(RecognitionIdGenerator.MAX_NODE_ID + 1, System::currentTimeMillis));
+    }
+}
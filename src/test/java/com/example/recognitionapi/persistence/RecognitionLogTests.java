@@ -0,0 +1,148 @@
+package com.example.recognitionapi.persistence;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecognitionLogTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentAppendsSurviveARestart() throws Exception {
+        List<Recognition> written = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            written.add(recognition(i));
+        }
+
+        try (RecognitionLog log = open(new LinkedHashMap<>())) {
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Recognition recognition : written) {
+                futures.add(executor.submit(() -> log.append(recognition)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        Map<String, Recognition> recovered = new LinkedHashMap<>();
+        open(recovered).close();
+        assertThat(recovered.values()).containsExactlyInAnyOrderElementsOf(written);
+    }
+
+    @Test
+    void batchLargerThanTheQueueSurvivesARestart() throws Exception {
+        List<Recognition> written = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            written.add(recognition(i));
+        }
+
+        try (RecognitionLog log = open(new LinkedHashMap<>())) {
+            log.appendAll(written);
+        }
+
+        Map<String, Recognition> recovered = new LinkedHashMap<>();
+        open(recovered).close();
+        assertThat(recovered.values()).containsExactlyElementsOf(written);
+    }
+
+    @Test
+    void snapshotCompactsOlderSegments() throws Exception {
+        Map<String, Recognition> state = new LinkedHashMap<>();
+        try (RecognitionLog log = open(state)) {
+            for (int i = 0; i < 100; i++) {
+                save(log, state, recognition(i));
+            }
+            log.snapshot(state::values);
+            for (int i = 100; i < 150; i++) {
+                save(log, state, recognition(i));
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                    .containsExactlyInAnyOrder("snapshot-1.bin", "log-1.bin");
+        }
+
+        Map<String, Recognition> recovered = new LinkedHashMap<>();
+        open(recovered).close();
+        assertThat(recovered).isEqualTo(state);
+    }
+
+    @Test
+    void tornTailIsDroppedOnRecovery() throws Exception {
+        Map<String, Recognition> state = new LinkedHashMap<>();
+        try (RecognitionLog log = open(state)) {
+            for (int i = 0; i < 10; i++) {
+                save(log, state, recognition(i));
+            }
+        }
+        Path segment = directory.resolve("log-0.bin");
+        long intactSize = Files.size(segment);
+        // A crash halfway through a frame: a plausible header followed by too few payload bytes
+        Files.write(segment, new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        Map<String, Recognition> recovered = new LinkedHashMap<>();
+        try (RecognitionLog log = open(recovered)) {
+            assertThat(recovered).isEqualTo(state);
+            assertThat(Files.size(segment)).isEqualTo(intactSize);
+            // Appends after recovery go to a fresh segment
+            log.append(recognition(10));
+        }
+        assertThat(directory.resolve("log-1.bin")).exists();
+    }
+
+    @Test
+    void recognitionTooLargeForAFrameIsRejectedAndLaterAppendsSurvive() throws Exception {
+        Map<String, Recognition> state = new LinkedHashMap<>();
+        Recognition oversized = new Recognition("r-big", "101", "102", "x".repeat(RecognitionCodec.MAX_PAYLOAD_BYTES),
+                Visibility.PUBLIC, false, Instant.ofEpochSecond(1_700_000_000L));
+        try (RecognitionLog log = open(state)) {
+            save(log, state, recognition(0));
+            assertThatThrownBy(() -> log.append(oversized)).isInstanceOf(IllegalArgumentException.class);
+            save(log, state, recognition(1));
+        }
+
+        Map<String, Recognition> recovered = new LinkedHashMap<>();
+        open(recovered).close();
+        assertThat(recovered).isEqualTo(state);
+    }
+
+    private RecognitionLog open(Map<String, Recognition> sink) throws IOException {
+        RecognitionLog log = new RecognitionLog(directory, false, 256, 1024);
+        log.recover(recognition -> sink.put(recognition.id(), recognition));
+        return log;
+    }
+
+    private static void save(RecognitionLog log, Map<String, Recognition> state, Recognition recognition) {
+        state.put(recognition.id(), recognition);
+        log.append(recognition);
+    }
+
+    static Recognition recognition(long n) {
+        return new Recognition("r-" + n, "10" + (n % 5 + 1), "10" + ((n + 1) % 5 + 1), "Thank you for the help! #" + n,
+                n % 3 == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, n % 7 == 0,
+                Instant.ofEpochSecond(1_700_000_000L + n, n % 1_000_000 * 1_000));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.events.InProcessEventBus;
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.ImportReport;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionInput;
+import com.example.recognitionapi.model.Visibility;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RecognitionBatchServiceTests {
+
+    private final RecognitionService dataService = new RecognitionService();
+    private final SubscriptionRouter router = new SubscriptionRouter(2_048, 1_024, BufferOverflowStrategy.DROP_OLDEST);
+    private final InProcessEventBus eventBus = new InProcessEventBus();
+    private final NotificationService notifications = mock(NotificationService.class);
+    private final RecognitionBatchService batchService =
+            new RecognitionBatchService(dataService, eventBus, notifications, 100, new SimpleMeterRegistry());
+
+    private Employee alice;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.invokeMethod(dataService, "init");
+        eventBus.start(router::publishAll);
+        alice = dataService.getEmployeeById("101");
+    }
+
+    @Test
+    void createsABatchAndPublishesItOnce() {
+        List<Recognition> received = new CopyOnWriteArrayList<>();
+        router.subscribe(dataService.getEmployeeById("105")).subscribe(received::add);
+        List<RecognitionInput> inputs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            inputs.add(new RecognitionInput("10" + (2 + i % 4), "Thanks " + i,
+                    i % 2 == 0 ? Visibility.PUBLIC : Visibility.PRIVATE, false));
+        }
+
+        List<Recognition> created = batchService.createAll(alice, inputs);
+
+        assertThat(created).hasSize(500).allMatch(recognition -> recognition.senderId().equals("101"));
+        assertThat(dataService.getRecognitionsForSender("101")).hasSize(500);
+        assertThat(received).containsExactlyInAnyOrderElementsOf(created);
+        verify(notifications, times(1)).sendRecognitionNotifications(anyList(), anyMap());
+    }
+
+    @Test
+    void oneInvalidInputRejectsTheWholeBatch() {
+        List<RecognitionInput> inputs = List.of(
+                new RecognitionInput("102", "Thanks", Visibility.PUBLIC, false),
+                new RecognitionInput("999", "Thanks", Visibility.PUBLIC, false),
+                new RecognitionInput("101", "Thanks", Visibility.PUBLIC, false),
+                new RecognitionInput("103", "x".repeat(Recognition.MAX_MESSAGE_LENGTH + 1), Visibility.PUBLIC, false));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> batchService.createAll(alice, inputs))
+                .withMessageContaining("input[1]")
+                .withMessageContaining("input[2]")
+                .withMessageContaining("input[3]: message is longer than " + Recognition.MAX_MESSAGE_LENGTH);
+        assertThat(dataService.getRecognitionsForSender("101")).isEmpty();
+        verify(notifications, never()).sendRecognitionNotifications(anyList(), anyMap());
+    }
+
+    @Test
+    void importSkipsInvalidLinesAndCountsDuplicates() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append("{\"id\":\"imp-").append(i).append("\",\"senderId\":\"101\",\"recipientId\":\"102\",")
+                    .append("\"message\":\"Thanks ").append(i).append("\",\"visibility\":\"PUBLIC\",")
+                    .append("\"isAnonymous\":false,\"createdAt\":\"2024-05-01T10:00:00.123456Z\"}\n");
+        }
+        ndjson.append("{\"id\":\"imp-0\",\"senderId\":\"101\",\"recipientId\":\"102\",\"message\":\"again\"}\n");
+        ndjson.append("not json\n");
+        ndjson.append("{\"senderId\":\"101\",\"recipientId\":\"101\",\"message\":\"me\"}\n");
+        ndjson.append("\n");
+        ndjson.append("{\"senderId\":\"101\",\"recipientId\":\"103\",\"message\":\"hi\",\"createdAt\":\"yesterday\"}\n");
+
+        ImportReport report = batchService.importNdjson(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), false);
+
+        assertThat(report.lines()).isEqualTo(255);
+        assertThat(report.imported()).isEqualTo(250);
+        assertThat(report.duplicates()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(3);
+        assertThat(report.errors()).containsExactly(
+                "line 252: not a valid recognition record",
+                "line 253: sender and recipient are the same employee",
+                "line 255: createdAt is not an ISO-8601 instant");
+        assertThat(dataService.getRecognitionsForRecipient("102")).hasSize(250)
+                .allMatch(recognition -> recognition.createdAt().equals(Instant.parse("2024-05-01T10:00:00.123Z")));
+        verify(notifications, never()).sendRecognitionNotifications(anyList(), anyMap());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.ExportFormat;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.storage.RecognitionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Export throughput and retained heap. Run with {@code ./gradlew benchmark -Dbenchmark.records=10000000}.
+ * Retained heap is measured after a full GC halfway through the export, so it counts what the export
+ * holds on to, not the garbage it churns through.
+ */
+@Tag("benchmark")
+class RecognitionExportBenchmark {
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 10_000_000);
+    private static final int BATCH = 10_000;
+
+    @Test
+    void exportsInConstantMemory() throws Exception {
+        RecognitionService dataService = new RecognitionService(new RecognitionStore(), null, Duration.ZERO, 16);
+        RecognitionExportService exportService = new RecognitionExportService(dataService, new SimpleMeterRegistry());
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        List<Recognition> batch = new ArrayList<>(BATCH);
+        for (int n = 0; n < RECORDS; n++) {
+            batch.add(new Recognition(UUID.randomUUID().toString(), String.valueOf(1_000 + n % 200),
+                    String.valueOf(1_000 + (n * 7 + 1) % 200), "Thank you for the help on release " + n % 1_000 + "!",
+                    n % 3 == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, n % 7 == 0,
+                    start.plusMillis(n * 37L)));
+            if (batch.size() == BATCH) {
+                dataService.saveRecognitions(batch);
+                batch.clear();
+            }
+        }
+        dataService.saveRecognitions(batch);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            for (boolean gzip : new boolean[] {false, true}) {
+                long baseline = usedHeap();
+                CountingOutputStream counting = new CountingOutputStream();
+                long[] emitted = new long[1];
+                long[] retained = new long[1];
+                Flux<Recognition> recognitions = exportService.stream(null, null, null).doOnNext(recognition -> {
+                    if (++emitted[0] == RECORDS / 2) {
+                        retained[0] = usedHeap() - baseline;
+                    }
+                });
+
+                long started = System.nanoTime();
+                long written = exportService.write(recognitions, format, gzip, counting);
+                long elapsedNanos = System.nanoTime() - started;
+
+                System.out.printf("export: %s gzip=%s %,d recognitions in %,d ms (%,.0f/s), %,d bytes, "
+                                + "retained heap mid-export %,d KiB%n",
+                        format, gzip, written, elapsedNanos / 1_000_000, written * 1e9 / elapsedNanos,
+                        counting.bytes, retained[0] / 1024);
+                assertThat(written).isEqualTo(RECORDS);
+                assertThat(retained[0]).isLessThan(64L * 1024 * 1024);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Discards the export, keeping only its size
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
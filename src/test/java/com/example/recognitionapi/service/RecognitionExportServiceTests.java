@@ -0,0 +1,134 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.events.InProcessEventBus;
+import com.example.recognitionapi.model.ExportFormat;
+import com.example.recognitionapi.model.ImportReport;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+
+class RecognitionExportServiceTests {
+
+    private final RecognitionService dataService = new RecognitionService();
+    private final RecognitionExportService exportService =
+            new RecognitionExportService(dataService, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.invokeMethod(dataService, "init");
+        save("r-1", "101", "102", "Great demo", "2025-01-01T00:00:00Z");
+        save("r-2", "103", "104", "Said \"thanks\", then\nleft", "2025-02-01T00:00:00Z");
+        save("r-3", "105", "101", "Helpful review", "2025-03-01T00:00:00Z");
+        save("r-4", "105", "103", "On-call hero", "2025-04-01T00:00:00Z");
+    }
+
+    @Test
+    void streamsOldestFirstWithinTheRange() {
+        assertThat(ids(exportService.stream(null, null, null).collectList().block()))
+                .containsExactly("r-1", "r-2", "r-3", "r-4");
+        assertThat(ids(exportService.stream(Instant.parse("2025-02-01T00:00:00Z"),
+                Instant.parse("2025-04-01T00:00:00Z"), null).collectList().block()))
+                .containsExactly("r-2", "r-3");
+    }
+
+    @Test
+    void teamFilterKeepsRecognitionsSentOrReceivedByMembers() {
+        assertThat(ids(exportService.stream(null, null, "2").collectList().block())).containsExactly("r-2", "r-4");
+        assertThat(exportService.stream(null, null, "9").collectList().block()).isEmpty();
+    }
+
+    @Test
+    void emitsOnlyWhatIsRequested() {
+        StepVerifier.create(exportService.stream(null, null, null), 1)
+                .expectNextMatches(recognition -> recognition.id().equals("r-1"))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void rejectsAnEmptyRange() {
+        Instant instant = Instant.parse("2025-01-01T00:00:00Z");
+        assertThatIllegalArgumentException().isThrownBy(() -> exportService.stream(instant, instant, null));
+    }
+
+    @Test
+    void writesCsvWithQuotedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.write(exportService.stream(null, Instant.parse("2025-03-01T00:00:00Z"), null),
+                ExportFormat.CSV, out);
+
+        assertThat(written).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,senderId,recipientId,message,visibility,isAnonymous,createdAt\r\n"
+                        + "r-1,101,102,Great demo,PUBLIC,false,2025-01-01T00:00:00Z\r\n"
+                        + "r-2,103,104,\"Said \"\"thanks\"\", then\nleft\",PUBLIC,false,2025-02-01T00:00:00Z\r\n");
+    }
+
+    @Test
+    void csvFieldsThatWouldRunAsFormulasAreNeutralized() throws Exception {
+        StringWriter csv = new StringWriter();
+        for (String message : new String[] {"=HYPERLINK(\"http://evil\")", "+1", "-2", "@SUM(A1)", "\tx", "\rx", "a=b"}) {
+            RecognitionExportService.writeCsvField(message, csv);
+            csv.write('|');
+        }
+
+        assertThat(csv.toString()).isEqualTo(
+                "\"'=HYPERLINK(\"\"http://evil\"\")\"|'+1|'-2|'@SUM(A1)|'\tx|\"'\rx\"|a=b|");
+    }
+
+    @Test
+    void gzipWrapsTheSameBytes() throws Exception {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        exportService.write(exportService.stream(null, null, null), ExportFormat.NDJSON, false, plain);
+        exportService.write(exportService.stream(null, null, null), ExportFormat.NDJSON, true, compressed);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.toByteArray());
+        }
+    }
+
+    @Test
+    void ndjsonExportReimportsAsIs() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.write(exportService.stream(null, null, null), ExportFormat.NDJSON, out);
+
+        RecognitionService restored = new RecognitionService();
+        ReflectionTestUtils.invokeMethod(restored, "init");
+        InProcessEventBus eventBus = new InProcessEventBus();
+        eventBus.start(recognitions -> { });
+        RecognitionBatchService batchService = new RecognitionBatchService(restored, eventBus,
+                mock(NotificationService.class), 100, new SimpleMeterRegistry());
+        ImportReport report = batchService.importNdjson(new ByteArrayInputStream(out.toByteArray()), false);
+
+        assertThat(report.imported()).isEqualTo(4);
+        assertThat(restored.getRecognitionsForRecipient(null))
+                .containsExactlyElementsOf(dataService.getRecognitionsForRecipient(null));
+    }
+
+    private void save(String id, String senderId, String recipientId, String message, String createdAt) {
+        dataService.saveRecognition(new Recognition(id, senderId, recipientId, message, Visibility.PUBLIC, false, createdAt));
+    }
+
+    private static List<String> ids(List<Recognition> recognitions) {
+        return recognitions.stream().map(Recognition::id).toList();
+    }
+}
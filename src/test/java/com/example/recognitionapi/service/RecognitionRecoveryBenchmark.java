@@ -0,0 +1,87 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import com.example.recognitionapi.persistence.RecognitionLog;
+import com.example.recognitionapi.storage.RecognitionStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures cold start from a compacted snapshot plus a log segment: the replay into a
+ * {@link RecognitionService}, which rebuilds the store's indexes and the rollups, then the first
+ * feed reads, which refill the feed cache. Run with {@code ./gradlew benchmark -Dbenchmark.records=10000000}.
+ */
+@Tag("benchmark")
+class RecognitionRecoveryBenchmark {
+
+    private static final long RECORDS = Long.getLong("benchmark.records", 10_000_000L);
+    private static final long LOG_TAIL = Math.min(100_000L, RECORDS / 10);
+    private static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    // Spread over the last 60 days so every recognition lands in the retained rollup buckets
+    private static final Instant START = Instant.now().minus(Duration.ofDays(60));
+    private static final long SPACING_NANOS = Duration.ofDays(60).toNanos() / RECORDS;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverSnapshotAndLogTail() throws Exception {
+        long snapshotRecords = RECORDS - LOG_TAIL;
+        try (RecognitionLog log = new RecognitionLog(directory, false, 4096, 65_536)) {
+            log.recover(recognition -> { });
+            Iterable<Recognition> state = () -> LongStream.range(0, snapshotRecords)
+                    .mapToObj(RecognitionRecoveryBenchmark::recognition)
+                    .iterator();
+            log.snapshot(() -> state);
+            for (long i = snapshotRecords; i < RECORDS; i++) {
+                log.append(recognition(i));
+            }
+        }
+        long bytes;
+        try (var files = Files.list(directory)) {
+            bytes = files.mapToLong(path -> path.toFile().length()).sum();
+        }
+
+        RecognitionStore store = new RecognitionStore();
+        try (RecognitionLog log = new RecognitionLog(directory, false, 4096, 65_536)) {
+            RecognitionService service = new RecognitionService(store, log, Duration.ZERO, 10_000);
+            long started = System.nanoTime();
+            ReflectionTestUtils.invokeMethod(service, "init");
+            long recoveryNanos = System.nanoTime() - started;
+
+            started = System.nanoTime();
+            for (String employee : EMPLOYEES) {
+                service.getRecognitionPageForRecipient(employee, 20, null);
+                service.getRecognitionPageForSender(employee, 20, null);
+            }
+            service.getRecognitionPageForRecipient(null, 20, null);
+            long firstReadsNanos = System.nanoTime() - started;
+
+            System.out.printf("recovery: %,d records, %,d MiB in %,d ms (%,.0f records/s); first feed reads %,d us%n",
+                    store.size(), bytes >> 20, TimeUnit.NANOSECONDS.toMillis(recoveryNanos),
+                    store.size() / (recoveryNanos / 1e9), TimeUnit.NANOSECONDS.toMicros(firstReadsNanos));
+            assertThat((long) store.size()).isEqualTo(RECORDS);
+            assertThat(service.feedCacheSize()).isEqualTo(EMPLOYEES.size() * 2 + 1);
+        }
+    }
+
+    private static Recognition recognition(long n) {
+        return new Recognition("r-" + n, EMPLOYEES.get((int) (n % 5)), EMPLOYEES.get((int) ((n + 1) % 5)),
+                "Thank you for the help! #" + n, n % 3 == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, n % 7 == 0,
+                START.plusNanos(n * SPACING_NANOS));
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.LeaderboardEntry;
+import com.example.recognitionapi.model.LeaderboardScope;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.TimeWindow;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RecognitionServiceTests {
+
+    private static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    private final RecognitionService service = new RecognitionService();
+
+    @Test
+    void indexesStayConsistentUnderConcurrentWrites() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        Collection<Recognition> saved = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    Recognition recognition = recognition(thread * perThread + i);
+                    service.saveRecognition(recognition);
+                    saved.add(recognition);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(service.getRecognitionsForRecipient(null)).hasSize(threads * perThread);
+        for (String employee : EMPLOYEES) {
+            List<Recognition> received = service.getRecognitionsForRecipient(employee);
+            List<Recognition> sent = service.getRecognitionsForSender(employee);
+
+            assertThat(received).containsExactlyInAnyOrderElementsOf(
+                    saved.stream().filter(r -> r.recipientId().equals(employee)).toList());
+            assertThat(sent).containsExactlyInAnyOrderElementsOf(
+                    saved.stream().filter(r -> r.senderId().equals(employee)).toList());
+            assertNewestFirst(received);
+            assertNewestFirst(sent);
+        }
+    }
+
+    @Test
+    void concurrentResavesOfTheSameIdKeepASingleIndexEntry() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4_000; i++) {
+            int n = i;
+            futures.add(executor.submit(() -> {
+                // Same 100 ids written over and over with shifting recipients
+                Recognition recognition = new Recognition("id-" + (n % 100), "101",
+                        EMPLOYEES.get(1 + n % 4), "msg", Visibility.PUBLIC, false,
+                        Instant.ofEpochSecond(1_700_000_000L + n % 100));
+                service.saveRecognition(recognition);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(service.getRecognitionsForRecipient(null)).hasSize(100);
+        int indexed = EMPLOYEES.stream()
+                .mapToInt(employee -> service.getRecognitionsForRecipient(employee).size())
+                .sum();
+        assertThat(indexed).isEqualTo(100);
+        assertThat(service.getRecognitionsForSender("101")).hasSize(100);
+    }
+
+    @Test
+    void batchSaveSkipsStoredIdsAndKeepsFeedsNewestFirst() {
+        service.saveRecognition(recognition(3));
+        List<Recognition> batch = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            batch.add(recognition(i));
+        }
+
+        List<Recognition> added = service.saveRecognitions(batch);
+
+        assertThat(added).hasSize(999).doesNotContain(recognition(3));
+        assertThat(service.getRecognitionsForRecipient(null)).hasSize(1_000);
+        for (String employee : EMPLOYEES) {
+            assertThat(service.getRecognitionsForRecipient(employee)).containsExactlyInAnyOrderElementsOf(
+                    batch.stream().filter(r -> r.recipientId().equals(employee)).toList());
+            assertNewestFirst(service.getRecognitionsForRecipient(employee));
+            assertNewestFirst(service.getRecognitionsForSender(employee));
+        }
+    }
+
+    @Test
+    void unknownEmployeeHasEmptyFeeds() {
+        service.saveRecognition(recognition(1));
+
+        assertThat(service.getRecognitionsForRecipient("999")).isEmpty();
+        assertThat(service.getRecognitionsForSender("999")).isEmpty();
+    }
+
+    @Test
+    void pagesWalkTheFeedNewestFirstWithoutGapsOrDuplicates() {
+        for (int i = 0; i < 250; i++) {
+            service.saveRecognition(recognition(i));
+        }
+        List<Recognition> expected = service.getRecognitionsForRecipient("102");
+
+        List<Recognition> paged = new ArrayList<>();
+        String after = null;
+        RecognitionConnection page;
+        do {
+            page = service.getRecognitionPageForRecipient("102", 7, after, recognition -> true);
+            assertThat(page.edges()).hasSizeLessThanOrEqualTo(7);
+            page.edges().forEach(edge -> paged.add(edge.node()));
+            after = page.pageInfo().endCursor();
+        } while (page.pageInfo().hasNextPage());
+
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void pagesApplyTheFilterAndCapThePageSize() {
+        for (int i = 0; i < 500; i++) {
+            service.saveRecognition(recognition(i));
+        }
+
+        RecognitionConnection page = service.getRecognitionPageForRecipient(null, 1_000, null,
+                recognition -> recognition.visibility() == Visibility.PUBLIC);
+
+        assertThat(page.edges()).hasSize(RecognitionService.MAX_PAGE_SIZE);
+        assertThat(page.edges()).allMatch(edge -> edge.node().visibility() == Visibility.PUBLIC);
+        assertThat(page.pageInfo().hasNextPage()).isTrue();
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> service.getRecognitionPageForSender("101", 10, "not-a-cursor"));
+    }
+
+    @Test
+    void findByEmailIgnoresCaseAndSurroundingWhitespace() {
+        ReflectionTestUtils.invokeMethod(service, "init");
+
+        assertThat(service.findByEmail("Alice@Corp.COM")).extracting(Employee::id).isEqualTo("101");
+        assertThat(service.findByEmail(" bob@corp.com ")).extracting(Employee::id).isEqualTo("102");
+        assertThat(service.findByEmail("nobody@corp.com")).isNull();
+        assertThat(service.findByEmail(null)).isNull();
+    }
+
+    @Test
+    void leaderboardResolvesEmployeesAndTeams() {
+        ReflectionTestUtils.invokeMethod(service, "init");
+        service.saveRecognition(Recognition.create("101", "102", "Thanks", Visibility.PUBLIC, false));
+        service.saveRecognition(Recognition.create("103", "102", "Thanks", Visibility.PRIVATE, false));
+        service.saveRecognition(Recognition.create("101", "104", "Thanks", Visibility.PUBLIC, false));
+
+        List<LeaderboardEntry> employees = service.getLeaderboard(LeaderboardScope.EMPLOYEE, TimeWindow.WEEK, 1);
+        assertThat(employees).singleElement().satisfies(entry -> {
+            assertThat(entry.rank()).isEqualTo(1);
+            assertThat(entry.employee().name()).isEqualTo("Bob");
+            assertThat(entry.count()).isEqualTo(2);
+        });
+
+        List<LeaderboardEntry> teams = service.getLeaderboard(LeaderboardScope.TEAM, TimeWindow.MONTH, 10);
+        assertThat(teams).extracting(entry -> entry.team().name()).containsExactly("Engineering", "Product");
+        assertThat(service.getRecognitionStats("1", TimeWindow.QUARTER).sent()).isEqualTo(2);
+    }
+
+    @Test
+    void cachedFeedsOnlyChangeForTheParticipantsOfANewRecognition() {
+        service.saveRecognition(recognition(0));
+        service.saveRecognition(recognition(1));
+
+        List<Recognition> received = service.getRecognitionsForRecipient("102");
+        RecognitionConnection sentPage = service.getRecognitionPageForSender("101", 10, null);
+        List<Recognition> untouched = service.getRecognitionsForSender("102");
+        assertThat(service.getRecognitionsForRecipient("102")).isSameAs(received);
+        assertThat(service.getRecognitionPageForSender("101", 10, null)).isSameAs(sentPage);
+        long hits = service.feedCacheHits();
+
+        Recognition added = new Recognition("r-new", "101", "102", "Thanks", Visibility.PUBLIC, false,
+                Instant.ofEpochMilli(1_800_000_000_000L));
+        service.saveRecognition(added);
+
+        assertThat(service.getRecognitionsForRecipient("102")).first().isEqualTo(added);
+        assertThat(service.getRecognitionPageForSender("101", 10, null).edges().get(0).node()).isEqualTo(added);
+        assertThat(service.getRecognitionsForRecipient(null)).first().isEqualTo(added);
+        assertThat(service.getRecognitionsForSender("102")).isSameAs(untouched);
+        assertThat(service.feedCacheHits()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void batchSavesInvalidateCachedFeeds() {
+        assertThat(service.getRecognitionsForRecipient("102")).isEmpty();
+
+        service.saveRecognitions(List.of(recognition(0), recognition(15)));
+
+        assertThat(service.getRecognitionsForRecipient("102")).extracting(Recognition::id)
+                .containsExactlyInAnyOrder("r-0", "r-15");
+    }
+
+    @Test
+    void directoryReadsShareOneSnapshot() {
+        ReflectionTestUtils.invokeMethod(service, "init");
+
+        assertThat(service.getAllEmployees()).isSameAs(service.getAllEmployees());
+        assertThat(service.getAllTeams()).isSameAs(service.getAllTeams());
+        assertThat(service.getEmployeesByTeamIds(List.of("1")).get("1"))
+                .extracting(Employee::teamId).containsOnly("1");
+    }
+
+    private static Recognition recognition(int n) {
+        String sender = EMPLOYEES.get(n % EMPLOYEES.size());
+        String recipient = EMPLOYEES.get((n + 1 + n % 3) % EMPLOYEES.size());
+        Visibility visibility = n % 2 == 0 ? Visibility.PUBLIC : Visibility.PRIVATE;
+        Instant createdAt = Instant.ofEpochMilli(1_700_000_000_000L + (n * 7919L) % 100_000);
+        return new Recognition("r-" + n, sender, recipient, "message " + n, visibility, false, createdAt);
+    }
+
+    private static void assertNewestFirst(List<Recognition> feed) {
+        List<Instant> createdAt = feed.stream().map(Recognition::createdAt).collect(Collectors.toList());
+        for (int i = 1; i < createdAt.size(); i++) {
+            assertThat(createdAt.get(i - 1)).isAfterOrEqualTo(createdAt.get(i));
+        }
+    }
+}
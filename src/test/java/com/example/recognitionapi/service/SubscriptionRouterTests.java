@@ -0,0 +1,192 @@
+package com.example.recognitionapi.service;
+
+import com.example.recognitionapi.model.Employee;
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Role;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriptionRouterTests {
+
+    private static final Employee BOB = new Employee("102", "Bob", "bob@corp.com", "1", Role.EMPLOYEE);
+    private static final Employee CHARLIE = new Employee("103", "Charlie", "charlie@corp.com", "2", Role.MANAGER);
+    private static final Employee DIANA = new Employee("104", "Diana", "diana@corp.com", "2", Role.EMPLOYEE);
+    private static final Employee EVE = new Employee("105", "Eve", "eve@corp.com", "3", Role.HR);
+
+    @Test
+    void privateRecognitionsReachOnlyTheirParticipantsAndPrivilegedSubscribers() {
+        SubscriptionRouter router = new SubscriptionRouter(16, 8, BufferOverflowStrategy.DROP_OLDEST);
+        List<Recognition> bob = new CopyOnWriteArrayList<>();
+        List<Recognition> charlie = new CopyOnWriteArrayList<>();
+        List<Recognition> diana = new CopyOnWriteArrayList<>();
+        List<Recognition> eve = new CopyOnWriteArrayList<>();
+        List<Disposable> subscriptions = List.of(
+                router.subscribe(BOB).subscribe(bob::add),
+                router.subscribe(CHARLIE).subscribe(charlie::add),
+                router.subscribe(DIANA).subscribe(diana::add),
+                router.subscribe(EVE).subscribe(eve::add));
+
+        Recognition secret = recognition(1, "102", "104", Visibility.PRIVATE);
+        Recognition announcement = recognition(2, "103", "102", Visibility.PUBLIC);
+        router.publish(secret);
+        router.publish(announcement);
+
+        assertThat(bob).containsExactly(secret, announcement);
+        assertThat(diana).containsExactly(secret, announcement);
+        assertThat(charlie).containsExactly(announcement);
+        assertThat(eve).containsExactly(secret, announcement);
+
+        subscriptions.forEach(Disposable::dispose);
+        assertThat(router.activeSubscribers()).isZero();
+    }
+
+    @Test
+    void selfRecognitionReachesItsParticipantOnce() {
+        SubscriptionRouter router = new SubscriptionRouter(16, 8, BufferOverflowStrategy.DROP_OLDEST);
+        List<Recognition> bob = new CopyOnWriteArrayList<>();
+        Disposable subscription = router.subscribe(BOB).subscribe(bob::add);
+
+        Recognition single = recognition(1, "102", "102", Visibility.PRIVATE);
+        Recognition batched = recognition(2, "102", "102", Visibility.PRIVATE);
+        router.publish(single);
+        router.publishAll(List.of(batched));
+
+        assertThat(bob).containsExactly(single, batched);
+        subscription.dispose();
+    }
+
+    @Test
+    void batchesAreRoutedLikeSingleEvents() {
+        SubscriptionRouter router = new SubscriptionRouter(16, 8, BufferOverflowStrategy.DROP_OLDEST);
+        List<Recognition> bob = new CopyOnWriteArrayList<>();
+        List<Recognition> charlie = new CopyOnWriteArrayList<>();
+        List<Recognition> eve = new CopyOnWriteArrayList<>();
+        List<Disposable> subscriptions = List.of(
+                router.subscribe(BOB).subscribe(bob::add),
+                router.subscribe(CHARLIE).subscribe(charlie::add),
+                router.subscribe(EVE).subscribe(eve::add));
+
+        Recognition secret = recognition(1, "102", "104", Visibility.PRIVATE);
+        Recognition announcement = recognition(2, "103", "102", Visibility.PUBLIC);
+        Recognition unrelated = recognition(3, "101", "104", Visibility.PRIVATE);
+        router.publishAll(List.of(secret, announcement, unrelated));
+
+        assertThat(bob).containsExactlyInAnyOrder(secret, announcement);
+        assertThat(charlie).containsExactly(announcement);
+        assertThat(eve).containsExactly(secret, announcement, unrelated);
+
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    void slowSubscriberOverflowsOnlyItsOwnBuffer() {
+        SubscriptionRouter router = new SubscriptionRouter(4, 2, BufferOverflowStrategy.DROP_OLDEST);
+        List<Recognition> fast = new CopyOnWriteArrayList<>();
+        router.subscribe(DIANA).subscribe(fast::add);
+        StalledSubscriber slow = new StalledSubscriber();
+        router.subscribe(BOB).subscribe(slow);
+
+        for (int i = 0; i < 10; i++) {
+            router.publish(recognition(i, "103", "104", Visibility.PUBLIC));
+        }
+
+        assertThat(fast).hasSize(10);
+        assertThat(slow.received).isEmpty();
+        assertThat(router.droppedEvents()).isEqualTo(6);
+        assertThat(router.laggingSubscribers()).isEqualTo(1);
+        assertThat(router.bufferedEvents()).isEqualTo(4);
+
+        slow.request(Long.MAX_VALUE);
+        assertThat(slow.received).extracting(Recognition::id).containsExactly("r-6", "r-7", "r-8", "r-9");
+        assertThat(router.laggingSubscribers()).isZero();
+    }
+
+    @Test
+    void concurrentBurstBelowTheBufferSizeLosesNothing() throws Exception {
+        SubscriptionRouter router = new SubscriptionRouter(4_096, 4_096, BufferOverflowStrategy.DROP_OLDEST);
+        StalledSubscriber slow = new StalledSubscriber();
+        router.subscribe(BOB).subscribe(slow);
+
+        // Public events on the broadcast channel and private ones on Bob's, from two threads at once
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> publishers = List.of(
+                executor.submit(() -> publishBurst(router, start, 0, Visibility.PUBLIC)),
+                executor.submit(() -> publishBurst(router, start, 1_000, Visibility.PRIVATE)));
+        start.countDown();
+        for (Future<?> publisher : publishers) {
+            publisher.get();
+        }
+        executor.shutdown();
+
+        assertThat(router.droppedEvents()).isZero();
+        assertThat(router.bufferedEvents()).isEqualTo(2_000);
+        slow.request(Long.MAX_VALUE);
+        assertThat(slow.received).hasSize(2_000);
+    }
+
+    private static Void publishBurst(SubscriptionRouter router, CountDownLatch start, int first, Visibility visibility)
+            throws InterruptedException {
+        start.await();
+        for (int i = first; i < first + 1_000; i++) {
+            router.publish(recognition(i, "103", "102", visibility));
+        }
+        return null;
+    }
+
+    @Test
+    void errorStrategyDisconnectsAnOverflowingSubscriber() {
+        SubscriptionRouter router = new SubscriptionRouter(2, 1, BufferOverflowStrategy.ERROR);
+        StalledSubscriber slow = new StalledSubscriber();
+        router.subscribe(BOB).subscribe(slow);
+
+        for (int i = 0; i < 3; i++) {
+            router.publish(recognition(i, "103", "104", Visibility.PUBLIC));
+        }
+
+        assertThat(slow.error.get()).isNotNull();
+        assertThat(router.disconnectedSubscribers()).isEqualTo(1);
+        assertThat(router.activeSubscribers()).isZero();
+    }
+
+    private static Recognition recognition(int n, String sender, String recipient, Visibility visibility) {
+        return new Recognition("r-" + n, sender, recipient, "Thanks " + n, visibility, false,
+                Instant.ofEpochSecond(1_700_000_000L + n));
+    }
+
+    // Requests nothing until told to, like a client that stopped reading its socket
+    private static final class StalledSubscriber extends BaseSubscriber<Recognition> {
+
+        private final List<Recognition> received = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(Recognition recognition) {
+            received.add(recognition);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.set(throwable);
+        }
+    }
+}
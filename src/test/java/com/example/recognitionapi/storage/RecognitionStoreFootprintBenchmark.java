@@ -0,0 +1,61 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retained heap per stored recognition. Run with {@code ./gradlew benchmark -Dbenchmark.records=1000000}.
+ * Off-heap arenas move message bytes out of the measured heap; compare with {@code -Dbenchmark.off-heap=true}.
+ */
+@Tag("benchmark")
+class RecognitionStoreFootprintBenchmark {
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 1_000_000);
+    private static final boolean OFF_HEAP = Boolean.getBoolean("benchmark.off-heap");
+
+    @Test
+    void bytesPerRecognition() {
+        String[] employees = new String[200];
+        for (int i = 0; i < employees.length; i++) {
+            employees[i] = String.valueOf(1_000 + i);
+        }
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+
+        long before = usedHeap();
+        RecognitionStore store = new RecognitionStore(RecognitionStore.DEFAULT_ARENA_CHUNK_BYTES, OFF_HEAP);
+        long messageChars = 0;
+        for (int n = 0; n < RECORDS; n++) {
+            String message = "Thank you for the help on the release! #" + n;
+            messageChars += message.length();
+            store.add(new Recognition(UUID.randomUUID().toString(), employees[n % 200],
+                    employees[(n * 7 + 1) % 200], message,
+                    n % 3 == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, n % 7 == 0,
+                    start.plusMillis(n * 37L)));
+        }
+        long after = usedHeap();
+
+        System.out.printf("footprint: %,d recognitions, %d heap bytes/recognition (avg message %d chars, off-heap=%s)%n",
+                RECORDS, (after - before) / RECORDS, messageChars / RECORDS, OFF_HEAP);
+        assertThat(store.size()).isEqualTo(RECORDS);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionEdge;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RecognitionStoreSearchTests {
+
+    private static final String[] WORDS = {"release", "launch", "teamwork", "kudos", "migration", "ownership",
+            "customer", "review", "oncall", "design", "quality", "mentoring"};
+    private static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    private final RecognitionStore store = new RecognitionStore();
+
+    @Test
+    void matchesEveryTermCaseInsensitively() {
+        store.add(recognition(1, "101", "102", "Great work on the Release!", Visibility.PUBLIC));
+        store.add(recognition(2, "101", "103", "release notes were clear", Visibility.PUBLIC));
+        store.add(recognition(3, "102", "103", "Thanks for the launch", Visibility.PUBLIC));
+
+        assertThat(ids(store.search("RELEASE", 10, null, "104", false))).containsExactly("r-2", "r-1");
+        assertThat(ids(store.search("release work", 10, null, "104", false))).containsExactly("r-1");
+        assertThat(ids(store.search("release unknownword", 10, null, "104", false))).isEmpty();
+        assertThat(ids(store.search("  ", 10, null, "104", false))).isEmpty();
+    }
+
+    @Test
+    void shorterAndRepeatedMatchesRankFirst() {
+        store.add(recognition(1, "101", "102", "kudos for the migration and for staying late every night this week", Visibility.PUBLIC));
+        store.add(recognition(2, "101", "102", "migration kudos", Visibility.PUBLIC));
+        store.add(recognition(3, "101", "102", "migration migration migration, kudos", Visibility.PUBLIC));
+
+        assertThat(ids(store.search("migration", 10, null, "101", false))).containsExactly("r-3", "r-2", "r-1");
+    }
+
+    @Test
+    void privateRecognitionsAreOnlyFoundByParticipantsAndPrivilegedRoles() {
+        store.add(recognition(1, "101", "102", "secret project praise", Visibility.PRIVATE));
+        store.add(recognition(2, "103", "104", "public project praise", Visibility.PUBLIC));
+
+        assertThat(ids(store.search("project", 10, null, "105", false))).containsExactly("r-2");
+        assertThat(ids(store.search("project", 10, null, "102", false))).containsExactlyInAnyOrder("r-1", "r-2");
+        assertThat(ids(store.search("project", 10, null, "999", true))).containsExactlyInAnyOrder("r-1", "r-2");
+    }
+
+    @Test
+    void pagesAgreeWithABruteForceScanUnderConcurrentWrites() throws Exception {
+        // Enough recognitions per term to compress many posting blocks, written out of slot order
+        int count = 20_000;
+        List<Recognition> all = new ArrayList<>();
+        Random random = new Random(42);
+        for (int n = 0; n < count; n++) {
+            StringBuilder message = new StringBuilder();
+            int words = 1 + random.nextInt(8);
+            for (int w = 0; w < words; w++) {
+                message.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Visibility visibility = random.nextInt(4) == 0 ? Visibility.PRIVATE : Visibility.PUBLIC;
+            all.add(recognition(n, EMPLOYEES.get(random.nextInt(5)), EMPLOYEES.get(random.nextInt(5)),
+                    message.toString(), visibility));
+        }
+        List<Recognition> shuffled = new ArrayList<>(all);
+        Collections.shuffle(shuffled, random);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (Recognition recognition : shuffled) {
+            executor.submit(() -> store.add(recognition));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        for (String query : List.of("release", "kudos teamwork", "design quality review")) {
+            Set<String> terms = Set.of(query.split(" "));
+            Set<String> expected = new HashSet<>();
+            for (Recognition recognition : all) {
+                Set<String> words = new HashSet<>(Arrays.asList(recognition.message().toLowerCase(Locale.ROOT).trim().split(" +")));
+                boolean visible = recognition.visibility() == Visibility.PUBLIC
+                        || recognition.senderId().equals("103") || recognition.recipientId().equals("103");
+                if (visible && words.containsAll(terms)) {
+                    expected.add(recognition.id());
+                }
+            }
+
+            List<String> paged = new ArrayList<>();
+            String after = null;
+            RecognitionConnection page;
+            do {
+                page = store.search(query, 37, after, "103", false);
+                paged.addAll(ids(page));
+                after = page.pageInfo().endCursor();
+            } while (page.pageInfo().hasNextPage());
+
+            assertThat(paged).doesNotHaveDuplicates();
+            assertThat(paged).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void feedCursorsAreRejected() {
+        store.add(recognition(1, "101", "102", "kudos", Visibility.PUBLIC));
+        String feedCursor = store.timeline().page(1, null, recognition -> true).pageInfo().endCursor();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> store.search("kudos", 10, feedCursor, "101", false));
+    }
+
+    private static List<String> ids(RecognitionConnection connection) {
+        return connection.edges().stream().map(RecognitionEdge::node).map(Recognition::id).toList();
+    }
+
+    private static Recognition recognition(int n, String sender, String recipient, String message, Visibility visibility) {
+        return new Recognition("r-" + n, sender, recipient, message, visibility, false,
+                Instant.ofEpochMilli(1_700_000_000_000L + n * 1_000L));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RecognitionStoreTests {
+
+    private final RecognitionStore store = new RecognitionStore(1_024, false);
+
+    @Test
+    void batchWithARowTooLargeToStoreIsRejectedWhole() {
+        List<Recognition> batch = List.of(
+                recognition("r-1", "Thanks", 1),
+                recognition("r-2", "x".repeat(2_000), 2),
+                recognition("r-3", "Thanks again", 3));
+
+        assertThatIllegalArgumentException().isThrownBy(() -> store.addAll(batch));
+        assertThat(store.size()).isZero();
+
+        // Nothing was half stored, so the valid rows are not taken for duplicates
+        assertThat(store.addAll(List.of(batch.get(0), batch.get(2)))).hasSize(2);
+        assertThat(store.receivedBy("102").newestFirst()).extracting(Recognition::id).containsExactly("r-3", "r-1");
+    }
+
+    @Test
+    void rowTooLargeToStoreIsRejectedBeforeItIsIndexed() {
+        Recognition tooLarge = recognition("r-1", "x".repeat(2_000), 1);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> store.add(tooLarge));
+
+        assertThat(store.add(recognition("r-1", "Thanks", 1))).isTrue();
+        assertThat(store.timeline().newestFirst()).extracting(Recognition::message).containsExactly("Thanks");
+    }
+
+    @Test
+    void textIdsWithinAMillisecondSortByContentLikeTheColdTier() {
+        List<Recognition> sameMillis = List.of(
+                recognition("legacy-1", "Thanks", 1),
+                recognition("legacy-22", "Thanks", 1),
+                recognition("legacy-333", "Thanks", 1),
+                recognition("imported-4", "Thanks", 1));
+        sameMillis.forEach(store::add);
+        RecognitionStore reversed = new RecognitionStore(1_024, false);
+        sameMillis.reversed().forEach(reversed::add);
+
+        List<String> coldOrder = sameMillis.stream()
+                .sorted(Comparator.comparing((Recognition recognition) -> ColdSegment.idKey(recognition.id()),
+                        Comparator.<long[]>comparingLong(key -> key[0]).thenComparingLong(key -> key[1])).reversed())
+                .map(Recognition::id)
+                .toList();
+        assertThat(store.timeline().newestFirst()).extracting(Recognition::id).containsExactlyElementsOf(coldOrder);
+        assertThat(reversed.timeline().newestFirst()).extracting(Recognition::id).containsExactlyElementsOf(coldOrder);
+    }
+
+    private static Recognition recognition(String id, String message, long second) {
+        return new Recognition(id, "101", "102", message, Visibility.PUBLIC, false,
+                Instant.ofEpochSecond(1_700_000_000L + second));
+    }
+}
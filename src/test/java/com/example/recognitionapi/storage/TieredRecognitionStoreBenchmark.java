@@ -0,0 +1,158 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionIdGenerator;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap and read latency for five years of history behind a 90-day hot window, built the way a
+ * running instance builds it: a day of recognitions at a time, migrating every 30 days.
+ * Run with {@code ./gradlew benchmark -Dbenchmark.records=50000000}, and compare the heap with
+ * {@link RecognitionStoreFootprintBenchmark} holding the same number in memory.
+ */
+@Tag("benchmark")
+class TieredRecognitionStoreBenchmark {
+
+    private static final int RECORDS = Integer.getInteger("benchmark.records", 50_000_000);
+    private static final int EMPLOYEES = Integer.getInteger("benchmark.employees", 10_000);
+    private static final int DAYS = 5 * 365;
+    private static final Duration HOT_WINDOW = Duration.ofDays(90);
+    private static final int MIGRATE_EVERY_DAYS = 30;
+    private static final int BLOCK_CACHE_BLOCKS = 256;
+    private static final int QUERIES = 2_000;
+    private static final int PAGE_SIZE = 20;
+
+    @TempDir
+    Path directory;
+
+    private long now = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    void heapAndPageLatency() throws Exception {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now);
+            }
+        };
+        RecognitionIdGenerator ids = new RecognitionIdGenerator(1, () -> now);
+        Random random = new Random(1);
+        long start = now;
+        long perDay = RECORDS / DAYS;
+        long dayMillis = Duration.ofDays(1).toMillis();
+
+        long before = usedHeap();
+        long built = System.nanoTime();
+        try (TieredRecognitionStore store = TieredRecognitionStore.open(RecognitionStore::new, directory, HOT_WINDOW,
+                BLOCK_CACHE_BLOCKS, clock)) {
+            long migrationNanos = 0;
+            List<Recognition> day = new ArrayList<>((int) perDay + DAYS);
+            for (int d = 0; d < DAYS; d++) {
+                long count = perDay + (d < RECORDS % DAYS ? 1 : 0);
+                for (long n = 0; n < count; n++) {
+                    now = start + d * dayMillis + n * dayMillis / count;
+                    UUID id = ids.next();
+                    day.add(new Recognition(id.toString(), employee(random), employee(random),
+                            "Thanks for the help with release " + random.nextInt(1_000) + ", great teamwork!",
+                            random.nextInt(10) == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, random.nextInt(20) == 0,
+                            Instant.ofEpochMilli(RecognitionIdGenerator.epochMillis(id.getMostSignificantBits()))));
+                }
+                store.addAll(day);
+                day.clear();
+                if (d % MIGRATE_EVERY_DAYS == MIGRATE_EVERY_DAYS - 1) {
+                    long migrating = System.nanoTime();
+                    store.migrate();
+                    migrationNanos += System.nanoTime() - migrating;
+                }
+            }
+            long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - built);
+            long heap = usedHeap() - before;
+            System.out.printf("tiered: %,d recognitions (%,d hot, %,d cold in %d segments, %,d MiB on disk) built in %,d s"
+                            + " (%,d s migrating); heap %,d MiB, %d bytes/recognition%n",
+                    store.size(), store.hotSize(), store.coldSize(), store.coldSegments(), store.coldBytes() >> 20,
+                    buildMillis / 1000, TimeUnit.NANOSECONDS.toSeconds(migrationNanos), heap >> 20, heap / store.size());
+
+            long coldStart = start;
+            long coldEnd = now - HOT_WINDOW.toMillis();
+            measure("hot timeline, first page", store, i -> null, index -> store.timeline());
+            measure("hot received, first page", store, i -> null, index -> store.receivedBy(employee(random)));
+            measure("cold timeline, random page", store, i -> cursor(random, coldStart, coldEnd),
+                    index -> store.timeline());
+            measure("cold received, random page", store, i -> cursor(random, coldStart, coldEnd),
+                    index -> store.receivedBy(employee(random)));
+            String regular = employee(random);
+            String page = cursor(random, coldStart, coldEnd);
+            measure("cold received, same page again", store, i -> page, index -> store.receivedBy(regular));
+
+            assertThat(store.size()).isEqualTo((long) RECORDS);
+        }
+    }
+
+    private void measure(String label, TieredRecognitionStore store, IntFunction<String> after, IntFunction<Feed> feed) {
+        long hits = store.blockCacheHits();
+        long misses = store.blockCacheMisses();
+        long[] nanos = new long[QUERIES];
+        int rows = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String cursor = after.apply(i);
+            long started = System.nanoTime();
+            rows += feed.apply(i).page(PAGE_SIZE, cursor, recognition -> true).edges().size();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-32s p50 %,8.1f us  p99 %,8.1f us  max %,8.1f us  (%.1f rows/page, block cache %,d hits %,d misses)%n",
+                label, nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3,
+                (double) rows / QUERIES, store.blockCacheHits() - hits, store.blockCacheMisses() - misses);
+    }
+
+    private static String cursor(Random random, long from, long to) {
+        long millis = from + (long) (random.nextDouble() * (to - from));
+        return RecognitionCursor.encode(new RecognitionKey(millis, Long.MIN_VALUE, Long.MIN_VALUE));
+    }
+
+    private static String employee(Random random) {
+        return String.valueOf(1_000 + random.nextInt(EMPLOYEES));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
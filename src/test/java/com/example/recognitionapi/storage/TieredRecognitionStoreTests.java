@@ -0,0 +1,338 @@
+package com.example.recognitionapi.storage;
+
+import com.example.recognitionapi.model.Recognition;
+import com.example.recognitionapi.model.RecognitionConnection;
+import com.example.recognitionapi.model.RecognitionEdge;
+import com.example.recognitionapi.model.Visibility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredRecognitionStoreTests {
+
+    private static final Duration HOT_WINDOW = Duration.ofDays(90);
+    private static final List<String> EMPLOYEES = List.of("101", "102", "103", "104", "105");
+
+    @TempDir
+    Path directory;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final Random random = new Random(42);
+    private final List<Recognition> stored = new ArrayList<>();
+    private TieredRecognitionStore store;
+
+    @AfterEach
+    void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void migrationMovesOnlyRecognitionsOlderThanTheHotWindow() throws IOException {
+        store = open();
+        addHistory(5_000, Duration.ofDays(200));
+
+        int moved = store.migrate();
+
+        long old = stored.stream().filter(this::olderThanHotWindow).count();
+        assertThat((long) moved).isEqualTo(old).isPositive();
+        assertThat(store.coldSize()).isEqualTo(old);
+        assertThat((long) store.hotSize()).isEqualTo(stored.size() - old);
+        assertThat(store.size()).isEqualTo((long) stored.size());
+        assertThat(store.coldSegments()).isEqualTo(1);
+        assertThat(store.migrate()).isZero();
+    }
+
+    @Test
+    void feedsMergeBothTiersNewestFirst() throws IOException {
+        store = open();
+        addHistory(5_000, Duration.ofDays(200));
+        store.migrate();
+
+        assertThat(ids(store.timeline().newestFirst())).isEqualTo(expected(recognition -> true));
+        for (String employee : EMPLOYEES) {
+            assertThat(ids(store.receivedBy(employee).newestFirst()))
+                    .isEqualTo(expected(recognition -> recognition.recipientId().equals(employee)));
+            assertThat(ids(store.sentBy(employee).newestFirst()))
+                    .isEqualTo(expected(recognition -> recognition.senderId().equals(employee)));
+        }
+    }
+
+    @Test
+    void pagesCrossFromTheHotTierIntoSegmentsWithoutGapsOrRepeats() throws IOException {
+        store = open();
+        addHistory(5_000, Duration.ofDays(200));
+        store.migrate();
+        clock.advance(Duration.ofDays(30));
+        addHistory(1_000, Duration.ofDays(150));
+        store.migrate();
+        assertThat(store.coldSegments()).isEqualTo(2);
+
+        List<Recognition> paged = new ArrayList<>();
+        String after = null;
+        RecognitionConnection page;
+        do {
+            page = store.receivedBy("102").page(17, after, recognition -> true);
+            page.edges().stream().map(RecognitionEdge::node).forEach(paged::add);
+            after = page.pageInfo().endCursor();
+        } while (page.pageInfo().hasNextPage());
+
+        assertThat(ids(paged)).isEqualTo(expected(recognition -> recognition.recipientId().equals("102")));
+    }
+
+    @Test
+    void coldRowsFollowTheSameVisibilityRules() throws IOException {
+        store = open();
+        addHistory(3_000, Duration.ofDays(200));
+        store.migrate();
+
+        assertThat(ids(store.timelineVisibleTo("103", false).newestFirst())).isEqualTo(expected(recognition ->
+                recognition.visibility() == Visibility.PUBLIC
+                        || recognition.senderId().equals("103") || recognition.recipientId().equals("103")));
+        assertThat(ids(store.receivedByVisibleTo("101", "103", false).newestFirst())).isEqualTo(expected(recognition ->
+                recognition.recipientId().equals("101")
+                        && (recognition.visibility() == Visibility.PUBLIC || recognition.senderId().equals("103"))));
+    }
+
+    @Test
+    void searchRanksBothTiersAsOneStoreWould() throws IOException {
+        store = open();
+        addHistory(3_000, Duration.ofDays(200));
+        store.migrate();
+        clock.advance(Duration.ofDays(30));
+        addHistory(1_000, Duration.ofDays(150));
+        store.migrate();
+        RecognitionStore single = new RecognitionStore();
+        single.addAll(stored);
+        Recognition migrated = stored.stream().filter(this::olderThanHotWindow)
+                .filter(recognition -> !recognition.id().startsWith("legacy")).findFirst().orElseThrow();
+
+        assertThat(searchAll(store, "thanks", "103", false)).hasSize(stored.stream().filter(recognition ->
+                recognition.visibility() == Visibility.PUBLIC
+                        || recognition.senderId().equals("103") || recognition.recipientId().equals("103")).toList().size())
+                .isEqualTo(searchAll(single, "thanks", "103", false));
+        assertThat(searchAll(store, "thanks", null, true)).hasSize(stored.size())
+                .doesNotHaveDuplicates()
+                .isEqualTo(searchAll(single, "thanks", null, true));
+        assertThat(searchAll(store, migrated.id(), null, true)).contains(migrated.id())
+                .isEqualTo(searchAll(single, migrated.id(), null, true));
+    }
+
+    @Test
+    void rangeReadsSpanBothTiersOldestFirst() throws IOException {
+        store = open();
+        addHistory(3_000, Duration.ofDays(200));
+        store.migrate();
+        long from = clock.millis() - Duration.ofDays(120).toMillis();
+        long to = clock.millis() - Duration.ofDays(60).toMillis();
+
+        List<Recognition> read = new ArrayList<>();
+        store.between(from, to, List.of("104")).forEach(read::add);
+
+        assertThat(read.stream().map(Recognition::id).toList()).containsExactlyInAnyOrderElementsOf(expected(recognition ->
+                recognition.createdAt().toEpochMilli() >= from && recognition.createdAt().toEpochMilli() < to
+                        && (recognition.senderId().equals("104") || recognition.recipientId().equals("104"))));
+        assertThat(read).isSortedAccordingTo(Comparator.comparing(Recognition::createdAt));
+    }
+
+    @Test
+    void migratedRecognitionsAreNotStoredTwice() throws IOException {
+        store = open();
+        addHistory(2_000, Duration.ofDays(200));
+        store.migrate();
+        Recognition migrated = stored.stream().filter(this::olderThanHotWindow).findFirst().orElseThrow();
+
+        assertThat(store.add(migrated)).isFalse();
+        assertThat(store.addAll(List.of(migrated))).isEmpty();
+        assertThat(store.size()).isEqualTo((long) stored.size());
+
+        // Old but new to the store, as in an import of history: it stays hot until the next migration
+        Recognition imported = recognition("imported-1", "101", "102",
+                migrated.createdAt().toEpochMilli());
+        assertThat(store.add(imported)).isTrue();
+        stored.add(imported);
+        assertThat(ids(store.timeline().newestFirst())).isEqualTo(expected(recognition -> true));
+    }
+
+    @Test
+    void segmentsOutliveARestartAndLogReplayDoesNotDuplicateThem() throws IOException {
+        store = open();
+        addHistory(3_000, Duration.ofDays(200));
+        store.migrate();
+        long cold = store.coldSize();
+        store.close();
+
+        store = open();
+        assertThat(store.coldSize()).isEqualTo(cold);
+        int replayed = 0;
+        for (Recognition recognition : stored) {
+            if (store.add(recognition)) {
+                replayed++;
+            }
+        }
+
+        assertThat((long) replayed).isEqualTo(stored.size() - cold);
+        assertThat(ids(store.timeline().newestFirst())).isEqualTo(expected(recognition -> true));
+    }
+
+    @Test
+    void unfinishedSegmentFilesAreDeletedOnOpen() throws IOException {
+        Files.writeString(directory.resolve("segment-7.bin.tmp"), "partial");
+
+        store = open();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void addsDuringAMigrationAreKept() throws Exception {
+        store = open();
+        addHistory(5_000, Duration.ofDays(200));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<Recognition>>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread;
+            futures.add(executor.submit(() -> {
+                List<Recognition> added = new ArrayList<>();
+                for (int i = 0; i < 1_000; i++) {
+                    // Half recent, half old enough to belong in a segment
+                    long age = i % 2 == 0 ? 1_000 : Duration.ofDays(150).toMillis();
+                    Recognition recognition = recognition(UUID.randomUUID().toString(), EMPLOYEES.get(i % 5),
+                            EMPLOYEES.get((i + offset) % 5), clock.millis() - age + i);
+                    if (store.add(recognition)) {
+                        added.add(recognition);
+                    }
+                }
+                return added;
+            }));
+        }
+        store.migrate();
+        for (Future<List<Recognition>> future : futures) {
+            stored.addAll(future.get());
+        }
+        executor.shutdown();
+
+        assertThat(stored).hasSize(9_000);
+        assertThat(store.size()).isEqualTo((long) stored.size());
+        assertThat(ids(store.timeline().newestFirst())).isEqualTo(expected(recognition -> true));
+        store.migrate();
+        assertThat((long) store.hotSize()).isEqualTo(stored.stream().filter(recognition -> !olderThanHotWindow(recognition)).count());
+    }
+
+    private TieredRecognitionStore open() throws IOException {
+        return TieredRecognitionStore.open(RecognitionStore::new, directory, HOT_WINDOW, 16, clock);
+    }
+
+    private static List<String> searchAll(TieredRecognitionStore store, String query, String viewerId,
+                                          boolean seesPrivate) {
+        return searchAll((pageSize, after) -> store.search(query, pageSize, after, viewerId, seesPrivate));
+    }
+
+    private static List<String> searchAll(RecognitionStore store, String query, String viewerId, boolean seesPrivate) {
+        return searchAll((pageSize, after) -> store.search(query, pageSize, after, viewerId, seesPrivate));
+    }
+
+    private static List<String> searchAll(BiFunction<Integer, String, RecognitionConnection> search) {
+        List<String> ids = new ArrayList<>();
+        String after = null;
+        RecognitionConnection page;
+        do {
+            page = search.apply(17, after);
+            page.edges().forEach(edge -> ids.add(edge.node().id()));
+            after = page.pageInfo().endCursor();
+        } while (page.pageInfo().hasNextPage());
+        return ids;
+    }
+
+    // Spread over the last span; some non-UUID ids and some recognitions sharing a millisecond
+    private void addHistory(int count, Duration span) {
+        long now = clock.millis();
+        List<Recognition> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long createdAt = i % 10 == 1
+                    ? batch.get(batch.size() - 1).createdAt().toEpochMilli()
+                    : now - (long) (random.nextDouble() * span.toMillis());
+            String id = i % 5 == 0 ? "legacy-" + stored.size() + "-" + i : UUID.randomUUID().toString();
+            batch.add(recognition(id, EMPLOYEES.get(random.nextInt(5)), EMPLOYEES.get(random.nextInt(5)), createdAt));
+        }
+        store.addAll(batch);
+        stored.addAll(batch);
+    }
+
+    private Recognition recognition(String id, String sender, String recipient, long createdAt) {
+        return new Recognition(id, sender, recipient, "Thanks for " + id,
+                random.nextInt(4) == 0 ? Visibility.PRIVATE : Visibility.PUBLIC, random.nextBoolean(),
+                Instant.ofEpochMilli(createdAt));
+    }
+
+    private boolean olderThanHotWindow(Recognition recognition) {
+        return recognition.createdAt().toEpochMilli() < clock.millis() - HOT_WINDOW.toMillis();
+    }
+
+    // Newest first; ids are compared as sets within a millisecond, whose order depends on the id encoding
+    private List<String> expected(Predicate<Recognition> filter) {
+        return ids(stored.stream().filter(filter).sorted(Comparator.comparing(Recognition::createdAt).reversed()
+                .thenComparing(Recognition::id)).toList());
+    }
+
+    private static List<String> ids(List<Recognition> recognitions) {
+        List<Recognition> sorted = new ArrayList<>(recognitions);
+        sorted.sort(Comparator.comparing(Recognition::createdAt).reversed().thenComparing(Recognition::id));
+        assertThat(sorted.stream().map(Recognition::createdAt).toList())
+                .isEqualTo(recognitions.stream().map(Recognition::createdAt).toList());
+        return sorted.stream().map(Recognition::id).toList();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
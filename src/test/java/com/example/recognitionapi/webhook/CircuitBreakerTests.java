@@ -0,0 +1,74 @@
+package com.example.recognitionapi.webhook;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTests {
+
+    private final MutableClock clock = new MutableClock();
+    private final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(10), clock);
+
+    @Test
+    void lateFailureOfAnOlderCallDoesNotLetASecondTrialThrough() {
+        CircuitBreaker.Permit first = breaker.acquire();
+        CircuitBreaker.Permit second = breaker.acquire();
+        CircuitBreaker.Permit late = breaker.acquire();
+        breaker.onFailure(first);
+        breaker.onFailure(second);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquire()).isEqualTo(CircuitBreaker.Permit.DENIED);
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(breaker.acquire()).isEqualTo(CircuitBreaker.Permit.TRIAL);
+        breaker.onFailure(late);
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(breaker.acquire()).isEqualTo(CircuitBreaker.Permit.DENIED);
+    }
+
+    @Test
+    void trialOutcomeClosesOrReopensTheCircuit() {
+        breaker.onFailure(breaker.acquire());
+        breaker.onFailure(breaker.acquire());
+        clock.advance(Duration.ofSeconds(10));
+
+        breaker.onFailure(breaker.acquire());
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        clock.advance(Duration.ofSeconds(10));
+        breaker.onSuccess(breaker.acquire());
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.acquire()).isEqualTo(CircuitBreaker.Permit.CALL);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.recognitionapi.webhook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookDispatcherTests {
+
+    private HttpServer server;
+    private final Queue<String> bodies = new ConcurrentLinkedQueue<>();
+    private final Queue<String> deliveryIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Handler handler = exchange -> 200;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebhookDispatcher dispatcher;
+
+    @FunctionalInterface
+    private interface Handler {
+        int status(HttpExchange exchange) throws Exception;
+    }
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/hook", exchange -> {
+            requests.incrementAndGet();
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            deliveryIds.add(String.valueOf(exchange.getRequestHeaders().getFirst(WebhookDispatcher.DELIVERY_ID_HEADER)));
+            int status;
+            try {
+                status = handler.status(exchange);
+            } catch (Exception e) {
+                status = 500;
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void transientFailuresAreRetriedWithBackoff() {
+        AtomicInteger attempts = new AtomicInteger();
+        handler = exchange -> attempts.incrementAndGet() <= 2 ? 503 : 200;
+        dispatcher = new WebhookDispatcher(settings(8, 4, 3, 10, Duration.ZERO), meterRegistry);
+
+        dispatcher.submit(destination(), message(1));
+
+        await(() -> dispatcher.deliveredBatches() == 1);
+        assertThat(requests.get()).isEqualTo(3);
+        assertThat(dispatcher.retries()).isEqualTo(2);
+        assertThat(dispatcher.failedBatches()).isZero();
+        assertThat(meterRegistry.get("webhook.delivery").tag("destination", "stub").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        handler = exchange -> 400;
+        dispatcher = new WebhookDispatcher(settings(8, 4, 3, 10, Duration.ZERO), meterRegistry);
+
+        dispatcher.submit(destination(), message(1));
+
+        await(() -> dispatcher.failedBatches() == 1);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowEndpointTimesOut() {
+        handler = exchange -> {
+            Thread.sleep(1_000);
+            return 200;
+        };
+        dispatcher = new WebhookDispatcher(settings(8, 4, 0, 10, Duration.ZERO, Duration.ofMillis(300)), meterRegistry);
+
+        dispatcher.submit(destination(), message(1));
+
+        await(() -> dispatcher.failedBatches() == 1);
+        assertThat(dispatcher.deliveredBatches()).isZero();
+    }
+
+    @Test
+    void retriesOfABatchCarryItsDeliveryId() {
+        AtomicInteger attempts = new AtomicInteger();
+        handler = exchange -> attempts.incrementAndGet() == 1 ? 503 : 200;
+        dispatcher = new WebhookDispatcher(settings(8, 4, 3, 10, Duration.ZERO), meterRegistry);
+
+        dispatcher.submit(destination(), message(1));
+        await(() -> dispatcher.deliveredBatches() == 1);
+        dispatcher.submit(destination(), message(2));
+        await(() -> dispatcher.deliveredBatches() == 2);
+
+        List<String> ids = List.copyOf(deliveryIds);
+        assertThat(ids).hasSize(3).doesNotContain("null");
+        assertThat(ids.get(1)).isEqualTo(ids.get(0));
+        assertThat(ids.get(2)).isNotEqualTo(ids.get(0));
+    }
+
+    @Test
+    void aDeliveryThatThrowsDoesNotStopTheOnesAfterIt() {
+        dispatcher = new WebhookDispatcher(settings(8, 1, 0, 10, Duration.ZERO), meterRegistry);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+        WebhookDestination broken = new WebhookDestination("broken", url, messages -> {
+            throw new IllegalStateException("cannot render payload");
+        });
+
+        dispatcher.submit(broken, message(1));
+        dispatcher.submit(destination(), message(2));
+
+        await(() -> dispatcher.deliveredBatches() == 1);
+        assertThat(dispatcher.failedBatches()).isEqualTo(1);
+        dispatcher.submit(destination(), message(3));
+        await(() -> dispatcher.deliveredBatches() == 2);
+        assertThat(dispatcher.rejectedMessages()).isZero();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        handler = exchange -> 500;
+        dispatcher = new WebhookDispatcher(settings(8, 1, 0, 2, Duration.ZERO), meterRegistry);
+
+        dispatcher.submit(destination(), message(1));
+        dispatcher.submit(destination(), message(2));
+        await(() -> dispatcher.failedBatches() == 2);
+        assertThat(dispatcher.circuitState("stub")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        dispatcher.submit(destination(), message(3));
+        await(() -> dispatcher.shortCircuitedBatches() == 1);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrencyIsCappedAndOverflowIsRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        handler = exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return 200;
+        };
+        // Long request timeout so held requests stay in flight until released
+        dispatcher = new WebhookDispatcher(new WebhookDispatcher.Settings(4, 2, 2, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), 0, Duration.ofMillis(10), Duration.ofMillis(50), 10, Duration.ofMinutes(1),
+                Duration.ZERO, 20), meterRegistry);
+
+        for (int i = 0; i < 50; i++) {
+            dispatcher.submit(destination(), message(i));
+        }
+        await(() -> requests.get() == 2);
+        release.countDown();
+        await(() -> dispatcher.deliveredBatches() + dispatcher.rejectedMessages() == 50);
+
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        assertThat(dispatcher.rejectedMessages()).isPositive();
+    }
+
+    @Test
+    void digestModeCoalescesMessagesPerWindow() {
+        dispatcher = new WebhookDispatcher(settings(64, 4, 0, 10, Duration.ofMillis(300)), meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.submit(destination(), message(i));
+        }
+
+        await(() -> dispatcher.deliveredBatches() == 1);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(bodies.peek()).contains("\"count\":5");
+    }
+
+    private WebhookDestination destination() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+        return new WebhookDestination("stub", url, messages -> Map.of("count", messages.size()));
+    }
+
+    private static WebhookMessage message(int n) {
+        return new WebhookMessage("r-" + n, "Alice", "Bob", "Thanks " + n);
+    }
+
+    // The first request on a cold WebClient can take several hundred milliseconds, so only
+    // slowEndpointTimesOut uses a short request timeout
+    private static WebhookDispatcher.Settings settings(int queueCapacity, int maxConcurrency, int maxRetries,
+                                                       int failureThreshold, Duration digestWindow) {
+        return settings(queueCapacity, maxConcurrency, maxRetries, failureThreshold, digestWindow, Duration.ofSeconds(5));
+    }
+
+    private static WebhookDispatcher.Settings settings(int queueCapacity, int maxConcurrency, int maxRetries,
+                                                       int failureThreshold, Duration digestWindow,
+                                                       Duration requestTimeout) {
+        return new WebhookDispatcher.Settings(queueCapacity, maxConcurrency, maxConcurrency,
+                Duration.ofSeconds(1), requestTimeout, maxRetries, Duration.ofMillis(10),
+                Duration.ofMillis(50), failureThreshold, Duration.ofMinutes(1), digestWindow, 20);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}